@@ -0,0 +1,50 @@
+/**
+ * Solves the built-in levels with BFS, A* and IDA* and compares the nodes each expands.
+ * <p>
+ * Compile against the game classes and run, for example
+ * "java -cp build:bench:res InformedSolverBenchmark 12 20" for levels 12 and 20.
+ */
+public class InformedSolverBenchmark {
+    /**
+     * Run the benchmark.
+     *
+     * @param args numbers of the levels to solve, all the built-in ones if none are given
+     */
+    public static void main(String[] args) {
+        int[] levels = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            levels[i] = Integer.parseInt(args[i]);
+        }
+        if (levels.length == 0) {
+            levels = new int[LevelSource.getDefault().size()];
+            for (int i = 0; i < levels.length; i++) {
+                levels[i] = i + 1;
+            }
+        }
+
+        GameState state = new GameState();
+        long[] nodes = new long[3];
+        long[] time = new long[3];
+        for (int level : levels) {
+            LevelSource.getDefault().copyLevel(level, state);
+            InformedSolver idaStar = new InformedSolver(state);
+            Solution[] solutions = {
+                    new LevelSolver(state).solve(),
+                    new InformedSolver(state).solveAStar(),
+                    idaStar.solveIdaStar(1 << 20)
+            };
+
+            System.out.println("Level " + level);
+            for (int i = 0; i < solutions.length; i++) {
+                nodes[i] += solutions[i].getNodesExpanded();
+                time[i] += solutions[i].getWallTimeNanos();
+                System.out.println("    " + solutions[i]);
+                if (solutions[i].length() != solutions[0].length())
+                    System.out.println("    length differs from BFS!");
+            }
+            System.out.println("    IDA* table: " + idaStar.getTable());
+        }
+        System.out.printf("Total: BFS %d nodes %.2f ms, A* %d nodes %.2f ms, IDA* %d nodes %.2f ms%n",
+                nodes[0], time[0] / 1e6, nodes[1], time[1] / 1e6, nodes[2], time[2] / 1e6);
+    }
+}
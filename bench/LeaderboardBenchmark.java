@@ -0,0 +1,106 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Measures a Leaderboard holding millions of runs, and saving and reading it through a ScoreStore.
+ * <p>
+ * Compile against the game classes and run with enough heap, for example
+ * "java -Xmx3g -cp build:bench LeaderboardBenchmark 10000000".
+ */
+public class LeaderboardBenchmark {
+    private static final int QUERIES = 1000000;
+    private static final int PAGES = 100000;
+    private static final int PAGE_SIZE = 10;
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args number of runs, 10 million if not given
+     * @throws IOException if the store can't be written
+     */
+    public static void main(String[] args) throws IOException {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+        Random random = new Random(42);
+        long[] names = new long[1024];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = Leaderboard.packName("Player" + i);
+        }
+
+        long before = usedMemory();
+        Path directory = Files.createTempDirectory("leaderboard");
+        ScoreStore store = new ScoreStore(directory.resolve(ScoreStore.DEFAULT_FILE));
+        Leaderboard board = store.createLeaderboard("ExpertRun");
+
+        // runs of up to ten minutes, so many share a score
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            board.insert(random.nextInt(600000), names[i & 1023]);
+        }
+        report("insert", runs, System.nanoTime() - start);
+        System.out.printf("memory     %.1f bytes per run%n", (double) (usedMemory() - before) / runs);
+
+        long sum = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            sum += board.rankOf(random.nextInt(600000));
+        }
+        report("rank of", QUERIES, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            sum += board.getScore(random.nextInt(runs));
+        }
+        report("select", QUERIES, System.nanoTime() - start);
+
+        long[] pageScores = new long[PAGE_SIZE];
+        long[] pageNames = new long[PAGE_SIZE];
+        start = System.nanoTime();
+        for (int i = 0; i < PAGES; i++) {
+            sum += board.page(random.nextInt(runs), pageScores, pageNames);
+        }
+        report("page of " + PAGE_SIZE, PAGES, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        store.save();
+        report("save", 1, System.nanoTime() - start);
+        System.out.printf("file       %d bytes%n", Files.size(store.getFile()));
+
+        board = null;
+        store = null;
+        start = System.nanoTime();
+        ScoreStore read = ScoreStore.open(directory.resolve(ScoreStore.DEFAULT_FILE));
+        report("open", 1, System.nanoTime() - start);
+        System.out.println("runs read  " + read.getLeaderboard("ExpertRun").size() + " (" + sum + ")");
+
+        Files.delete(read.getFile());
+        Files.deleteIfExists(SafeFile.backupOf(read.getFile()));
+        Files.delete(directory);
+    }
+
+    /**
+     * Print the time of an operation.
+     *
+     * @param name       name of the operation
+     * @param operations number of operations timed
+     * @param nanos      time of all of them
+     */
+    private static void report(String name, int operations, long nanos) {
+        if (operations == 1)
+            System.out.printf("%-10s %.1f ms%n", name, nanos / 1e6);
+        else
+            System.out.printf("%-10s %.0f ns per operation, %.1f ms for %d%n", name, (double) nanos / operations, nanos / 1e6, operations);
+    }
+
+    /**
+     * Get the heap in use after a garbage collection.
+     *
+     * @return used memory in bytes
+     */
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,159 @@
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Loads a LeaderboardServer on localhost with many clients submitting runs, and checks that every
+ * acknowledged run is still there after the store is closed and read again.
+ * <p>
+ * Every client keeps one connection open and sends its requests by hand, since a full HTTP client
+ * costs more than the server does and would measure itself instead.
+ * <p>
+ * Compile against the game classes and run, for example
+ * "java -cp build:bench LeaderboardLoadTest 64 10 always", for 64 clients during 10 seconds with
+ * the journal synced for every group of runs.
+ */
+public class LeaderboardLoadTest {
+    private static final int CATEGORIES = 8;
+
+    /**
+     * Run the load test.
+     *
+     * @param args number of clients, seconds to run and journal sync policy, 32, 10 and always if
+     *             not given
+     * @throws Exception if the store or the server fail
+     */
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int syncPolicy = ScoreJournal.policyOf(args.length > 2 ? args[2] : "always");
+
+        Path directory = Files.createTempDirectory("leaderboard");
+        Path file = directory.resolve(ScoreStore.DEFAULT_FILE);
+        ScoreStore store = new ScoreStore(file);
+        store.startJournal(syncPolicy);
+        LeaderboardServer server = new LeaderboardServer(store, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+        final InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+
+        final long end = System.nanoTime() + seconds * 1000000000L;
+        final LongAdder submitted = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        // latencies in microseconds, counted the way run times are
+        final RunHistogram latency = new RunHistogram();
+
+        Thread[] threads = new Thread[clients];
+        for (int t = 0; t < clients; t++) {
+            final int id = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Random random = new Random(id);
+                    String name = "Cab" + id;
+                    try (Socket socket = new Socket()) {
+                        socket.setTcpNoDelay(true);
+                        socket.connect(address);
+                        OutputStream out = socket.getOutputStream();
+                        InputStream in = new BufferedInputStream(socket.getInputStream());
+                        while (System.nanoTime() < end) {
+                            String body = name + "=" + random.nextInt(600000);
+                            String request = "POST /scores/Run" + random.nextInt(CATEGORIES) + " HTTP/1.1\r\n"
+                                    + "Host: localhost\r\nContent-Length: " + body.length() + "\r\n\r\n" + body;
+                            long start = System.nanoTime();
+                            out.write(request.getBytes(StandardCharsets.US_ASCII));
+                            out.flush();
+                            if (readStatus(in) == 200)
+                                submitted.increment();
+                            else
+                                failed.increment();
+                            latency.record((System.nanoTime() - start) / 1000);
+                        }
+                    } catch (IOException ex) {
+                        System.out.println("Client " + id + ": " + ex);
+                        failed.increment();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        System.out.printf("%d clients, %d s, journal sync %s%n", clients, seconds, args.length > 2 ? args[2] : "always");
+        System.out.printf("submitted  %d runs, %.0f per second, %d failed%n", submitted.sum(),
+                (double) submitted.sum() / seconds, failed.sum());
+        System.out.printf("latency    median %d us, 99%% %d us, 99.9%% %d us%n", latency.getMillisAtPercentile(50),
+                latency.getMillisAtPercentile(99), latency.getMillisAtPercentile(99.9));
+        System.out.print(server.report());
+
+        server.stop();
+        store.close();
+        ScoreStore read = ScoreStore.open(file);
+        int runs = 0;
+        for (int i = 0; i < CATEGORIES; i++) {
+            Leaderboard board = read.getLeaderboard("Run" + i);
+            runs += board == null ? 0 : board.size();
+        }
+        System.out.println("runs read  " + runs + (runs == submitted.sum() ? ", all there" : ", expected " + submitted.sum()));
+        read.close();
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path path : files) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Read an answer of the server.
+     *
+     * @param in connection to the server
+     * @return HTTP status of the answer
+     * @throws IOException if the connection fails or is closed
+     */
+    private static int readStatus(InputStream in) throws IOException {
+        String statusLine = readLine(in);
+        int length = 0;
+        String header;
+        while (!(header = readLine(in)).isEmpty()) {
+            if (header.regionMatches(true, 0, "Content-length:", 0, 15))
+                length = Integer.parseInt(header.substring(15).trim());
+        }
+        for (int i = 0; i < length; i++) {
+            if (in.read() < 0)
+                throw new IOException("Connection closed");
+        }
+        return Integer.parseInt(statusLine.split(" ")[1]);
+    }
+
+    /**
+     * Read a line of an answer, without its end.
+     *
+     * @param in connection to the server
+     * @return the line
+     * @throws IOException if the connection fails or is closed
+     */
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c < 0)
+                throw new IOException("Connection closed");
+            if (c != '\r')
+                line.append((char) c);
+        }
+        return line.toString();
+    }
+}
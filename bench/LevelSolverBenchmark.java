@@ -0,0 +1,45 @@
+/**
+ * Solves the built-in levels with LevelSolver and prints the statistics of each.
+ * <p>
+ * Compile against the game classes and run, for example
+ * "java -cp build:bench:res LevelSolverBenchmark 1 5 -v" for levels 1 and 5 with their actions.
+ */
+public class LevelSolverBenchmark {
+    /**
+     * Run the benchmark.
+     *
+     * @param args numbers of the levels to solve, all the built-in ones if none are given; -v to print the actions
+     */
+    public static void main(String[] args) {
+        boolean verbose = false;
+        int[] levels = new int[args.length];
+        int levelCount = 0;
+        for (String arg : args) {
+            if (arg.equals("-v"))
+                verbose = true;
+            else
+                levels[levelCount++] = Integer.parseInt(arg);
+        }
+        if (levelCount == 0) {
+            levelCount = LevelSource.getDefault().size();
+            levels = new int[levelCount];
+            for (int i = 0; i < levelCount; i++) {
+                levels[i] = i + 1;
+            }
+        }
+
+        GameState state = new GameState();
+        long totalTime = 0, totalNodes = 0;
+        for (int i = 0; i < levelCount; i++) {
+            LevelSource.getDefault().copyLevel(levels[i], state);
+            Solution solution = new LevelSolver(state).solve();
+            totalTime += solution.getWallTimeNanos();
+            totalNodes += solution.getNodesExpanded();
+
+            System.out.println("Level " + levels[i] + " - " + solution);
+            if (verbose)
+                System.out.println("    " + solution.describeActions());
+        }
+        System.out.printf("Total: %d nodes expanded, %.2f ms%n", totalNodes, totalTime / 1e6);
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Solves the built-in levels with ParallelSolver on one thread and on all of them, and reports
+ * the speedup and the rate of each thread.
+ * <p>
+ * Compile against the game classes and run, for example
+ * "java -cp build:bench:res ParallelSolverBenchmark -t 4 30 40" for levels 30 and 40 on 4 threads.
+ */
+public class ParallelSolverBenchmark {
+    /**
+     * Run the benchmark.
+     *
+     * @param args numbers of the levels to solve, all the built-in ones if none are given; -t N for N threads,
+     *             -e N for N entries in the visited table instead of the default
+     */
+    public static void main(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        long entries = 0;
+        int[] levels = new int[args.length];
+        int levelCount = 0;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-t"))
+                threads = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-e"))
+                entries = Long.parseLong(args[++i]);
+            else
+                levels[levelCount++] = Integer.parseInt(args[i]);
+        }
+        if (levelCount == 0) {
+            levelCount = LevelSource.getDefault().size();
+            levels = new int[levelCount];
+            for (int i = 0; i < levelCount; i++) {
+                levels[i] = i + 1;
+            }
+        }
+
+        GameState state = new GameState();
+        long sequentialTime = 0, parallelTime = 0;
+        for (int i = 0; i < levelCount; i++) {
+            LevelSource.getDefault().copyLevel(levels[i], state);
+            Solution sequential = solverFor(state, 1, entries).solve();
+            ParallelSolver solver = solverFor(state, threads, entries);
+            Solution parallel = solver.solve();
+            sequentialTime += sequential.getWallTimeNanos();
+            parallelTime += parallel.getWallTimeNanos();
+
+            System.out.println("Level " + levels[i] + " - " + parallel);
+            StringBuilder rates = new StringBuilder();
+            for (double rate : solver.getThreadRates()) {
+                rates.append(String.format(" %.0f", rate));
+            }
+            System.out.printf("    %d threads, speedup %.2fx, states/s per thread:%s%n", solver.getThreadCount(),
+                    (double) sequential.getWallTimeNanos() / parallel.getWallTimeNanos(), rates);
+            System.out.println("    table: " + solver.getTable());
+        }
+        System.out.printf("Total: 1 thread %.2f ms, %d threads %.2f ms, speedup %.2fx%n",
+                sequentialTime / 1e6, threads, parallelTime / 1e6, (double) sequentialTime / parallelTime);
+    }
+
+    /**
+     * Create a solver for a level.
+     *
+     * @param level   state of the level
+     * @param threads number of worker threads
+     * @param entries number of entries of the visited table, 0 for the default
+     * @return the solver
+     */
+    private static ParallelSolver solverFor(GameState level, int threads, long entries) {
+        return entries > 0 ? new ParallelSolver(level, threads, entries) : new ParallelSolver(level, threads);
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * Undo and redo history of the encoded GameState actions taken in a level.
+ * <p>
+ * The actions are kept in a primitive ring buffer which doubles when it is full, so the history
+ * is unlimited unless a depth limit is given, in which case the oldest actions are overwritten.
+ * Actions after the cursor can be redone until a new action is recorded.
+ */
+public class ActionJournal {
+    private final int limit;
+
+    private int[] actions = new int[64];
+    private int first;  // buffer index of the oldest action
+    private int done;   // number of actions that can be undone
+    private int total;  // done plus the actions that can be redone
+
+    /**
+     * Constructor. Creates an empty journal of unlimited depth.
+     */
+    public ActionJournal() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructor. Creates an empty journal.
+     *
+     * @param limit largest number of actions kept
+     */
+    public ActionJournal(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Record a newly taken action. Any actions that could be redone are dropped.
+     *
+     * @param action encoded action, as undone by GameState.undo
+     */
+    public void record(int action) {
+        total = done;
+        if (total == limit) {
+            // forget the oldest action
+            first = (first + 1) % actions.length;
+            total--;
+        } else if (total == actions.length) {
+            grow();
+        }
+        actions[(first + total) % actions.length] = action;
+        done = ++total;
+    }
+
+    /**
+     * Step back over the last action taken.
+     *
+     * @return the action to be undone, -1 if there is none
+     */
+    public int undo() {
+        if (done == 0)
+            return -1;
+        return actions[(first + --done) % actions.length];
+    }
+
+    /**
+     * Step forward over the last action undone.
+     *
+     * @return the action to be applied again, -1 if there is none
+     */
+    public int redo() {
+        if (done == total)
+            return -1;
+        return actions[(first + done++) % actions.length];
+    }
+
+    /**
+     * Check if there is an action to undo.
+     *
+     * @return true if undo would return an action
+     */
+    public boolean canUndo() {
+        return done > 0;
+    }
+
+    /**
+     * Check if there is an action to redo.
+     *
+     * @return true if redo would return an action
+     */
+    public boolean canRedo() {
+        return done < total;
+    }
+
+    /**
+     * Get the number of actions that can be undone.
+     *
+     * @return depth of the undo history
+     */
+    public int size() {
+        return done;
+    }
+
+    /**
+     * Forget every action.
+     */
+    public void clear() {
+        first = done = total = 0;
+    }
+
+    /**
+     * Double the buffer, moving the oldest action to the front.
+     */
+    private void grow() {
+        int[] grown = new int[(int) Math.min((long) actions.length * 2, limit)];
+        for (int i = 0; i < total; i++) {
+            grown[i] = actions[(first + i) % actions.length];
+        }
+        actions = grown;
+        first = 0;
+    }
+}
@@ -0,0 +1,93 @@
+import javax.swing.*;
+import java.awt.*;
+import java.net.URL;
+import java.util.HashMap;
+
+/**
+ * Shared cache of the game's images.
+ * <p>
+ * Every resource is decoded once, the first time it is asked for, and the same ImageIcon is
+ * handed to every component after that. The cache counts the requests, the decodes and the
+ * time spent decoding, so the cost of loading can be checked.
+ */
+public final class Assets {
+    private static final HashMap<String, ImageIcon> icons = new HashMap<>();
+
+    // statistics
+    private static long requests;
+    private static long loads;
+    private static long decodeNanos;
+
+    private Assets() {
+    }
+
+    /**
+     * Get the icon of an image resource, decoding it on first use.
+     *
+     * @param path path of the resource, relative to the resource root
+     * @return the shared icon
+     * @throws IllegalArgumentException if there is no such resource
+     */
+    public static synchronized ImageIcon icon(String path) {
+        requests++;
+        ImageIcon icon = icons.get(path);
+        if (icon == null) {
+            URL url = Assets.class.getResource(path);
+            if (url == null)
+                throw new IllegalArgumentException("Missing resource " + path);
+
+            long start = System.nanoTime();
+            icon = new ImageIcon(url);
+            decodeNanos += System.nanoTime() - start;
+            loads++;
+            icons.put(path, icon);
+        }
+        return icon;
+    }
+
+    /**
+     * Get the image of an image resource, decoding it on first use.
+     *
+     * @param path path of the resource, relative to the resource root
+     * @return the shared image
+     */
+    public static Image image(String path) {
+        return icon(path).getImage();
+    }
+
+    /**
+     * Get the number of images asked for, from the cache or not.
+     *
+     * @return number of requests
+     */
+    public static synchronized long getRequestCount() {
+        return requests;
+    }
+
+    /**
+     * Get the number of images decoded.
+     *
+     * @return number of loads
+     */
+    public static synchronized long getLoadCount() {
+        return loads;
+    }
+
+    /**
+     * Get the time spent decoding images.
+     *
+     * @return decode time in nanoseconds
+     */
+    public static synchronized long getDecodeNanos() {
+        return decodeNanos;
+    }
+
+    /**
+     * Describe the cache statistics.
+     *
+     * @return number of requests and loads and the decode time
+     */
+    public static synchronized String report() {
+        return String.format("%d image requests, %d loads, %.2f ms decoding", requests, loads, decodeNanos / 1e6);
+    }
+}
@@ -0,0 +1,265 @@
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * A pack of levels stored as fixed-size binary records, read in place from a memory-mapped file.
+ * <p>
+ * The file starts with a 24 byte header - the magic number, the format version, the number of
+ * levels, the size of a record, the CRC-32 of the text pack it was built from and a reserved
+ * word - followed by one GameState record per level. Level n is found at a computed offset and
+ * copied straight into a GameState, so opening a pack costs the same however many levels it
+ * holds, and only the pages of the levels played are ever read.
+ * <p>
+ * Packs are built from text packs with the main method. The built-in binary pack is only used
+ * while it was built from the built-in text pack as it is now, see isDefaultCurrent.
+ */
+public class BinaryLevelPack implements LevelSource {
+    public static final String DEFAULT_PACK = "levels.bin";
+
+    private static final int MAGIC = 0x52434C50; // "RCLP"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 24;
+
+    private static BinaryLevelPack defaultPack;
+    private static Boolean defaultCurrent;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int recordBytes;
+    // checksumOf the text pack
+    private final long sourceChecksum;
+
+    /**
+     * Constructor. Checks the header of a pack.
+     *
+     * @param buffer contents of the pack, mapped or on the heap
+     * @throws IllegalArgumentException if the buffer doesn't hold a pack of this version
+     */
+    private BinaryLevelPack(ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC)
+            throw new IllegalArgumentException("Not a binary level pack");
+        int version = buffer.getInt(4);
+        if (version != VERSION)
+            throw new IllegalArgumentException("Unsupported level pack version " + version);
+
+        this.buffer = buffer;
+        size = buffer.getInt(8);
+        recordBytes = buffer.getInt(12);
+        sourceChecksum = buffer.getInt(16) & 0xFFFFFFFFL;
+        if (recordBytes < GameState.RECORD_BYTES || HEADER_BYTES + (long) size * recordBytes > buffer.capacity())
+            throw new IllegalArgumentException("Truncated level pack");
+    }
+
+    /**
+     * Map a pack file into memory.
+     *
+     * @param file path of the pack
+     * @return the pack
+     * @throws IOException if the file can't be read
+     */
+    public static BinaryLevelPack open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            return new BinaryLevelPack(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Open a pack on the class path. A pack in a directory is mapped, one inside a jar is read
+     * into a heap buffer, as jar entries can't be mapped.
+     *
+     * @param name name of the resource
+     * @return the pack
+     * @throws IOException if the resource is missing or can't be read
+     */
+    public static BinaryLevelPack openResource(String name) throws IOException {
+        URL url = BinaryLevelPack.class.getResource(name);
+        if (url == null)
+            throw new IOException("Missing level pack " + name);
+
+        if (url.getProtocol().equals("file")) {
+            try {
+                return open(Paths.get(url.toURI()));
+            } catch (URISyntaxException ex) {
+                throw new IOException(ex);
+            }
+        }
+        try (InputStream in = url.openStream()) {
+            return new BinaryLevelPack(ByteBuffer.wrap(in.readAllBytes()));
+        }
+    }
+
+    /**
+     * Get the pack of the built-in levels, opening it on first use.
+     *
+     * @return the built-in levels
+     * @throws IllegalStateException if the pack is missing or malformed
+     */
+    public static synchronized BinaryLevelPack getDefault() {
+        if (defaultPack == null) {
+            try {
+                defaultPack = openResource(DEFAULT_PACK);
+            } catch (IOException ex) {
+                throw new IllegalStateException("Can't read level pack " + DEFAULT_PACK, ex);
+            }
+        }
+        return defaultPack;
+    }
+
+    /**
+     * Check if the built-in binary pack may be used in place of the built-in text pack, which
+     * it may only while it was built from the text pack as it is now. The text pack is the one
+     * that is edited, so a binary pack left over from an older text pack is ignored, with a
+     * warning, rather than hiding the edits. Checked once, on first use.
+     * <p>
+     * A binary pack newer than the text pack was built after its last edit, so the text pack
+     * is only read and checksummed when it has been touched since the binary pack was built.
+     *
+     * @return true if the binary pack is bundled and up to date, or bundled without a text pack
+     */
+    public static synchronized boolean isDefaultCurrent() {
+        if (defaultCurrent == null) {
+            URL binary = BinaryLevelPack.class.getResource(DEFAULT_PACK);
+            URL text = BinaryLevelPack.class.getResource(LevelPack.DEFAULT_PACK);
+            if (binary == null) {
+                defaultCurrent = false;
+            } else if (text == null) {
+                defaultCurrent = true;
+            } else {
+                long built = lastModified(binary);
+                long edited = lastModified(text);
+                if (built > 0 && edited > 0 && edited <= built) {
+                    defaultCurrent = true;
+                } else {
+                    try (InputStream in = text.openStream()) {
+                        defaultCurrent = getDefault().sourceChecksum == checksumOf(in.readAllBytes());
+                    } catch (IOException ex) {
+                        throw new IllegalStateException("Can't read level pack " + LevelPack.DEFAULT_PACK, ex);
+                    }
+                }
+                if (!defaultCurrent)
+                    System.out.println(DEFAULT_PACK + " wasn't built from the current " + LevelPack.DEFAULT_PACK
+                            + ", reading the text pack instead");
+            }
+        }
+        return defaultCurrent;
+    }
+
+    /**
+     * Get the time a resource was last modified, without reading it.
+     *
+     * @param url location of the resource
+     * @return time in milliseconds, 0 if it isn't known
+     */
+    private static long lastModified(URL url) {
+        try {
+            if (url.getProtocol().equals("file"))
+                return Files.getLastModifiedTime(Paths.get(url.toURI())).toMillis();
+            URLConnection connection = url.openConnection();
+            if (connection instanceof JarURLConnection)
+                return Math.max(((JarURLConnection) connection).getJarEntry().getTime(), 0);
+        } catch (IOException | URISyntaxException ex) {
+            // compared by checksum instead
+        }
+        return 0;
+    }
+
+    /**
+     * Compute the checksum a pack records of the text pack it was built from. Carriage returns
+     * are skipped, so a checkout with \r\n line ends has the same checksum as one with \n.
+     *
+     * @param text contents of the text pack
+     * @return CRC-32 of the contents without carriage returns
+     */
+    public static long checksumOf(byte[] text) {
+        CRC32 crc = new CRC32();
+        int start = 0;
+        for (int i = 0; i < text.length; i++) {
+            if (text[i] == '\r') {
+                crc.update(text, start, i - start);
+                start = i + 1;
+            }
+        }
+        crc.update(text, start, text.length - start);
+        return crc.getValue();
+    }
+
+    /**
+     * Write levels as a binary pack.
+     *
+     * @param levels         levels to be written
+     * @param sourceChecksum checksumOf the text pack the levels were read from
+     * @param file           path of the pack, replaced if it exists
+     * @throws IOException if the file can't be written
+     */
+    public static void write(LevelSource levels, long sourceChecksum, Path file) throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + levels.size() * GameState.RECORD_BYTES);
+        out.putInt(0, MAGIC);
+        out.putInt(4, VERSION);
+        out.putInt(8, levels.size());
+        out.putInt(12, GameState.RECORD_BYTES);
+        out.putInt(16, (int) sourceChecksum);
+
+        GameState state = new GameState();
+        for (int i = 0; i < levels.size(); i++) {
+            levels.copyLevel(i + 1, state);
+            state.writeRecord(out, HEADER_BYTES + i * GameState.RECORD_BYTES);
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean copyLevel(int number, GameState state) {
+        if (number < 1 || number > size)
+            return false;
+        state.readRecord(buffer, HEADER_BYTES + (number - 1) * recordBytes);
+        return true;
+    }
+
+    /**
+     * Convert a text level pack into a binary one.
+     *
+     * @param args path of the text pack and path of the binary pack to be written
+     * @throws IOException if a file can't be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: BinaryLevelPack <text pack> <binary pack>");
+            return;
+        }
+
+        byte[] source = Files.readAllBytes(Paths.get(args[0]));
+        LevelPack text;
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(source), StandardCharsets.UTF_8)) {
+            text = LevelPack.parse(reader);
+        }
+        write(text, checksumOf(source), Paths.get(args[1]));
+        System.out.println("Wrote " + text.size() + " levels to " + args[1]);
+    }
+}
@@ -0,0 +1,259 @@
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Active rendering of a GameMap - a canvas drawn by its own render loop through a BufferStrategy,
+ * instead of by Swing repaints on the Event Dispatch Thread.
+ * <p>
+ * The loop advances the view in fixed steps of STEP_NANOS, however long the frames take, and
+ * draws each frame between the last two steps, so the player walks smoothly from tile to tile.
+ * In a speed run it also draws the run time over the board. The loop runs while the canvas is
+ * on screen and keeps statistics of the frame times.
+ */
+public class BoardCanvas extends Canvas implements Runnable {
+    public static final long STEP_NANOS = 1000000000L / 60; // fixed simulation step
+    public static final long FRAME_NANOS = 1000000000L / 60; // frame time aimed for
+
+    private static final long MAX_LAG_NANOS = 250000000L; // steps skipped after a stall
+    private static final int WALK_SPEED = 16; // pixels the player walks per step
+
+    private final GameMap map;
+    private volatile GameClock runClock;
+
+    private volatile boolean running;
+    private Thread thread;
+    private BufferStrategy strategy;
+
+    // player position at the last two steps, in pixels
+    private int previousX, previousY, currentX, currentY;
+    private int shownLoad = -1;
+    // load count and player cell, read from the map under its lock
+    private final int[] playerView = new int[2];
+
+    // run time as shown, mm:ss:cc
+    private final char[] clockText = new char[GameClock.TEXT_LENGTH];
+    private final Font clockFont = new Font("Times New Roman", Font.BOLD, 24);
+
+    // frame statistics
+    private volatile long frames, totalFrameNanos, maxFrameNanos, lateFrames, totalRenderNanos;
+
+    /**
+     * Constructor. Creates a canvas for a map.
+     *
+     * @param map map to be drawn
+     */
+    public BoardCanvas(GameMap map) {
+        this.map = map;
+        setIgnoreRepaint(true);
+        setFocusable(false);
+    }
+
+    /**
+     * Set the clock of the speed run drawn over the board.
+     *
+     * @param clock clock of the run, null to draw no time
+     */
+    public void setRunClock(GameClock clock) {
+        runClock = clock;
+    }
+
+    /**
+     * Start the render loop once the canvas is on screen.
+     */
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        createBufferStrategy(2);
+        strategy = getBufferStrategy();
+
+        running = true;
+        thread = new Thread(this, "Board render loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop the render loop before the canvas leaves the screen.
+     */
+    @Override
+    public void removeNotify() {
+        running = false;
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+        strategy.dispose();
+        super.removeNotify();
+    }
+
+    /**
+     * The render loop. Runs the steps due since the last frame and draws the next one.
+     */
+    @Override
+    public void run() {
+        long previous = System.nanoTime();
+        long lag = 0;
+        boolean first = true;
+        while (running) {
+            long now = System.nanoTime();
+            long frame = now - previous;
+            previous = now;
+            if (!first)
+                recordFrame(frame);
+            first = false;
+
+            // advance in fixed steps, dropping the time of a long stall
+            lag += Math.min(frame, MAX_LAG_NANOS);
+            while (lag >= STEP_NANOS) {
+                step();
+                lag -= STEP_NANOS;
+            }
+
+            render((float) lag / STEP_NANOS);
+            totalRenderNanos += System.nanoTime() - now;
+
+            // wait for the next frame
+            long wait = FRAME_NANOS - (System.nanoTime() - now);
+            if (wait > 0)
+                LockSupport.parkNanos(wait);
+        }
+    }
+
+    /**
+     * Advance the view by one step - walk the player towards their tile.
+     */
+    private void step() {
+        map.getPlayerView(playerView);
+        int player = playerView[1];
+        int targetX = GameState.colOf(player) * GameMap.TILE_SIZE;
+        int targetY = GameState.rowOf(player) * GameMap.TILE_SIZE;
+
+        // jump straight to the start of a newly loaded level
+        if (shownLoad != playerView[0]) {
+            shownLoad = playerView[0];
+            currentX = targetX;
+            currentY = targetY;
+        }
+
+        previousX = currentX;
+        previousY = currentY;
+        currentX += Math.max(-WALK_SPEED, Math.min(WALK_SPEED, targetX - currentX));
+        currentY += Math.max(-WALK_SPEED, Math.min(WALK_SPEED, targetY - currentY));
+    }
+
+    /**
+     * Draw a frame and show it.
+     *
+     * @param alpha fraction of a step passed since the last one
+     */
+    private void render(float alpha) {
+        int x = Math.round(previousX + (currentX - previousX) * alpha);
+        int y = Math.round(previousY + (currentY - previousY) * alpha);
+        do {
+            do {
+                Graphics g = strategy.getDrawGraphics();
+                try {
+                    map.paintBoard(g, x, y);
+                    drawClock(g);
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+    }
+
+    /**
+     * Draw the run time in the top left corner, in a speed run.
+     *
+     * @param g graphics to draw with
+     */
+    private void drawClock(Graphics g) {
+        GameClock clock = runClock;
+        if (clock == null)
+            return;
+
+        clock.format(clockText, 0);
+
+        g.setFont(clockFont);
+        g.setColor(Color.black);
+        g.drawChars(clockText, 0, clockText.length, 9, 29);
+        g.setColor(Color.white);
+        g.drawChars(clockText, 0, clockText.length, 8, 28);
+    }
+
+    /**
+     * Add the time of a frame to the statistics.
+     *
+     * @param nanos time since the last frame
+     */
+    private void recordFrame(long nanos) {
+        frames++;
+        totalFrameNanos += nanos;
+        if (nanos > maxFrameNanos)
+            maxFrameNanos = nanos;
+        if (nanos > FRAME_NANOS * 3 / 2)
+            lateFrames++;
+    }
+
+    /**
+     * Get the number of frames drawn.
+     *
+     * @return number of frames
+     */
+    public long getFrameCount() {
+        return frames;
+    }
+
+    /**
+     * Get the average time between frames.
+     *
+     * @return average frame time in nanoseconds
+     */
+    public long getAverageFrameNanos() {
+        return frames == 0 ? 0 : totalFrameNanos / frames;
+    }
+
+    /**
+     * Get the longest time between two frames.
+     *
+     * @return longest frame time in nanoseconds
+     */
+    public long getMaxFrameNanos() {
+        return maxFrameNanos;
+    }
+
+    /**
+     * Get the number of frames that came more than half a frame late.
+     *
+     * @return number of late frames
+     */
+    public long getLateFrames() {
+        return lateFrames;
+    }
+
+    /**
+     * Get the average time spent stepping and drawing a frame.
+     *
+     * @return average render time in nanoseconds
+     */
+    public long getAverageRenderNanos() {
+        return frames == 0 ? 0 : totalRenderNanos / frames;
+    }
+
+    /**
+     * Describe the frame statistics.
+     *
+     * @return number of frames, frame and render times and late frames
+     */
+    public String report() {
+        return String.format("%d frames, %.2f ms average, %.2f ms longest, %.2f ms rendering, %d late",
+                frames, getAverageFrameNanos() / 1e6, maxFrameNanos / 1e6, getAverageRenderNanos() / 1e6, lateFrames);
+    }
+}
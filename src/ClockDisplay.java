@@ -0,0 +1,149 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+
+/**
+ * Shows the time of a GameClock as "mm:ss:cc".
+ * <p>
+ * While the display is on screen a Swing timer reads the clock every 10 ms. The time is written
+ * into a reused character buffer and painted from it, and the display is only repainted when
+ * the shown hundredths change. The text is first written when it is painted or read, as the
+ * format method of a subclass can't be called before the subclass is constructed.
+ */
+public class ClockDisplay extends JComponent {
+    protected final GameClock clock;
+    private final char[] text;
+    private final char[] next;
+    private final Timer ticker;
+    private boolean formatted;
+
+    /**
+     * Constructor. Creates a display for a clock.
+     *
+     * @param clock clock to be shown
+     */
+    public ClockDisplay(GameClock clock) {
+        this(clock, GameClock.TEXT_LENGTH);
+    }
+
+    /**
+     * Constructor. Creates a display of a text read from a clock.
+     *
+     * @param clock  clock to be read
+     * @param length length of the text
+     */
+    protected ClockDisplay(GameClock clock, int length) {
+        this.clock = clock;
+        text = new char[length];
+        next = new char[length];
+        setFont(new Font("Times New Roman", Font.BOLD, 24));
+
+        ticker = new Timer(10, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                update();
+            }
+        });
+    }
+
+    /**
+     * Read the clock and repaint if the shown time has changed.
+     */
+    public void update() {
+        if (!formatted) {
+            fill();
+            repaint();
+            return;
+        }
+        format(next);
+        for (int i = 0; i < text.length; i++) {
+            if (text[i] != next[i]) {
+                System.arraycopy(next, 0, text, 0, text.length);
+                repaint();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Write the text to be shown.
+     *
+     * @param out characters to be written to
+     */
+    protected void format(char[] out) {
+        clock.format(out, 0);
+    }
+
+    /**
+     * Write the text for the first time.
+     */
+    private void fill() {
+        format(text);
+        formatted = true;
+    }
+
+    /**
+     * Get the shown time.
+     *
+     * @return time as "mm:ss:cc"
+     */
+    public String getText() {
+        if (!formatted)
+            fill();
+        return new String(text);
+    }
+
+    /**
+     * Start reading the clock once the display is on screen.
+     */
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        ticker.start();
+    }
+
+    /**
+     * Stop reading the clock when the display leaves the screen.
+     */
+    @Override
+    public void removeNotify() {
+        ticker.stop();
+        super.removeNotify();
+    }
+
+    /**
+     * Get the size of the widest time.
+     *
+     * @return preferred size of the display
+     */
+    @Override
+    public Dimension getPreferredSize() {
+        FontMetrics metrics = getFontMetrics(getFont());
+        return new Dimension(metrics.charWidth('0') * text.length + 2, metrics.getHeight());
+    }
+
+    /**
+     * Get the size of the widest time.
+     *
+     * @return maximum size of the display
+     */
+    @Override
+    public Dimension getMaximumSize() {
+        return getPreferredSize();
+    }
+
+    /**
+     * Paint the shown time.
+     *
+     * @param g graphics of the component
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        if (!formatted)
+            fill();
+        g.setFont(getFont());
+        g.setColor(getForeground());
+        g.drawChars(text, 0, text.length, 1, g.getFontMetrics().getAscent());
+    }
+}
@@ -0,0 +1,225 @@
+/**
+ * The clock of a speed run, measured with System.nanoTime so it can't jump with the wall clock.
+ * <p>
+ * The clock can be paused and resumed, and records a split each time a level is finished.
+ * Reading it and formatting it for display allocate nothing, so it can be shown at any rate.
+ * The methods are synchronized, as the render loop of a BoardCanvas reads the clock from its
+ * own thread.
+ */
+public class GameClock {
+    public static final int TEXT_LENGTH = 8; // length of the "mm:ss:cc" display
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private long startNanos;  // nanoTime of the start, moved forward by every pause
+    private long pausedNanos; // nanoTime of the current pause
+    private long stoppedNanos; // elapsed time once stopped
+    private boolean running, paused;
+
+    private long[] splits = new long[16]; // elapsed time at each split
+    private int splitCount;
+
+    /**
+     * Start the clock from zero, forgetting any splits.
+     */
+    public synchronized void start() {
+        startNanos = System.nanoTime();
+        stoppedNanos = 0;
+        splitCount = 0;
+        running = true;
+        paused = false;
+    }
+
+    /**
+     * Stop the clock. The elapsed time stays as it is until the clock is started again.
+     *
+     * @return elapsed time in nanoseconds
+     */
+    public synchronized long stop() {
+        if (running) {
+            stoppedNanos = getElapsedNanos();
+            running = paused = false;
+        }
+        return stoppedNanos;
+    }
+
+    /**
+     * Pause the running clock.
+     */
+    public synchronized void pause() {
+        if (running && !paused) {
+            pausedNanos = System.nanoTime();
+            paused = true;
+        }
+    }
+
+    /**
+     * Resume the paused clock, leaving out the time it was paused.
+     */
+    public synchronized void resume() {
+        if (paused) {
+            startNanos += System.nanoTime() - pausedNanos;
+            paused = false;
+        }
+    }
+
+    /**
+     * Check if the clock has been started and not stopped.
+     *
+     * @return true if running, paused or not
+     */
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Check if the clock is paused.
+     *
+     * @return true if paused
+     */
+    public synchronized boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Get the time on the clock.
+     *
+     * @return elapsed time in nanoseconds
+     */
+    public synchronized long getElapsedNanos() {
+        if (!running)
+            return stoppedNanos;
+        return (paused ? pausedNanos : System.nanoTime()) - startNanos;
+    }
+
+    /**
+     * Get the time on the clock.
+     *
+     * @return elapsed time in milliseconds
+     */
+    public synchronized long getElapsedMillis() {
+        return getElapsedNanos() / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Record a split at the current time.
+     *
+     * @return elapsed time at the split in nanoseconds
+     */
+    public synchronized long split() {
+        if (splitCount == splits.length) {
+            long[] grown = new long[splits.length * 2];
+            System.arraycopy(splits, 0, grown, 0, splitCount);
+            splits = grown;
+        }
+        long elapsed = getElapsedNanos();
+        splits[splitCount++] = elapsed;
+        return elapsed;
+    }
+
+    /**
+     * Get the number of splits recorded since the start.
+     *
+     * @return number of splits
+     */
+    public synchronized int getSplitCount() {
+        return splitCount;
+    }
+
+    /**
+     * Get the elapsed time at a split.
+     *
+     * @param index index of the split, from 0
+     * @return elapsed time at the split in nanoseconds
+     */
+    public synchronized long getSplit(int index) {
+        if (index < 0 || index >= splitCount)
+            throw new IndexOutOfBoundsException("No split " + index);
+        return splits[index];
+    }
+
+    /**
+     * Get the time between a split and the one before it, or the start.
+     *
+     * @param index index of the split, from 0
+     * @return time of the segment in nanoseconds
+     */
+    public synchronized long getSegment(int index) {
+        return getSplit(index) - (index == 0 ? 0 : splits[index - 1]);
+    }
+
+    /**
+     * Get the elapsed time at a split.
+     *
+     * @param index index of the split, from 0
+     * @return elapsed time at the split in milliseconds
+     */
+    public synchronized long getSplitMillis(int index) {
+        return getSplit(index) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Get the time between a split and the one before it, or the start.
+     *
+     * @param index index of the split, from 0
+     * @return time of the segment in milliseconds
+     */
+    public synchronized long getSegmentMillis(int index) {
+        return getSplitMillis(index) - (index == 0 ? 0 : splits[index - 1] / NANOS_PER_MILLI);
+    }
+
+    /**
+     * Write the time on the clock as "mm:ss:cc".
+     *
+     * @param out    characters to be written to
+     * @param offset index of the first character
+     */
+    public void format(char[] out, int offset) {
+        format(getElapsedMillis(), out, offset);
+    }
+
+    /**
+     * Write a time as "mm:ss:cc" - minutes, seconds and hundredths. Times past 99 minutes are
+     * shown as 99:59:99.
+     *
+     * @param millis time in milliseconds
+     * @param out    characters to be written to, TEXT_LENGTH of them
+     * @param offset index of the first character
+     */
+    public static void format(long millis, char[] out, int offset) {
+        if (millis >= 100 * 60000L)
+            millis = 100 * 60000L - 1;
+        else if (millis < 0)
+            millis = 0;
+
+        setDigits(out, offset, millis / 60000);
+        out[offset + 2] = ':';
+        setDigits(out, offset + 3, millis / 1000 % 60);
+        out[offset + 5] = ':';
+        setDigits(out, offset + 6, millis % 1000 / 10);
+    }
+
+    /**
+     * Write a time as "mm:ss:cc".
+     *
+     * @param millis time in milliseconds
+     * @return the formatted time
+     */
+    public static String toString(long millis) {
+        char[] text = new char[TEXT_LENGTH];
+        format(millis, text, 0);
+        return new String(text);
+    }
+
+    /**
+     * Write two digits.
+     *
+     * @param out    characters to be written to
+     * @param offset index of the first digit
+     * @param value  value from 0 to 99
+     */
+    private static void setDigits(char[] out, int offset, long value) {
+        out[offset] = (char) ('0' + value / 10);
+        out[offset + 1] = (char) ('0' + value % 10);
+    }
+}
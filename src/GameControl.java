@@ -1,6 +1,6 @@
 import javax.swing.*;
 import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
+import java.io.IOException;
 
 /**
  * Class controlling the user input and the logic of the game.
@@ -27,15 +27,17 @@ public class GameControl {
     private GameMap gameMap;
     private GamePanel parent;
 
-    private Player player;
+    private GameState state;
 
     private int mode;
     private int difficulty;
     private int winLevel;
 
-    private Timer timer;
-    private long startTime;
-    private long elapsed;
+    // clock of the speed run, with a split for each level finished
+    private final GameClock clock = new GameClock();
+    private SplitTable splits;
+    // completion times of every run of the difficulty
+    private RunHistogram histogram;
 
 
     /**
@@ -47,7 +49,7 @@ public class GameControl {
     public GameControl(GamePanel parent, GameMap gameMap) {
         this.parent = parent;
         this.gameMap = gameMap;
-        this.player = gameMap.player;
+        this.state = gameMap.getState();
         createInputControl();
     }
 
@@ -92,8 +94,18 @@ public class GameControl {
     private void finishLevel() {
         if (mode == CLASSIC_MODE) parent.displayWinMessage(CLASSIC_MODE, gameMap.getCurrentLevel());
         else if (mode == SPEED_RUN) {
+            clock.split();
+            int index = clock.getSplitCount() - 1;
+            splits.recordSegment(index, clock.getSegmentMillis(index));
             if (gameMap.getCurrentLevel() == winLevel) {
-                timer.stop();
+                clock.stop();
+                histogram.record(clock.getElapsedMillis());
+                splits.recordRun(clock);
+                try {
+                    splits.save();
+                } catch (IOException ex) {
+                    System.out.println(ex.getMessage());
+                }
                 parent.displayWinMessage(SPEED_RUN, difficulty);
             } else nextLevel();
         }
@@ -105,41 +117,108 @@ public class GameControl {
      * @param level level of difficulty
      */
     private void startSpeedRun(int level) {
+        int firstLevel;
         if (level == 0) {
-            gameMap.loadLevel(1);
+            firstLevel = 1;
             winLevel = 2;
         } else if (level == 1) {
-            gameMap.loadLevel(11);
+            firstLevel = 11;
             winLevel = 20;
         } else if (level == 2) {
-            gameMap.loadLevel(21);
+            firstLevel = 21;
             winLevel = 30;
         } else if (level == 3) {
-            gameMap.loadLevel(31);
+            firstLevel = 31;
             winLevel = 40;
         } else {
-            gameMap.loadLevel(1);
+            firstLevel = 1;
             winLevel = 40;
         }
-        startTimer();
+
+        // the personal best of the run is kept for restarts
+        if (splits == null)
+            splits = new SplitTable(getRunName(level), firstLevel, winLevel - firstLevel + 1);
+        if (histogram == null)
+            histogram = ScoreStore.getDefault().getHistogram(getRunName(level));
+        gameMap.loadLevel(firstLevel);
+        clock.start();
+        gameMap.setCovered(false);
     }
 
     /**
-     * Start a timer for the SpeedRun mode.
+     * Get the name of a speed run.
+     *
+     * @param difficulty difficulty of the run
+     * @return name of the run, also used for the names of its files
      */
-    private void startTimer() {
-        startTime = System.currentTimeMillis();
-        timer = new Timer(10, new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                long now = System.currentTimeMillis();
-                elapsed = now - startTime;
-                parent.updateTimer(elapsed);
-                timer.start();
-            }
-        });
-        timer.setRepeats(false);
-        timer.start();
+    public static String getRunName(int difficulty) {
+        switch (difficulty) {
+            case 0:
+                return "EasyRun";
+            case 1:
+                return "NormalRun";
+            case 2:
+                return "IntermediateRun";
+            case 3:
+                return "ExpertRun";
+            default:
+                return "ULTIMATERun";
+        }
+    }
+
+    /**
+     * Get the personal-best splits of the speed run.
+     *
+     * @return splits of the run, null outside speed runs
+     */
+    public SplitTable getSplits() {
+        return splits;
+    }
+
+    /**
+     * Get the completion times of the runs of the speed run.
+     *
+     * @return histogram of the run times, null outside speed runs
+     */
+    public RunHistogram getHistogram() {
+        return histogram;
+    }
+
+    /**
+     * Get the clock of the speed run.
+     *
+     * @return the run clock, stopped outside speed runs
+     */
+    public GameClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Stop the game when it is left, so nothing keeps running in the background.
+     */
+    public void stop() {
+        clock.stop();
+    }
+
+    /**
+     * Pause the game while it can't be played, e.g. while the window isn't focused. A running
+     * speed run clock is paused and the board hidden, so the level can't be studied off the clock.
+     */
+    public void pause() {
+        if (clock.isRunning() && !clock.isPaused()) {
+            clock.pause();
+            gameMap.setCovered(true);
+        }
+    }
+
+    /**
+     * Resume the paused game, showing the board again.
+     */
+    public void resume() {
+        if (clock.isPaused()) {
+            clock.resume();
+            gameMap.setCovered(false);
+        }
     }
 
     /**
@@ -155,6 +234,8 @@ public class GameControl {
         gameMap.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("W"), "up");
         gameMap.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("S"), "down");
         gameMap.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("SPACE"), "space");
+        gameMap.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("Z"), "undo");
+        gameMap.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("Y"), "redo");
 
         gameMap.getActionMap().put("left", new AbstractAction() {
             @Override
@@ -190,6 +271,20 @@ public class GameControl {
                 plankInteraction();
             }
         });
+
+        gameMap.getActionMap().put("undo", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                undo();
+            }
+        });
+
+        gameMap.getActionMap().put("redo", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                redo();
+            }
+        });
     }
 
     /**
@@ -199,23 +294,20 @@ public class GameControl {
      */
     private void movePlayer(Direction direction) {
         // if the player has finished the level, don't do anything
-        if (player.getTile() == gameMap.getWinTile())
+        if (state.hasWon())
             return;
 
-        // if the player is not facing the direction pressed, change it
-        if (direction != player.getDirection()) {
-            player.setDirection(direction);
+        // turn the player or move him over the plank in front of him, then show the result
+        int facing = state.getFacing();
+        int action = direction.ordinal() != facing
+                ? GameState.turn(direction.ordinal(), facing)
+                : GameState.action(GameState.STEP, facing);
+        if (gameMap.applyAction(action)) {
+            gameMap.getJournal().record(action);
             gameMap.updateGhostPlank();
-        }
-        // if the player is facing the direction pressed move him in that direction if possible
-        else if (gameMap.getNextTile(player.getTile(), direction) != null) {
-            if (gameMap.getNextTile(player.getTile(), direction).getContent() == GameTile.Content.PLANK) {
-                gameMap.movePlayerTo(gameMap.getNextTile(player.getTile(), direction, GameTile.Content.STUMP));
-                gameMap.updateGhostPlank();
-                // when the player reaches the end of the level display the Win message
-                if (player.getTile() == gameMap.getWinTile()) {
-                    finishLevel();
-                }
+            // when the player reaches the end of the level display the Win message
+            if (state.hasWon()) {
+                finishLevel();
             }
         }
     }
@@ -225,20 +317,53 @@ public class GameControl {
      */
     private void plankInteraction() {
         // if the player is holding a plank, place it in front of him if possible
-        if (player.getPlankHeldSize() > 0) {
-            if (gameMap.placePlank(player.getTile(), player.getDirection(), player.getPlankHeldSize()) > 0) {
-                player.setPlankHeldSize(0);
-                gameMap.removeGhostPlank();
-            }
-        }
         // if the player is not holding a plank and the tile in front of them holds one, pick it up
-        else if (gameMap.getNextTile(player.getTile(), player.getDirection()) != null) {
-            if (gameMap.getNextTile(player.getTile(), player.getDirection()).getContent() == GameTile.Content.PLANK) {
-                player.setPlankHeldSize(gameMap.removePlank(player.getTile(), player.getDirection()));
-                gameMap.updateGhostPlank();
-            }
+        int kind = state.getHeldSize() > 0 ? GameState.PLACE : GameState.PICK_UP;
+        int action = GameState.action(kind, state.getFacing());
+        if (gameMap.applyAction(action)) {
+            gameMap.getJournal().record(action);
+            updateGhostPlank();
         }
     }
-}
 
+    /**
+     * Take back the last action of the player.
+     */
+    private void undo() {
+        if (state.hasWon())
+            return;
 
+        int action = gameMap.getJournal().undo();
+        if (action >= 0) {
+            gameMap.undoAction(action);
+            updateGhostPlank();
+        }
+    }
+
+    /**
+     * Take the last action undone again.
+     */
+    private void redo() {
+        if (state.hasWon())
+            return;
+
+        int action = gameMap.getJournal().redo();
+        if (action >= 0 && gameMap.applyAction(action)) {
+            updateGhostPlank();
+            if (state.hasWon()) {
+                finishLevel();
+            }
+        }
+    }
+
+    /**
+     * Show the "ghost" plank in front of the player if they hold a plank, otherwise remove it.
+     */
+    private void updateGhostPlank() {
+        if (state.getHeldSize() > 0) {
+            gameMap.updateGhostPlank();
+        } else {
+            gameMap.removeGhostPlank();
+        }
+    }
+}
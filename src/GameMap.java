@@ -1,69 +1,93 @@
 import javax.swing.*;
 import java.awt.*;
-import java.util.ArrayList;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.Random;
 
 /**
- * This class contains and controls a gameGrid of GameTiles as part of a JLayeredPanel.
+ * This class shows a level as a single component, painted straight from its GameState.
+ * The rules are evaluated by the GameState and the map only draws it.
  * <p>
- * Contains 3 layers:
- * - mapPanel - shows the water, stumps and land
- * - plankPanel - shows the planks
- * - player - shows the player
+ * Each paint draws, bottom to top:
+ * - the tiles - water, stumps and land
+ * - the planks
+ * - the "ghost" plank the player is holding
+ * - the player
+ * <p>
+ * The tiles never change during a level, so they are drawn once per level into a terrain image,
+ * kept in video memory when the map is on screen, and each paint starts with a single copy of it.
+ * <p>
+ * Every change marks the tiles it touches. The marked area is repainted once, after the event
+ * that changed the map, and the area actually painted is counted for each frame.
+ * <p>
+ * With active rendering the map holds a BoardCanvas, which draws the board from its own thread
+ * instead. The map is then locked while it is changed or drawn.
  */
-public class GameMap extends JLayeredPane {
+public class GameMap extends JComponent {
     public static final int TILE_SIZE = 48; // size of a singe game tile (square) in pixels
     public static final int NUMBER_OF_ROWS = 13;
     public static final int NUMBER_OF_COLUMNS = 9;
 
-    private JPanel mapPanel, plankPanel;
-    public Player player;
-    private ArrayList<Plank> plankList = new ArrayList<>();
-    private JLabel ghostPlank;
+    private static final Random RANDOM = new Random(); // picks the water images
+    private static final Font PAUSED_FONT = new Font("Times New Roman", Font.BOLD, 24);
+
+    // The model of the level shown by the map
+    private final GameState state = new GameState();
+
+    // Actions taken in the current level, for undo and redo
+    private final ActionJournal journal = new ActionJournal();
 
-    // The gameGrid held as a double array of GameTiles
-    private GameTile[][] gameGrid = new GameTile[NUMBER_OF_ROWS][NUMBER_OF_COLUMNS];
+    // Water image of each cell, kept while planks are placed over it and picked up
+    private final byte[] waterVariant = new byte[GameState.CELLS];
 
-    // Coordinates of the tile you have to reach to win
-    private int winRow, winCol;
+    // The "ghost" plank - its bounds and image, no image when it isn't shown
+    private final Rectangle ghostBounds = new Rectangle();
+    private Image ghostImage;
+    private boolean ghostVisible = true;
+
+    // The tiles of the level, drawn once - in video memory on screen, otherwise in a plain image
+    private VolatileImage terrain;
+    private BufferedImage terrainCopy;
+    private boolean terrainValid, terrainCopyValid;
+    private int terrainBuilds;
+
+    // Bounds of the area changed since the last repaint, empty while right < left
+    private int dirtyLeft, dirtyTop, dirtyRight = -1, dirtyBottom = -1;
+    private boolean repaintPending;
+
+    // Painted area statistics
+    private final Rectangle paintClip = new Rectangle();
+    private long paintCount, paintedArea, lastPaintedArea;
 
     private int currentLevel;
+    private int loadCount;
+
+    // The board is hidden while the run clock is paused, so no level is planned off the clock
+    private boolean covered;
+
+    // Draws the map from its own thread, null unless active rendering is on
+    private BoardCanvas canvas;
+
+    // Repaints the changed area once the current event has been handled
+    private final Runnable repaintDirty = new Runnable() {
+        @Override
+        public void run() {
+            repaintPending = false;
+            if (dirtyRight < dirtyLeft)
+                return;
+            repaint(dirtyLeft, dirtyTop, dirtyRight - dirtyLeft, dirtyBottom - dirtyTop);
+            dirtyRight = dirtyBottom = -1;
+            dirtyLeft = dirtyTop = 0;
+        }
+    };
 
     /**
-     * Constructor. Creates the game map and the gameGrid.
+     * Constructor. Creates the game map.
      */
     public GameMap() {
         //set the size of the GameMap to the size of the grid
         setPreferredSize(new Dimension(NUMBER_OF_COLUMNS * TILE_SIZE, NUMBER_OF_ROWS * TILE_SIZE));
-
-        // Create the 3 layers
-        // mapPanel - shows the water, stumps and land
-        mapPanel = new JPanel(new GridLayout(NUMBER_OF_ROWS, NUMBER_OF_COLUMNS));
-        mapPanel.setBounds(0, 0, NUMBER_OF_COLUMNS * TILE_SIZE, NUMBER_OF_ROWS * TILE_SIZE);
-        add(mapPanel, DEFAULT_LAYER);
-
-        // Add each tile of the gameGrid to the mapPanel
-        for (int i = 0; i < NUMBER_OF_ROWS; i++) {
-            for (int j = 0; j < NUMBER_OF_COLUMNS; j++) {
-                gameGrid[i][j] = new GameTile(i, j);
-                mapPanel.add(gameGrid[i][j]);
-            }
-        }
-
-        // plankPanel - shows the planks
-        plankPanel = new JPanel(null);
-        plankPanel.setBounds(0, 0, NUMBER_OF_COLUMNS * TILE_SIZE, NUMBER_OF_ROWS * TILE_SIZE);
-        plankPanel.setOpaque(false);
-        add(plankPanel, new Integer(10));
-
-        //ghostPlank - shows the plank, the player is holding
-        ghostPlank = new JLabel();
-        add(ghostPlank, new Integer(11));
-
-        // playerPanel - shows the player
-        player = new Player();
-        player.setDirection(GameControl.Direction.UP);
-        player.setSize(TILE_SIZE, TILE_SIZE);
-        add(player, new Integer(20));
+        setOpaque(true);
     }
 
     /**
@@ -76,1376 +100,514 @@ public class GameMap extends JLayeredPane {
     }
 
     /**
-     * Get the first tile in a certain direction.
+     * Get the model of the loaded level.
      *
-     * @param tile      initial tile
-     * @param direction direction from the initial tile
-     * @return first GameTile in the direction from the initial tile
+     * @return the GameState shown by this map
      */
-    public GameTile getNextTile(GameTile tile, GameControl.Direction direction) {
-        if (direction == GameControl.Direction.LEFT) {
-            if (tile.getCol() - 1 >= 0)
-                return gameGrid[tile.getRow()][tile.getCol() - 1];
-        } else if (direction == GameControl.Direction.RIGHT) {
-            if (tile.getCol() + 1 < 9)
-                return gameGrid[tile.getRow()][tile.getCol() + 1];
-        } else if (direction == GameControl.Direction.UP) {
-            if (tile.getRow() - 1 >= 0)
-                return gameGrid[tile.getRow() - 1][tile.getCol()];
-        } else if (direction == GameControl.Direction.DOWN) {
-            if (tile.getRow() + 1 < 13)
-                return gameGrid[tile.getRow() + 1][tile.getCol()];
-        }
-
-        return null;
+    public GameState getState() {
+        return state;
     }
 
     /**
-     * Get the first tile in a certain direction with a specified content.
+     * Get the undo and redo history of the current level.
      *
-     * @param tile      initial tile
-     * @param direction direction from the initial tile
-     * @param content   content to be searched for
-     * @return first GameTile in the direction from the initial tile containing the specified content
+     * @return the journal of actions taken
      */
-    public GameTile getNextTile(GameTile tile, GameControl.Direction direction, GameTile.Content content) {
-        GameTile tempTile = tile;
-        while (true) {
-            tempTile = getNextTile(tempTile, direction);
-            if (tempTile == null)
-                return tile;
-
-            if (tempTile.getContent() == content)
-                return tempTile;
-
-        }
+    public ActionJournal getJournal() {
+        return journal;
     }
 
     /**
-     * Calculates the distance between tileA and tile B
+     * Apply an encoded GameState action and show its result.
      *
-     * @param tileA GameTile 1
-     * @param tileB GameTile 2
-     * @return distance between the 2 tiles
+     * @param action encoded action
+     * @return true if the action was legal and has been applied
      */
-    private int distanceBetween(GameTile tileA, GameTile tileB) {
-        int dist = 0;
-
-        if (tileA.getCol() == tileB.getCol()) {
-            dist = Math.abs(tileA.getRow() - tileB.getRow()) - 1;
-        } else if (tileA.getRow() == tileB.getRow()) {
-            dist = Math.abs(tileA.getCol() - tileB.getCol()) - 1;
-        }
-
-        return dist;
+    public synchronized boolean applyAction(int action) {
+        int player = state.getPlayerCell();
+        if (!state.apply(action))
+            return false;
+        markAction(player, action);
+        return true;
     }
 
     /**
-     * Check if a plank can be placed between two stumps.
+     * Undo the last encoded GameState action applied and show the result.
      *
-     * @param stumpA stump at one end of the plank
-     * @param stumpB stump at other end of the plank
-     * @param size   size of the plank
-     * @return true if possible to place a plank of that size between the two stumps, false otherwise
+     * @param action encoded action, with the previous facing for a turn
      */
-    private boolean canPlacePlank(GameTile stumpA, GameTile stumpB, int size) {
-        if (distanceBetween(stumpA, stumpB) != size)
-            return false;
+    public synchronized void undoAction(int action) {
+        int player = state.getPlayerCell();
+        state.undo(action);
+        markAction(player, action);
+    }
 
-        // find the direction of stumpB, relative to stumpA
-        // then check if there is a plank between them
-        for (GameControl.Direction dir : GameControl.Direction.values()) {
-            if (getNextTile(stumpA, dir, GameTile.Content.STUMP) == stumpB) {
-                GameTile tempTile = stumpA;
-                while (tempTile != stumpB) {
-                    tempTile = getNextTile(tempTile, dir);
-                    if (tempTile.getContent() == GameTile.Content.PLANK)
-                        return false;
-                }
-                break; // break the for as the direction is already found
+    /**
+     * Updates the position of the "ghost" plank to be in front of the player
+     */
+    public synchronized void updateGhostPlank() {
+        // update the ghost plank only if the player is holding a plank
+        int size = state.getHeldSize();
+        if (size > 0) {
+            markGhost();
+            int x = GameState.colOf(state.getPlayerCell()) * TILE_SIZE;
+            int y = GameState.rowOf(state.getPlayerCell()) * TILE_SIZE;
+
+            // check if the plank can be placed in that direction
+            int canPlacePlank = state.canPlacePlank(state.getPlayerCell(), state.getFacing(), size) ? 1 : 0;
+
+            // set the bounds and image of the ghost plank
+            switch (state.getFacing()) {
+                case GameState.LEFT:
+                    ghostBounds.setBounds(x - size * TILE_SIZE, y, size * TILE_SIZE, TILE_SIZE);
+                    ghostImage = hGhostPlankImage[canPlacePlank];
+                    break;
+                case GameState.RIGHT:
+                    ghostBounds.setBounds(x + TILE_SIZE, y, size * TILE_SIZE, TILE_SIZE);
+                    ghostImage = hGhostPlankImage[canPlacePlank];
+                    break;
+                case GameState.UP:
+                    ghostBounds.setBounds(x, y - size * TILE_SIZE, TILE_SIZE, size * TILE_SIZE);
+                    ghostImage = vGhostPlankImage[canPlacePlank];
+                    break;
+                default:
+                    ghostBounds.setBounds(x, y + TILE_SIZE, TILE_SIZE, size * TILE_SIZE);
+                    ghostImage = vGhostPlankImage[canPlacePlank];
+                    break;
             }
+            markGhost();
         }
+    }
 
-        return true;
+    /**
+     * Makes the "ghost" plank visible.
+     */
+    public synchronized void showGhostPlank() {
+        ghostVisible = true;
+        markGhost();
     }
 
     /**
-     * Place a plank between stumpA and stumpB
+     * Removes the "ghost" plank
+     */
+    public synchronized void removeGhostPlank() {
+        markGhost();
+        ghostImage = null;
+    }
+
+    /**
+     * Hides the "ghost" plank
+     */
+    public synchronized void hideGhostPlank() {
+        markGhost();
+        ghostVisible = false;
+    }
+
+    /**
+     * Load a built-in level. Copies its state from the level pack and picks its water images.
      *
-     * @param stumpA stump at one end of the plank
-     * @param stumpB stump at other end of the plank
-     * @return 1 if successful, -1 if unsuccessful
+     * @param level number of the level
      */
-    public int placePlank(GameTile stumpA, GameTile stumpB) {
-        // unsuccessful if the content of the two tiles is not a stump
-        if (stumpA.getContent() != GameTile.Content.STUMP || stumpB.getContent() != GameTile.Content.STUMP) {
-            return -1;
-        }
-        // unsuccessful if a plank can't be placed between stumpA and stumpB
-        if (!canPlacePlank(stumpA, stumpB, distanceBetween(stumpA, stumpB))) {
-            return -1;
+    public synchronized void loadLevel(int level) {
+        currentLevel = level;
+        loadCount++;
+        journal.clear();
+
+        if (!LevelSource.getDefault().copyLevel(level, state)) {
+            state.clear();
         }
 
-        Plank plank = new Plank(); // temp plank object
-        int size = 0; // temp size
-
-        int rowA = stumpA.getRow(), rowB = stumpB.getRow();
-        int colA = stumpA.getCol(), colB = stumpB.getCol();
-
-        plankPanel.add(plank); // add the plank to tha view
-        plankList.add(plank); // add the plank to the plankList
-
-        // check if stumpA and stumpB are in the same row
-        if (rowA == rowB) {
-            // if so set orientation to 1 (horizontal)
-            plank.setOrientation(1);
-
-            // check if B comes before A
-            if (colA > colB) {
-                // set the content of all tiles between A and B to PLANK
-                // add the tiles to the span of the plank
-                // also add the index of the plank to the tile
-                for (int j = colB + 1; j < colA; j++) {
-                    gameGrid[rowA][j].setContent(GameTile.Content.PLANK);
-                    gameGrid[rowA][j].setPlankPiece(plank);
-                    plank.span[size] = gameGrid[rowA][j];
-                    size++;
-                }
-
-                // set the plank's size and position
-                plank.size = size;
-                plank.setBounds(
-                        (colB + 1) * TILE_SIZE, rowA * TILE_SIZE,
-                        size * TILE_SIZE, TILE_SIZE
-                );
-            } else if (colB > colA) { // check if A comes before B and do the same as above
-                for (int j = colA + 1; j < colB; j++) {
-                    gameGrid[rowA][j].setContent(GameTile.Content.PLANK);
-                    gameGrid[rowA][j].setPlankPiece(plank);
-                    plank.span[size] = gameGrid[rowA][j];
-                    size++;
-                }
-
-                plank.size = size;
-                plank.setBounds(
-                        (colA + 1) * TILE_SIZE, rowA * TILE_SIZE,
-                        size * TILE_SIZE, TILE_SIZE
-                );
-            }
-        } else if (colA == colB) { // check if stumpA and stumpB are in the same column and do the same as above
-            plank.setOrientation(-1);
-
-            if (rowA > rowB) {
-                for (int i = rowB + 1; i < rowA; i++) {
-                    gameGrid[i][colA].setContent(GameTile.Content.PLANK);
-                    gameGrid[i][colA].setPlankPiece(plank);
-                    plank.span[size] = gameGrid[i][colA];
-                    size++;
-                }
-
-                plank.size = size;
-                plank.setBounds(
-                        colA * TILE_SIZE, (rowB + 1) * TILE_SIZE,
-                        TILE_SIZE, size * TILE_SIZE
-                );
-
-                plankPanel.add(plankList.get(plankList.size() - 1));
-            } else if (rowB > rowA) {
-                for (int i = rowA + 1; i < rowB; i++) {
-                    gameGrid[i][colA].setContent(GameTile.Content.PLANK);
-                    gameGrid[i][colA].setPlankPiece(plank);
-                    plank.span[size] = gameGrid[i][colA];
-                    size++;
-                }
-
-                plank.size = size;
-                plank.setBounds(
-                        colA * TILE_SIZE, (rowA + 1) * TILE_SIZE,
-                        TILE_SIZE, size * TILE_SIZE
-                );
+        // mostly the plain water, now and then one of the other three images
+        for (int cell = 0; cell < GameState.CELLS; cell++) {
+            if (state.terrainOf(cell) == GameState.WATER) {
+                int randW = RANDOM.nextInt(40);
+                if (randW > 3) randW = 0;
+                waterVariant[cell] = (byte) randW;
             }
         }
-        return 1;
+        terrainValid = terrainCopyValid = false;
+        markDirty(0, 0, NUMBER_OF_COLUMNS * TILE_SIZE, NUMBER_OF_ROWS * TILE_SIZE);
     }
 
     /**
-     * Place a plank of a specified size between stumpA and stumpB
+     * Get the number of levels loaded, so a reload of the same level can be told apart.
      *
-     * @param stumpA stump at one end of the plank
-     * @param stumpB stump at other end of the plank
-     * @param size   size of the plank
-     * @return 1 if successful, -1 if unsuccessful
+     * @return number of calls to loadLevel
      */
-    public int placePlank(GameTile stumpA, GameTile stumpB, int size) {
-        if (distanceBetween(stumpA, stumpB) == size) {
-            return placePlank(stumpA, stumpB);
-        } else {
-            return -1;
-        }
+    public synchronized int getLoadCount() {
+        return loadCount;
     }
 
     /**
-     * Places a plank from a stump in a direction relative to it
+     * Read the load count and the cell of the player together, so both belong to the same level
+     * even while another thread loads a level or moves the player.
      *
-     * @param stump     stump at one end of the plank
-     * @param direction direction towards other stump
-     * @return 1 if successful, -1 if unsuccessful
+     * @param view filled with the load count and the cell of the player, in that order
      */
-    public int placePlank(GameTile stump, GameControl.Direction direction) {
-        return placePlank(stump, getNextTile(stump, direction, GameTile.Content.STUMP));
+    public synchronized void getPlayerView(int[] view) {
+        view[0] = loadCount;
+        view[1] = state.getPlayerCell();
     }
 
     /**
-     * Places a plank of a specified size from a stump in a direction relative to it
+     * Turn active rendering on or off. When on, a BoardCanvas covers the map and draws it from
+     * its own thread while it is on screen.
      *
-     * @param stump     stump at one end of the plank
-     * @param direction direction towards other stump
-     * @param size      size of the plank
-     * @return 1 if successful, -1 if unsuccessful
+     * @param active true for active rendering
      */
-    public int placePlank(GameTile stump, GameControl.Direction direction, int size) {
-        return placePlank(stump, getNextTile(stump, direction, GameTile.Content.STUMP), size);
+    public void setActiveRendering(boolean active) {
+        if (active == (canvas != null))
+            return;
+
+        if (active) {
+            canvas = new BoardCanvas(this);
+            canvas.setBounds(0, 0, NUMBER_OF_COLUMNS * TILE_SIZE, NUMBER_OF_ROWS * TILE_SIZE);
+            add(canvas);
+        } else {
+            remove(canvas);
+            canvas = null;
+        }
+        repaint();
     }
 
     /**
-     * Remove a plank, accessing it from a singe tile, part of the plank
+     * Get the canvas drawing the map with active rendering.
      *
-     * @param plankTile tile part of the plank
-     * @return size of the plank removed
+     * @return the canvas, null if active rendering is off
      */
-    public int removePlank(GameTile plankTile) {
-        if (plankTile.getContent() != GameTile.Content.PLANK) {
-            return 0;
-        }
+    public BoardCanvas getCanvas() {
+        return canvas;
+    }
 
-        Plank plank = plankTile.getPlankPiece();
+    /**
+     * Paint the tiles, planks, ghost plank and player of the level, unless a canvas draws them.
+     *
+     * @param g graphics of the component
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        if (canvas != null)
+            return;
 
-        for (int i = 0; i < plank.size; i++) {
-            plank.span[i].setContent(GameTile.Content.WATER);
-        }
+        // count the area painted this frame
+        paintClip.setBounds(0, 0, getWidth(), getHeight());
+        g.getClipBounds(paintClip);
+        lastPaintedArea = (long) paintClip.width * paintClip.height;
+        paintedArea += lastPaintedArea;
+        paintCount++;
 
-        plankList.remove(plank);
-        plankPanel.remove(plank);
-        revalidate();
-        repaint();
+        int player = state.getPlayerCell();
+        paintBoard(g, GameState.colOf(player) * TILE_SIZE, GameState.rowOf(player) * TILE_SIZE);
+    }
 
-        return plank.size;
+    /**
+     * Hide or show the level.
+     *
+     * @param covered true to paint a cover instead of the level
+     */
+    public synchronized void setCovered(boolean covered) {
+        if (this.covered == covered)
+            return;
+        this.covered = covered;
+        repaint();
     }
 
     /**
-     * Remove a plank, situated between two stumps
+     * Paint the level with the player at a given position, which may lie between two tiles.
      *
-     * @param stumpA stump at one end of the plank
-     * @param stumpB stump at other end of the plank
-     * @return size of the plank removed
+     * @param g       graphics to paint with
+     * @param playerX left edge of the player
+     * @param playerY top edge of the player
      */
-    public int removePlank(GameTile stumpA, GameTile stumpB) {
-        if (stumpA.getContent() != GameTile.Content.STUMP || stumpB.getContent() != GameTile.Content.STUMP) {
-            return 0;
+    public synchronized void paintBoard(Graphics g, int playerX, int playerY) {
+        if (covered) {
+            paintCover(g);
+            return;
+        }
+        drawTerrain(g);
+
+        // planks, each from the stump at its top or left end
+        for (int cell = 0; cell < GameState.CELLS; cell++) {
+            if (!state.isStump(cell))
+                continue;
+            int x = GameState.colOf(cell) * TILE_SIZE;
+            int y = GameState.rowOf(cell) * TILE_SIZE;
+
+            int next = state.getNextCell(cell, GameState.RIGHT);
+            if (next >= 0 && state.isPlank(next)) {
+                int size = GameState.distanceBetween(cell, state.getNextStump(cell, GameState.RIGHT));
+                drawClipped(g, hPlankImage, x + TILE_SIZE, y, size * TILE_SIZE, TILE_SIZE);
+            }
+            next = state.getNextCell(cell, GameState.DOWN);
+            if (next >= 0 && state.isPlank(next)) {
+                int size = GameState.distanceBetween(cell, state.getNextStump(cell, GameState.DOWN));
+                drawClipped(g, vPlankImage, x, y + TILE_SIZE, TILE_SIZE, size * TILE_SIZE);
+            }
         }
 
-        int plankRow = (stumpA.getRow() + stumpB.getRow()) / 2;
-        int plankCol = (stumpA.getCol() + stumpB.getCol()) / 2;
+        if (ghostVisible && ghostImage != null) {
+            drawClipped(g, ghostImage, ghostBounds.x, ghostBounds.y, ghostBounds.width, ghostBounds.height);
+        }
 
-        return (removePlank(gameGrid[plankRow][plankCol]));
+        g.drawImage(playerImage[state.getFacing()], playerX, playerY, null);
     }
 
-
     /**
-     * Remove a plank, situated in a direction relative to a stump
+     * Paint the cover shown over the whole board while the game is paused.
      *
-     * @param stump     stump at one end of the plank
-     * @param direction direction of the plank, relative to the stump
-     * @return size of the plank removed
+     * @param g graphics to paint with
      */
-    public int removePlank(GameTile stump, GameControl.Direction direction) {
-        return removePlank(getNextTile(stump, direction));
+    private void paintCover(Graphics g) {
+        int width = NUMBER_OF_COLUMNS * TILE_SIZE;
+        int height = NUMBER_OF_ROWS * TILE_SIZE;
+        g.setColor(Color.black);
+        g.fillRect(0, 0, width, height);
+        g.setColor(Color.white);
+        g.setFont(PAUSED_FONT);
+        FontMetrics metrics = g.getFontMetrics();
+        g.drawString("Paused", (width - metrics.stringWidth("Paused")) / 2, height / 2);
     }
 
-
     /**
-     * Updates the position of the "ghost" plank to be in front of the player
+     * Mark the cells changed by an action applied or undone.
+     *
+     * @param player cell of the player before the change
+     * @param action encoded action
      */
-    public void updateGhostPlank() {
-        // update the ghost plank only if the player is holding a plank
-        if (player.getPlankHeldSize() > 0) {
-            GameControl.Direction direction = player.getDirection();
-            int size = player.getPlankHeldSize();
-            int orientation = 0;
-
-            // set the orientation fo the ghost plank
-            if (direction == GameControl.Direction.LEFT) {
-                ghostPlank.setBounds(player.getX() - size * TILE_SIZE, player.getY(), size * TILE_SIZE, TILE_SIZE);
-                orientation = -1;
-            } else if (direction == GameControl.Direction.RIGHT) {
-                ghostPlank.setBounds(player.getX() + TILE_SIZE, player.getY(), size * TILE_SIZE, TILE_SIZE);
-                orientation = -1;
-            } else if (direction == GameControl.Direction.UP) {
-                ghostPlank.setBounds(player.getX(), player.getY() - size * TILE_SIZE, TILE_SIZE, size * TILE_SIZE);
-                orientation = 1;
-            } else if (direction == GameControl.Direction.DOWN) {
-                ghostPlank.setBounds(player.getX(), player.getY() + TILE_SIZE, TILE_SIZE, size * TILE_SIZE);
-                orientation = 1;
-            }
-
-            // check if the plank can be placed in that direction
-            boolean canPlacePlank = canPlacePlank(player.getTile(), getNextTile(player.getTile(), direction, GameTile.Content.STUMP), size);
-
-            // display the ghost plank
-            if (orientation > 0) {
-                if (canPlacePlank) {
-                    ghostPlank.setIcon(hGhostPlankIcon[1]);
-                } else {
-                    ghostPlank.setIcon(hGhostPlankIcon[0]);
-                }
-            } else if (orientation < 0) {
-                if (canPlacePlank) {
-                    ghostPlank.setIcon(vGhostPlankIcon[1]);
-                } else {
-                    ghostPlank.setIcon(vGhostPlankIcon[0]);
-                }
-            }
+    private void markAction(int player, int action) {
+        markCell(player);
+        markCell(state.getPlayerCell());
+        int kind = GameState.actionKind(action);
+        if (kind == GameState.PLACE || kind == GameState.PICK_UP) {
+            markSpan(state.getPlayerCell(), GameState.actionDirection(action));
         }
     }
 
     /**
-     * Makes the "ghost" plank visible.
+     * Mark the cells between a stump and the next stump in a direction, where a plank lies.
+     *
+     * @param stump     stump at one end of the plank
+     * @param direction direction of the plank, relative to the stump
      */
-    public void showGhostPlank() {
-        ghostPlank.setVisible(true);
+    private void markSpan(int stump, int direction) {
+        int end = state.getNextStump(stump, direction);
+        if (GameState.distanceBetween(stump, end) <= 0)
+            return;
+        markCell(state.getNextCell(stump, direction));
+        markCell(state.getNextCell(end, GameState.reverse(direction)));
     }
 
     /**
-     * Removes the "ghost" plank
+     * Mark the area of the "ghost" plank, if it is shown.
      */
-    public void removeGhostPlank() {
-        ghostPlank.setIcon(null);
+    private void markGhost() {
+        if (ghostVisible && ghostImage != null) {
+            markDirty(ghostBounds.x, ghostBounds.y, ghostBounds.width, ghostBounds.height);
+        }
     }
 
     /**
-     * Hides the "ghost" plank
+     * Mark a tile to be repainted.
+     *
+     * @param cell index of the cell
      */
-    public void hideGhostPlank() {
-        ghostPlank.setVisible(false);
+    private void markCell(int cell) {
+        markDirty(GameState.colOf(cell) * TILE_SIZE, GameState.rowOf(cell) * TILE_SIZE, TILE_SIZE, TILE_SIZE);
     }
 
     /**
-     * Moves the player to a tile in the gameGrid
+     * Add an area to the one to be repainted after the current event.
      *
-     * @param tile tile of the gameGrid
+     * @param x      left edge of the area
+     * @param y      top edge of the area
+     * @param width  width of the area
+     * @param height height of the area
      */
-    public void movePlayerTo(GameTile tile) {
-        if (tile.getContent() != GameTile.Content.STUMP && tile.getContent() != GameTile.Content.PLANK) {
-            return;
+    private void markDirty(int x, int y, int width, int height) {
+        if (dirtyRight < dirtyLeft) {
+            dirtyLeft = x;
+            dirtyTop = y;
+            dirtyRight = x + width;
+            dirtyBottom = y + height;
+        } else {
+            dirtyLeft = Math.min(dirtyLeft, x);
+            dirtyTop = Math.min(dirtyTop, y);
+            dirtyRight = Math.max(dirtyRight, x + width);
+            dirtyBottom = Math.max(dirtyBottom, y + height);
+        }
+
+        if (!repaintPending) {
+            repaintPending = true;
+            SwingUtilities.invokeLater(repaintDirty);
         }
-        player.setTile(tile);
     }
 
     /**
-     * Set the win condition to a tile
+     * Get the number of times the map has been painted.
      *
-     * @param winTile tile to be reached to win
+     * @return number of frames
      */
-    private void setWinTile(GameTile winTile) {
-        winRow = winTile.getRow();
-        winCol = winTile.getCol();
+    public long getPaintCount() {
+        return paintCount;
     }
 
     /**
-     * Get the win condition tile.
+     * Get the area painted in the last frame.
      *
-     * @return tile to be reached to win
+     * @return painted area in pixels
      */
-    public GameTile getWinTile() {
-        return gameGrid[winRow][winCol];
+    public long getLastPaintedArea() {
+        return lastPaintedArea;
     }
 
-
     /**
-     * Load a level. Populates the gameGrid with content, predefined for each level.
+     * Get the area painted over all frames.
      *
-     * @param level a predefined level layout
+     * @return painted area in pixels
      */
-    public void loadLevel(int level) {
-        currentLevel = level;
+    public long getPaintedArea() {
+        return paintedArea;
+    }
 
-        // clear the current level planks
-        plankPanel.removeAll();
-        plankList.clear();
-        player.setPlankHeldSize(0);
-
-        switch (level) {
-            case 1:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if ((j == 2 && (i == 12 || i == 8 || i == 6))
-                                || j == 6 && (i == 6 || i == 4 || i == 0)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][2], gameGrid[8][2]);
-                placePlank(gameGrid[8][2], gameGrid[6][2]);
-                movePlayerTo(gameGrid[12][2]);
-                setWinTile(gameGrid[0][6]);
-                break;
-            case 2:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if ((j == 0 && (i == 12 || i == 10 || i == 8) ||
-                                j == 4 && (i == 8 || i == 6 || i == 4)) ||
-                                j == 8 && (i == 4 || i == 2 || i == 0)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][0], gameGrid[10][0]);
-                placePlank(gameGrid[8][0], gameGrid[8][4]);
-                placePlank(gameGrid[4][4], gameGrid[4][8]);
-                movePlayerTo(gameGrid[12][0]);
-                setWinTile(gameGrid[0][8]);
-                break;
-            case 3:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 6) ||
-                                j == 2 && (i == 10 || i == 6) ||
-                                j == 4 && (i == 12 || i == 10) ||
-                                j == 6 && (i == 6 || i == 2 || i == 0) ||
-                                j == 8 && (i == 6)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][4], gameGrid[10][4]);
-                placePlank(gameGrid[10][2], gameGrid[6][2]);
-                movePlayerTo(gameGrid[12][4]);
-                setWinTile(gameGrid[0][6]);
-                break;
-            case 4:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 10 || i == 6) ||
-                                j == 2 && (i == 12 || i == 8) ||
-                                j == 4 && (i == 10 || i == 4) ||
-                                j == 6 && (i == 6 || i == 0) ||
-                                j == 8 && (i == 8 || i == 4)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][2], gameGrid[8][2]);
-                placePlank(gameGrid[8][2], gameGrid[8][8]);
-                placePlank(gameGrid[8][8], gameGrid[4][8]);
-                movePlayerTo(gameGrid[12][2]);
-                setWinTile(gameGrid[0][6]);
-                break;
-            case 5:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if ((j == 0 && (i == 10 || i == 8 || i == 6 || i == 2)) ||
-                                j == 4 && (i == 12 || i == 8 || i == 4 || i == 0) ||
-                                i == 6 && (j == 2 || j == 6)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][4], gameGrid[8][4]);
-                placePlank(gameGrid[10][0], gameGrid[8][0]);
-                placePlank(gameGrid[6][2], gameGrid[6][6]);
-                movePlayerTo(gameGrid[12][4]);
-                setWinTile(gameGrid[0][4]);
-                break;
-            case 6:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 10 || i == 6 || i == 4) ||
-                                j == 2 && (i == 12 || i == 10) ||
-                                j == 4 && (i == 8 || i == 4) ||
-                                j == 6 && (i == 2 || i == 0) ||
-                                j == 8 && (i == 8 || i == 6 || i == 2)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][2], gameGrid[10][2]);
-                placePlank(gameGrid[10][0], gameGrid[6][0]);
-                placePlank(gameGrid[8][8], gameGrid[6][8]);
-                movePlayerTo(gameGrid[12][2]);
-                setWinTile(gameGrid[0][6]);
-                break;
-            case 7:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 10 || i == 4) ||
-                                j == 2 && (i == 12 || i == 8) ||
-                                j == 6 && (i == 10 || i == 8 || i == 4 || i == 2 || i == 0) ||
-                                j == 8 && (i == 10)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][2], gameGrid[8][2]);
-                placePlank(gameGrid[4][0], gameGrid[4][6]);
-                placePlank(gameGrid[10][6], gameGrid[10][8]);
-                movePlayerTo(gameGrid[12][2]);
-                setWinTile(gameGrid[0][6]);
-                break;
-            case 8:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 4) ||
-                                j == 2 && (i == 12 || i == 8 || i == 4) ||
-                                j == 6 && (i == 8 || i == 2 || i == 0) ||
-                                j == 8 && (i == 6 || i == 4)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][2], gameGrid[8][2]);
-                placePlank(gameGrid[8][2], gameGrid[8][6]);
-                placePlank(gameGrid[8][6], gameGrid[2][6]);
-                placePlank(gameGrid[6][8], gameGrid[4][8]);
-                movePlayerTo(gameGrid[12][2]);
-                setWinTile(gameGrid[0][6]);
-                break;
-            case 9:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 10 || i == 6) ||
-                                j == 2 && (i == 2 || i == 0) ||
-                                j == 4 && (i == 12 || i == 8 || i == 6) ||
-                                j == 6 && (i == 6 || i == 2) ||
-                                j == 8 && (i == 8 || i == 4)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][4], gameGrid[8][4]);
-                placePlank(gameGrid[8][4], gameGrid[6][4]);
-                placePlank(gameGrid[8][8], gameGrid[4][8]);
-                movePlayerTo(gameGrid[12][4]);
-                setWinTile(gameGrid[0][2]);
-                break;
-            case 10:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 10 || i == 6 || i == 2) ||
-                                j == 2 && (i == 10 || i == 2) ||
-                                j == 4 && (i == 12 || i == 10 || i == 6 || i == 2 || i == 0) ||
-                                j == 8 && (i == 6)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][4], gameGrid[10][4]);
-                placePlank(gameGrid[10][0], gameGrid[6][0]);
-                placePlank(gameGrid[6][4], gameGrid[6][8]);
-                movePlayerTo(gameGrid[12][4]);
-                setWinTile(gameGrid[0][4]);
-                break;
-            case 11:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 10 || i == 6 || i == 4) ||
-                                j == 2 && (i == 6) ||
-                                j == 4 && (i == 10 || i == 4 || i == 0) ||
-                                j == 6 && (i == 12 || i == 10 || i == 6) ||
-                                j == 8 && (i == 6)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][6], gameGrid[10][6]);
-                placePlank(gameGrid[10][0], gameGrid[10][4]);
-                movePlayerTo(gameGrid[12][6]);
-                setWinTile(gameGrid[0][4]);
-                break;
-            case 12:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 12 || i == 10 || i == 8 || i == 2) ||
-                                j == 2 && (i == 8) ||
-                                j == 6 && (i == 10 || i == 4 || i == 2 || i == 0) ||
-                                j == 8 && (i == 10 || i == 8)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][0], gameGrid[10][0]);
-                placePlank(gameGrid[8][2], gameGrid[8][8]);
-                movePlayerTo(gameGrid[12][0]);
-                setWinTile(gameGrid[0][6]);
-                break;
-            case 13:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 4) ||
-                                j == 2 && (i == 12 || i == 8 || i == 2) ||
-                                j == 4 && (i == 4) ||
-                                j == 6 && (i == 8 || i == 4 || i == 0) ||
-                                j == 8 && (i == 4 || i == 2)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][2], gameGrid[8][2]);
-                placePlank(gameGrid[4][0], gameGrid[4][4]);
-                placePlank(gameGrid[4][6], gameGrid[4][8]);
-                placePlank(gameGrid[2][2], gameGrid[2][8]);
-                movePlayerTo(gameGrid[12][2]);
-                setWinTile(gameGrid[0][6]);
-                break;
-            case 14:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 6 || i == 4) ||
-                                j == 2 && (i == 12 || i == 8) ||
-                                j == 4 && (i == 10 || i == 4 || i == 2) ||
-                                j == 6 && (i == 6 || i == 0) ||
-                                j == 8 && (i == 10 || i == 8 || i == 6)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][2], gameGrid[8][2]);
-                placePlank(gameGrid[8][2], gameGrid[8][8]);
-                placePlank(gameGrid[8][8], gameGrid[6][8]);
-                movePlayerTo(gameGrid[12][2]);
-                setWinTile(gameGrid[0][6]);
-                break;
-            case 15:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 4 || i == 2) ||
-                                j == 2 && (i == 8 || i == 6 || i == 2) ||
-                                j == 4 && (i == 4 || i == 0) ||
-                                j == 6 && (i == 12 || i == 10 || i == 6) ||
-                                j == 8 && (i == 6)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][6], gameGrid[10][6]);
-                placePlank(gameGrid[10][6], gameGrid[6][6]);
-                placePlank(gameGrid[8][2], gameGrid[6][2]);
-                movePlayerTo(gameGrid[12][6]);
-                setWinTile(gameGrid[0][4]);
-                break;
-            case 16:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 4 || i == 2) ||
-                                j == 2 && (i == 6 || i == 0) ||
-                                j == 4 && (i == 8 || i == 2) ||
-                                j == 6 && (i == 12 || i == 10 || i == 4 || i == 2) ||
-                                j == 8 && (i == 8 || i == 6)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][6], gameGrid[10][6]);
-                placePlank(gameGrid[10][6], gameGrid[4][6]);
-                placePlank(gameGrid[2][0], gameGrid[2][4]);
-                movePlayerTo(gameGrid[12][6]);
-                setWinTile(gameGrid[0][2]);
-                break;
-            case 17:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 2 && (i == 12 || i == 6) ||
-                                j == 4 && (i == 10 || i == 6 || i == 4 || i == 2) ||
-                                j == 6 && (i == 6 || i == 0) ||
-                                j == 8 && (i == 10 || i == 4 || i == 2)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][2], gameGrid[6][2]);
-                placePlank(gameGrid[6][2], gameGrid[6][4]);
-                placePlank(gameGrid[4][4], gameGrid[4][8]);
-                placePlank(gameGrid[2][4], gameGrid[2][8]);
-                movePlayerTo(gameGrid[12][2]);
-                setWinTile(gameGrid[0][6]);
-                break;
-            case 18:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 8 || i == 4) ||
-                                j == 2 && (i == 6) ||
-                                j == 4 && (i == 12 || i == 8 || i == 2 || i == 0) ||
-                                j == 6 && (i == 6 || i == 4) ||
-                                j == 8 && (i == 8 || i == 4)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][4], gameGrid[8][4]);
-                placePlank(gameGrid[6][2], gameGrid[6][6]);
-                placePlank(gameGrid[4][0], gameGrid[4][6]);
-                placePlank(gameGrid[4][6], gameGrid[4][8]);
-                movePlayerTo(gameGrid[12][4]);
-                setWinTile(gameGrid[0][4]);
-                break;
-            case 19:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 10 || i == 6) ||
-                                j == 2 && (i == 10 || i == 4) ||
-                                j == 4 && (i == 12 || i == 10 || i == 6 || i == 0) ||
-                                j == 8 && (i == 10 || i == 4)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][4], gameGrid[10][4]);
-                placePlank(gameGrid[10][0], gameGrid[6][0]);
-                placePlank(gameGrid[10][8], gameGrid[4][8]);
-                movePlayerTo(gameGrid[12][4]);
-                setWinTile(gameGrid[0][4]);
-                break;
-            case 20:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if ((j == 0 && (i == 10 || i == 6) ||
-                                j == 2 && (i == 12 || i == 8 || i == 2) ||
-                                j == 4 && (i == 10 || i == 4)) ||
-                                j == 6 && (i == 8 || i == 6 || i == 4 || i == 0) ||
-                                j == 8 && (i == 10 || i == 8 || i == 2)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][2], gameGrid[8][2]);
-                placePlank(gameGrid[8][2], gameGrid[2][2]);
-                placePlank(gameGrid[10][8], gameGrid[8][8]);
-                movePlayerTo(gameGrid[12][2]);
-                setWinTile(gameGrid[0][6]);
-                break;
-            case 21:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 10 || i == 6 || i == 4) ||
-                                j == 2 && (i == 8 || i == 2) ||
-                                j == 4 && (i == 12 || i == 8 || i == 6 || i == 0) ||
-                                j == 6 && (i == 10 || i == 4 || i == 2) ||
-                                j == 8 && (i == 8 || i == 6 || i == 2)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][4], gameGrid[8][4]);
-                placePlank(gameGrid[8][4], gameGrid[8][2]);
-                placePlank(gameGrid[8][2], gameGrid[2][2]);
-                movePlayerTo(gameGrid[12][4]);
-                setWinTile(gameGrid[0][4]);
-                break;
-            case 22:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 12 || i == 6 || i == 2) ||
-                                j == 2 && (i == 8 || i == 6) ||
-                                j == 4 && (i == 10 || i == 8 || i == 4 || i == 2) ||
-                                j == 6 && (i == 6) ||
-                                j == 8 && (i == 10 || i == 6 || i == 0)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][0], gameGrid[6][0]);
-                placePlank(gameGrid[6][0], gameGrid[2][0]);
-                placePlank(gameGrid[4][4], gameGrid[2][4]);
-                placePlank(gameGrid[6][6], gameGrid[6][8]);
-                movePlayerTo(gameGrid[12][0]);
-                setWinTile(gameGrid[0][8]);
-                break;
-            case 23:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 10 || i == 8 || i == 4) ||
-                                j == 2 && (i == 4) ||
-                                j == 4 && (i == 12 || i == 10 || i == 6 || i == 2 || i == 0) ||
-                                j == 6 && (i == 4) ||
-                                j == 8 && (i == 10 || i == 8 || i == 4)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][4], gameGrid[10][4]);
-                placePlank(gameGrid[10][4], gameGrid[6][4]);
-                placePlank(gameGrid[4][2], gameGrid[4][6]);
-                movePlayerTo(gameGrid[12][4]);
-                setWinTile(gameGrid[0][4]);
-                break;
-            case 24:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 8 || i == 4) ||
-                                j == 2 && (i == 12 || i == 10 || i == 4) ||
-                                j == 4 && (i == 10 || i == 8 || i == 6 || i == 2) ||
-                                j == 6 && (i == 8 || i == 2 || i == 0) ||
-                                j == 8 && (i == 10 || i == 6 || i == 4)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][2], gameGrid[10][2]);
-                placePlank(gameGrid[10][4], gameGrid[10][8]);
-                placePlank(gameGrid[4][2], gameGrid[4][8]);
-                movePlayerTo(gameGrid[12][2]);
-                setWinTile(gameGrid[0][6]);
-                break;
-            case 25:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 2 && (i == 10 || i == 8 || i == 4 || i == 2) ||
-                                j == 4 && (i == 10 || i == 6 || i == 2) ||
-                                j == 6 && (i == 12 || i == 8 || i == 6 || i == 4 || i == 0)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][6], gameGrid[8][6]);
-                placePlank(gameGrid[8][6], gameGrid[6][6]);
-                placePlank(gameGrid[10][4], gameGrid[6][4]);
-                movePlayerTo(gameGrid[12][6]);
-                setWinTile(gameGrid[0][6]);
-                break;
-            case 26:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 8 || i == 4) ||
-                                j == 2 && (i == 10 || i == 6 || i == 2) ||
-                                j == 4 && (i == 8 || i == 2 || i == 0) ||
-                                j == 6 && (i == 10 || i == 4) ||
-                                j == 8 && (i == 12 || i == 10 || i == 8 || i == 4)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][8], gameGrid[10][8]);
-                placePlank(gameGrid[8][8], gameGrid[4][8]);
-                placePlank(gameGrid[10][2], gameGrid[6][2]);
-                placePlank(gameGrid[4][0], gameGrid[4][6]);
-                movePlayerTo(gameGrid[12][8]);
-                setWinTile(gameGrid[0][4]);
-                break;
-            case 27:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 12 || i == 8 || i == 4 || i == 2) ||
-                                j == 2 && (i == 10 || i == 6 || i == 0) ||
-                                j == 4 && (i == 10 || i == 4) ||
-                                j == 6 && (i == 8 || i == 2) ||
-                                j == 8 && (i == 10 || i == 8 || i == 4 || i == 2)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][0], gameGrid[8][0]);
-                placePlank(gameGrid[2][0], gameGrid[2][6]);
-                placePlank(gameGrid[8][6], gameGrid[8][8]);
-                movePlayerTo(gameGrid[12][0]);
-                setWinTile(gameGrid[0][2]);
-                break;
-            case 28:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 10 || i == 6 || i == 2) ||
-                                j == 2 && (i == 12 || i == 10 || i == 8 || i == 2) ||
-                                j == 4 && (i == 8 || i == 6) ||
-                                j == 6 && (i == 10 || i == 4 || i == 0) ||
-                                j == 8 && (i == 8 || i == 6 || i == 2)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][2], gameGrid[10][2]);
-                placePlank(gameGrid[8][2], gameGrid[2][2]);
-                placePlank(gameGrid[8][4], gameGrid[8][8]);
-                placePlank(gameGrid[6][4], gameGrid[6][8]);
-                movePlayerTo(gameGrid[12][2]);
-                setWinTile(gameGrid[0][6]);
-                break;
-            case 29:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 6) ||
-                                j == 2 && (i == 12 || i == 10 || i == 4) ||
-                                j == 4 && (i == 10 || i == 8 || i == 2) ||
-                                j == 6 && (i == 10 || i == 8 || i == 6 || i == 0) ||
-                                j == 8 && (i == 10 || i == 4 || i == 2)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][2], gameGrid[10][2]);
-                placePlank(gameGrid[10][8], gameGrid[4][8]);
-                placePlank(gameGrid[4][8], gameGrid[2][8]);
-                movePlayerTo(gameGrid[12][2]);
-                setWinTile(gameGrid[0][6]);
-                break;
-            case 30:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 10 || i == 6 || i == 4 || i == 2) ||
-                                j == 2 && (i == 12 || i == 8 || i == 2) ||
-                                j == 4 && (i == 10 || i == 4) ||
-                                j == 6 && (i == 6 || i == 0) ||
-                                j == 8 && (i == 10 || i == 8 || i == 4)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][2], gameGrid[8][2]);
-                placePlank(gameGrid[8][2], gameGrid[2][2]);
-                placePlank(gameGrid[4][0], gameGrid[2][0]);
-                placePlank(gameGrid[10][4], gameGrid[10][8]);
-                movePlayerTo(gameGrid[12][2]);
-                setWinTile(gameGrid[0][6]);
-                break;
-            case 31:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 10 || i == 8 || i == 4 || i == 2) ||
-                                j == 2 && (i == 12 || i == 8 || i == 6 || i == 2) ||
-                                j == 4 && (i == 10 || i == 4) ||
-                                j == 6 && (i == 8 || i == 2 || i == 0) ||
-                                j == 8 && (i == 10 || i == 6)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][2], gameGrid[8][2]);
-                placePlank(gameGrid[6][2], gameGrid[2][2]);
-                placePlank(gameGrid[4][0], gameGrid[2][0]);
-                placePlank(gameGrid[8][6], gameGrid[2][6]);
-                movePlayerTo(gameGrid[12][2]);
-                setWinTile(gameGrid[0][6]);
-                break;
-            case 32:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 8 || i == 4 || i == 2) ||
-                                j == 2 && (i == 10 || i == 6 || i == 4) ||
-                                j == 4 && (i == 12 || i == 8 || i == 2 || i == 0) ||
-                                j == 6 && (i == 10 || i == 8 || i == 4) ||
-                                j == 8 && (i == 10 || i == 6 || i == 2)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][4], gameGrid[8][4]);
-                placePlank(gameGrid[8][4], gameGrid[8][6]);
-                placePlank(gameGrid[2][0], gameGrid[2][4]);
-                movePlayerTo(gameGrid[12][4]);
-                setWinTile(gameGrid[0][4]);
-                break;
-            case 33:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 12 || i == 10 || i == 6 || i == 4 || i == 2) ||
-                                j == 2 && (i == 8 || i == 6 || i == 2) ||
-                                j == 4 && (i == 6 || i == 0) ||
-                                j == 6 && (i == 10 || i == 4) ||
-                                j == 8 && (i == 10 || i == 8 || i == 4)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][0], gameGrid[10][0]);
-                placePlank(gameGrid[10][0], gameGrid[10][6]);
-                placePlank(gameGrid[6][2], gameGrid[6][4]);
-                movePlayerTo(gameGrid[12][0]);
-                setWinTile(gameGrid[0][4]);
-                break;
-            case 34:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 10 || i == 6) ||
-                                j == 2 && (i == 6 || i == 2) ||
-                                j == 4 && (i == 12 || i == 10 || i == 8 || i == 6 || i == 4 || i == 2) ||
-                                j == 6 && (i == 4 || i == 0) ||
-                                j == 8 && (i == 10 || i == 8 || i == 2)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][4], gameGrid[10][4]);
-                placePlank(gameGrid[2][4], gameGrid[2][8]);
-                placePlank(gameGrid[10][8], gameGrid[8][8]);
-                movePlayerTo(gameGrid[12][4]);
-                setWinTile(gameGrid[0][6]);
-                break;
-            case 35:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 10 || i == 8 || i == 4 || i == 2) ||
-                                j == 2 && (i == 8 || i == 6 || i == 0) ||
-                                j == 4 && (i == 4) ||
-                                j == 6 && (i == 12 || i == 10 || i == 8 || i == 2) ||
-                                j == 8 && (i == 10 || i == 4 || i == 2)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][6], gameGrid[10][6]);
-                placePlank(gameGrid[4][0], gameGrid[4][4]);
-                placePlank(gameGrid[10][8], gameGrid[4][8]);
-                movePlayerTo(gameGrid[12][6]);
-                setWinTile(gameGrid[0][2]);
-                break;
-            case 36:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 10 || i == 4) ||
-                                j == 2 && (i == 8 || i == 6 || i == 0) ||
-                                j == 4 && (i == 10 || i == 6 || i == 2) ||
-                                j == 6 && (i == 12 || i == 6 || i == 4) ||
-                                j == 8 && (i == 10 || i == 8 || i == 4 || i == 2)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][6], gameGrid[6][6]);
-                placePlank(gameGrid[6][6], gameGrid[6][4]);
-                placePlank(gameGrid[10][0], gameGrid[10][4]);
-                placePlank(gameGrid[10][8], gameGrid[8][8]);
-                movePlayerTo(gameGrid[12][6]);
-                setWinTile(gameGrid[0][2]);
-                break;
-            case 37:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 10 || i == 6 || i == 4) ||
-                                j == 2 && (i == 10 || i == 8 || i == 4) ||
-                                j == 4 && (i == 12 || i == 10 || i == 2 || i == 0) ||
-                                j == 6 && (i == 8 || i == 4) ||
-                                j == 8 && (i == 10 || i == 8 || i == 6 || i == 2)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][4], gameGrid[10][4]);
-                placePlank(gameGrid[10][0], gameGrid[6][0]);
-                placePlank(gameGrid[4][2], gameGrid[4][6]);
-                placePlank(gameGrid[8][8], gameGrid[6][8]);
-                movePlayerTo(gameGrid[12][4]);
-                setWinTile(gameGrid[0][4]);
-                break;
-            case 38:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 6 || i == 4 || i == 2) ||
-                                j == 2 && (i == 12 || i == 8) ||
-                                j == 4 && (i == 10 || i == 6 || i == 4 || i == 0) ||
-                                j == 6 && (i == 8 || i == 2) ||
-                                j == 8 && (i == 10 || i == 8 || i == 4)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][2], gameGrid[8][2]);
-                placePlank(gameGrid[4][0], gameGrid[2][0]);
-                placePlank(gameGrid[6][0], gameGrid[6][4]);
-                placePlank(gameGrid[8][6], gameGrid[2][6]);
-                placePlank(gameGrid[10][8], gameGrid[8][8]);
-                movePlayerTo(gameGrid[12][2]);
-                setWinTile(gameGrid[0][4]);
-                break;
-            case 39:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if (j == 0 && (i == 10 || i == 6) ||
-                                j == 2 && (i == 10 || i == 8 || i == 2) ||
-                                j == 4 && (i == 12 || i == 6 || i == 4 || i == 0) ||
-                                j == 6 && (i == 10 || i == 8) ||
-                                j == 8 && (i == 6 || i == 2)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[12][4], gameGrid[6][4]);
-                placePlank(gameGrid[6][0], gameGrid[6][4]);
-                placePlank(gameGrid[6][4], gameGrid[6][8]);
-                placePlank(gameGrid[10][2], gameGrid[8][2]);
-                placePlank(gameGrid[10][6], gameGrid[8][6]);
-                movePlayerTo(gameGrid[12][4]);
-                setWinTile(gameGrid[0][4]);
-                break;
-            case 40:
-                for (int i = 0; i < 13; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        if ((j == 0 && (i == 10 || i == 6 || i == 2) ||
-                                j == 2 && (i == 12 || i == 10 || i == 4 || i == 0) ||
-                                j == 4 && (i == 10 || i == 6)) ||
-                                j == 6 && (i == 8 || i == 2) ||
-                                j == 8 && (i == 10 || i == 6 || i == 4 || i == 2)) {
-                            gameGrid[i][j].setContent(GameTile.Content.STUMP);
-                        } else if (i == 0 || i == 12) {
-                            gameGrid[i][j].setContent(GameTile.Content.LAND);
-                        } else {
-                            gameGrid[i][j].setContent(GameTile.Content.WATER);
-                        }
-                    }
-                }
-                placePlank(gameGrid[10][0], gameGrid[6][0]);
-                placePlank(gameGrid[12][2], gameGrid[10][2]);
-                placePlank(gameGrid[8][6], gameGrid[2][6]);
-                placePlank(gameGrid[10][8], gameGrid[6][8]);
-                movePlayerTo(gameGrid[12][2]);
-                setWinTile(gameGrid[0][2]);
-                break;
-        }
+    /**
+     * Get the number of times the terrain image has been drawn, on loading a level or after the
+     * video memory holding it was lost.
+     *
+     * @return number of terrain builds
+     */
+    public int getTerrainBuilds() {
+        return terrainBuilds;
     }
 
     /**
-     * Inner class, representing a Plank object.
-     * Consist of an image, orientation of the plank, size of the plank, and span of the plank.
-     * Extends JButton with no border.
+     * Copy the terrain image to the map, building it first if the level changed or it was lost.
+     *
+     * @param g graphics of the component
      */
-    class Plank extends JLabel {
-        private int size; // size span of the plank - number of GameTiles it spans
-        private int orientation; // 0 for picked up, positive for horizontal and negative for vertical
-        private GameTile[] span = new GameTile[5]; // GameTiles the plank spans over
-
-        /**
-         * Constructor. Creates a JButton with no border
-         *
-         * @param size        plank size
-         * @param orientation plank orientation
-         */
-        private Plank(int size, int orientation) {
-            setFocusable(false);
-
-            this.size = size;
-            this.orientation = orientation;
-
-            if (orientation < 0) {
-                setIcon(vPlankIcon);
-            } else if (orientation > 0) {
-                setIcon(hPlankIcon);
+    private void drawTerrain(Graphics g) {
+        int width = NUMBER_OF_COLUMNS * TILE_SIZE, height = NUMBER_OF_ROWS * TILE_SIZE;
+        GraphicsConfiguration config = getGraphicsConfiguration();
+
+        // not on a screen, e.g. painted into an image - keep the terrain in memory
+        if (config == null) {
+            if (terrainCopy == null) {
+                terrainCopy = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
             }
+            if (!terrainCopyValid) {
+                buildTerrain(terrainCopy);
+                terrainCopyValid = true;
+            }
+            g.drawImage(terrainCopy, 0, 0, null);
+            return;
         }
 
-        /**
-         * Constructor. Creates a placeholder plank with no size or orientation.
-         */
-        private Plank() {
-            this(0, 0);
-        }
-
-        /**
-         * Get the span size of the plank
-         *
-         * @return number of GameTiles the plank spans across
-         */
-        public int getSpanSize() {
-            return size;
-        }
+        do {
+            int status = terrain == null ? VolatileImage.IMAGE_INCOMPATIBLE : terrain.validate(config);
+            if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                // first paint, or the map moved to another screen
+                if (terrain != null)
+                    terrain.flush();
+                terrain = config.createCompatibleVolatileImage(width, height);
+                terrainValid = false;
+            } else if (status == VolatileImage.IMAGE_RESTORED) {
+                terrainValid = false;
+            }
 
-        /**
-         * Set the span size of the plank
-         *
-         * @param size number of GameTiles the plank spans across
-         */
-        private void setSpanSize(int size) {
-            this.size = size;
-        }
+            if (!terrainValid) {
+                buildTerrain(terrain);
+                terrainValid = true;
+            }
+            g.drawImage(terrain, 0, 0, null);
+        } while (terrain.contentsLost());
+    }
 
-        /**
-         * Get the orientation of the plank
-         *
-         * @return negative for vertical, positive for horizontal
-         */
-        public int getOrientation() {
-            return orientation;
+    /**
+     * Draw every tile of the level into a terrain image.
+     *
+     * @param image image to be drawn into
+     */
+    private void buildTerrain(Image image) {
+        Graphics g = image.getGraphics();
+        for (int row = 0; row < NUMBER_OF_ROWS; row++) {
+            for (int col = 0; col < NUMBER_OF_COLUMNS; col++) {
+                g.drawImage(tileImage(GameState.cell(row, col)), col * TILE_SIZE, row * TILE_SIZE, null);
+            }
         }
+        g.dispose();
+        terrainBuilds++;
+    }
 
-        /**
-         * Set the orientation of the plank and it's image
-         *
-         * @param orientation negative for vertical, positive for horizontal
-         */
-        private void setOrientation(int orientation) {
-            this.orientation = orientation;
-            if (orientation < 0) {
-                setIcon(vPlankIcon);
-            } else if (orientation > 0) {
-                setIcon(hPlankIcon);
-            }
+    /**
+     * Get the image of the terrain of a cell. A plank keeps the water image below it.
+     *
+     * @param cell index of the cell
+     * @return image of the tile
+     */
+    private Image tileImage(int cell) {
+        int row = GameState.rowOf(cell);
+        switch (state.terrainOf(cell)) {
+            case GameState.LAND:
+                return row < 1 ? bankDownImage : bankUpImage;
+            case GameState.STUMP:
+                if (row < 1)
+                    return stumpUPImage;
+                return row > 11 ? stumpDBImage : stumpImage;
+            default:
+                return waterImage[waterVariant[cell]];
         }
     }
 
+    /**
+     * Draw an image in a box the way a label shows its icon - against the left edge, centred
+     * vertically and cut to the box.
+     *
+     * @param g      graphics to draw with
+     * @param image  image to be drawn
+     * @param x      left edge of the box
+     * @param y      top edge of the box
+     * @param width  width of the box
+     * @param height height of the box
+     */
+    private static void drawClipped(Graphics g, Image image, int x, int y, int width, int height) {
+        Shape clip = g.getClip();
+        g.clipRect(x, y, width, height);
+        g.drawImage(image, x, y + (height - image.getHeight(null)) / 2, null);
+        g.setClip(clip);
+    }
 
     // Load resources
-    public final ImageIcon hPlankIcon = new ImageIcon(getClass().getResource("ingame/plank1.png")); // horizontal plank
-    public final ImageIcon vPlankIcon = new ImageIcon(getClass().getResource("ingame/plank2.png")); // vertical plank
+    private static final Image bankUpImage = Assets.image("ingame/bank1.jpg");
+    private static final Image bankDownImage = Assets.image("ingame/bank2.jpg");
+
+    private static final Image waterImage[] = {
+            Assets.image("ingame/water1.jpg"),
+            Assets.image("ingame/water2.jpg"),
+            Assets.image("ingame/water3.jpg"),
+            Assets.image("ingame/water4.jpg")
+    };
+
+    private static final Image stumpImage = Assets.image("ingame/stump1.jpg");
+    private static final Image stumpDBImage = Assets.image("ingame/stump2.jpg"); // downside bank stump
+    private static final Image stumpUPImage = Assets.image("ingame/stump3.jpg"); // upper bank stump
 
+    private static final Image hPlankImage = Assets.image("ingame/plank1.png"); // horizontal plank
+    private static final Image vPlankImage = Assets.image("ingame/plank2.png"); // vertical plank
+
+    private static final Image hGhostPlankImage[] = {
+            Assets.image("ingame/ghostplank1f.png"),
+            Assets.image("ingame/ghostplank1t.png")
+    };
 
-    public final ImageIcon vGhostPlankIcon[] = {
-            new ImageIcon(getClass().getResource("ingame/ghostplank1f.png")),
-            new ImageIcon(getClass().getResource("ingame/ghostplank1t.png"))
+    private static final Image vGhostPlankImage[] = {
+            Assets.image("ingame/ghostplank2f.png"),
+            Assets.image("ingame/ghostplank2t.png")
     };
 
-    public final ImageIcon hGhostPlankIcon[] = {
-            new ImageIcon(getClass().getResource("ingame/ghostplank2f.png")),
-            new ImageIcon(getClass().getResource("ingame/ghostplank2t.png"))
+    // player facing each direction, in the order of GameControl.Direction
+    private static final Image playerImage[] = {
+            Assets.image("ingame/manL.png"),
+            Assets.image("ingame/manR.png"),
+            Assets.image("ingame/manU.png"),
+            Assets.image("ingame/manD.png")
     };
 }
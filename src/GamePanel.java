@@ -2,24 +2,45 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.WindowEvent;
+import java.awt.event.WindowFocusListener;
 
 /**
  * This class handles the anything in the panel while the game is being played
  */
 public class GamePanel extends JLayeredPane {
+    // draw the board from a render loop, turned on with -Drivercrossing.activeRendering=true
+    public static final boolean ACTIVE_RENDERING = Boolean.getBoolean("rivercrossing.activeRendering");
+
     private JPanel parent;
     private JPanel mainPanel;
 
     private GameMap gameMap = new GameMap();
     private GameControl gameControl = new GameControl(this, gameMap);
 
-    // speed run fields
-    private JLabel timerLabel = new JLabel();
-    private long msTimer = 0;
+    // speed run clock, shown on the side unless a canvas draws it over the board
+    private ClockDisplay clockDisplay = new ClockDisplay(gameControl.getClock());
 
     // icon of the currently played level
     private JLabel levelIcon = new JLabel();
 
+    // window the panel is shown in, and the listener pausing the game while it isn't focused
+    private Window window;
+    private final WindowFocusListener focusListener = new WindowFocusListener() {
+        @Override
+        public void windowGainedFocus(WindowEvent e) {
+            if (!messageShown)
+                gameControl.resume();
+        }
+
+        @Override
+        public void windowLostFocus(WindowEvent e) {
+            gameControl.pause();
+        }
+    };
+    // the win message, and the high scores with it, are shown over the board
+    private boolean messageShown;
+
     /**
      * Constructor. Load the game from a specified lvl.
      *
@@ -30,6 +51,7 @@ public class GamePanel extends JLayeredPane {
     public GamePanel(JPanel parent, int mode, int level) {
         this.parent = parent;
         setOpaque(false);
+        gameMap.setActiveRendering(ACTIVE_RENDERING);
         gameControl.loadGame(level, mode);
         createGamePanel();
         if (mode == GameControl.SPEED_RUN) {
@@ -80,11 +102,19 @@ public class GamePanel extends JLayeredPane {
 
         sidePanel.add(levelIcon);
 
-        // if in speed run mode add a timer
+        // if in speed run mode add a timer, drawn over the board with active rendering
         if (gameControl.getMode() == GameControl.SPEED_RUN) {
-            sidePanel.add(timerLabel);
-            timerLabel.setFont(new Font("Times New Roman", Font.BOLD, 24));
-            timerLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+            if (gameMap.getCanvas() != null) {
+                gameMap.getCanvas().setRunClock(gameControl.getClock());
+            } else {
+                sidePanel.add(clockDisplay);
+                clockDisplay.setAlignmentX(Component.CENTER_ALIGNMENT);
+            }
+
+            // how far ahead or behind the personal best
+            SplitDeltaDisplay deltaDisplay = new SplitDeltaDisplay(gameControl.getClock(), gameControl.getSplits());
+            sidePanel.add(deltaDisplay);
+            deltaDisplay.setAlignmentX(Component.CENTER_ALIGNMENT);
         }
 
         sidePanel.add(menuButton);
@@ -130,13 +160,35 @@ public class GamePanel extends JLayeredPane {
     }
 
     /**
-     * Update the timer in a speed run
-     *
-     * @param elapsed time from start of the run
+     * Pause the game whenever the window loses focus, once the panel is on the screen.
+     */
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        window = SwingUtilities.getWindowAncestor(this);
+        if (window != null)
+            window.addWindowFocusListener(focusListener);
+    }
+
+    /**
+     * Stop the game when the panel is taken off the screen, e.g. on going back to the menu.
      */
-    public void updateTimer(long elapsed) {
-        msTimer = elapsed;
-        timerLabel.setText(String.format("%02d:%02d:%02d", elapsed / 1000 / 60, elapsed / 1000 % 60, elapsed % 1000 / 10));
+    @Override
+    public void removeNotify() {
+        if (window != null) {
+            window.removeWindowFocusListener(focusListener);
+            window = null;
+        }
+        gameControl.stop();
+        super.removeNotify();
+    }
+
+    /**
+     * Play on once the win message is removed.
+     */
+    private void closeWinMessage() {
+        messageShown = false;
+        gameControl.resume();
     }
 
     /**
@@ -149,6 +201,10 @@ public class GamePanel extends JLayeredPane {
      * @param level level or difficulty of the finsihed game
      */
     public void displayWinMessage(int mode, int level) {
+        // the clock stands still while the message and the high scores are shown
+        messageShown = true;
+        gameControl.pause();
+
         // create a new panel for the win message and add it to the front layer
         JPanel winPanel = new JPanel(){
             @Override
@@ -212,6 +268,7 @@ public class GamePanel extends JLayeredPane {
                 @Override
                 public void actionPerformed(ActionEvent e) {
                     remove(winPanel);
+                    closeWinMessage();
                     gameControl.nextLevel();
                     revalidate();
                     repaint();
@@ -220,36 +277,28 @@ public class GamePanel extends JLayeredPane {
         }
         // if the mode is Speed run display a congratulating message, 2 buttons and the high scores
         else if (mode == GameControl.SPEED_RUN) {
-            String levelText = "";
-
-            switch (level) {
-                case 0:
-                    levelText = "EasyRun";
-                    break;
-                case 1:
-                    levelText = "NormalRun";
-                    break;
-                case 2:
-                    levelText = "IntermediateRun";
-                    break;
-                case 3:
-                    levelText = "ExpertRun";
-                    break;
-                case 4:
-                    levelText = "ULTIMATERun";
-                    break;
+            String levelText = GameControl.getRunName(level);
+
+            long runTime = gameControl.getClock().getElapsedMillis();
+            winMsg.setText(levelText + " completed in " + GameClock.toString(runTime) + "!");
+
+            // compare the run with every earlier run of the difficulty
+            RunHistogram histogram = gameControl.getHistogram();
+            if (histogram.getTotalCount() > 1) {
+                JLabel beatText = new JLabel("You beat " + (int) histogram.getPercentBeatenByRun(runTime) + "% of runs");
+                beatText.setAlignmentX(Component.CENTER_ALIGNMENT);
+                winPanel.add(beatText, 2);
             }
 
-            winMsg.setText(levelText + " completed in " + timerLabel.getText() + "!");
             JLabel hsText = new JLabel("High Scores:");
             hsText.setAlignmentX(Component.CENTER_ALIGNMENT);
             winPanel.add(hsText);
 
-            HighScoresPanel hsp = new HighScoresPanel(this, new HighScoresControl(levelText), msTimer);
+            HighScoresPanel hsp = new HighScoresPanel(this, new HighScoresControl(levelText), runTime);
             add(hsp, new Integer(200));
 
-            winPanel.setBounds(MainWindow.WINDOW_WIDTH / 2 - 100, MainWindow.WINDOW_HEIGHT / 2 - 180,
-                    200, 80);
+            winPanel.setBounds(MainWindow.WINDOW_WIDTH / 2 - 100, MainWindow.WINDOW_HEIGHT / 2 - 200,
+                    200, 100);
             hsp.setBounds(MainWindow.WINDOW_WIDTH / 2 - 100, MainWindow.WINDOW_HEIGHT / 2 - 100,
                     200, 300);
 
@@ -259,6 +308,7 @@ public class GamePanel extends JLayeredPane {
                 public void actionPerformed(ActionEvent e) {
                     remove(winPanel);
                     remove(hsp);
+                    closeWinMessage();
                     gameControl.loadGame(level, GameControl.SPEED_RUN);
                     revalidate();
                     repaint();
@@ -270,11 +320,11 @@ public class GamePanel extends JLayeredPane {
 
     // load resources
     private final ImageIcon lvlIcon[] = {
-            new ImageIcon(getClass().getResource("buttons/lvlbutton1.png")),
-            new ImageIcon(getClass().getResource("buttons/lvlbutton2.png")),
-            new ImageIcon(getClass().getResource("buttons/lvlbutton3.png")),
-            new ImageIcon(getClass().getResource("buttons/lvlbutton4.png"))
+            Assets.icon("buttons/lvlbutton1.png"),
+            Assets.icon("buttons/lvlbutton2.png"),
+            Assets.icon("buttons/lvlbutton3.png"),
+            Assets.icon("buttons/lvlbutton4.png")
     };
 
-    private final Image winBG = new ImageIcon(getClass().getResource("winbg.jpg")).getImage();
+    private final Image winBG = Assets.image("winbg.jpg");
 }
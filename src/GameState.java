@@ -0,0 +1,907 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Headless model of a River Crossing level and its rules.
+ * <p>
+ * The board is held as bitboards - one bit per cell for each kind of content, packed
+ * into two longs - together with the player's cell, facing direction and the size of
+ * the plank they are holding. Nothing in here depends on Swing and no method allocates,
+ * so the rules can be evaluated millions of times per second by bots and solvers.
+ * <p>
+ * Cells are numbered row by row: cell = row * COLUMNS + col. Rows 0-6 are kept in the
+ * low long and rows 7-12 in the high long, so a row never straddles the two.
+ * <p>
+ * Next to the bitboards every content is also indexed by row and by column masks, which are
+ * updated with each placed or removed plank. The nearest cell with a content in any direction
+ * is then found with a single bit scan instead of walking the board cell by cell.
+ * <p>
+ * A 64-bit Zobrist hash of the whole state is kept up to date as well. Every cell content,
+ * player cell, facing, held plank size and win cell has a random key, and each change XORs
+ * the old key out and the new one in, so stateHash never has to look at the board.
+ */
+public class GameState {
+    public static final int ROWS = 13;
+    public static final int COLUMNS = 9;
+    public static final int CELLS = ROWS * COLUMNS;
+
+    // directions, in the order of GameControl.Direction
+    public static final int LEFT = 0;
+    public static final int RIGHT = 1;
+    public static final int UP = 2;
+    public static final int DOWN = 3;
+
+    // types of content
+    public static final int LAND = 0;
+    public static final int WATER = 1;
+    public static final int STUMP = 2;
+    public static final int PLANK = 3;
+
+    // results of move
+    public static final int BLOCKED = 0;
+    public static final int TURNED = 1;
+    public static final int MOVED = 2;
+
+    // kinds of action, encoded as kind << 2 | direction - a TURN from legalActions also
+    // keeps the facing it turned from in bits 4-5, so it can be undone
+    public static final int TURN = 0;
+    public static final int STEP = 1;
+    public static final int PICK_UP = 2;
+    public static final int PLACE = 3;
+
+    // size of a state written by writeRecord - six bitboard longs, the player cell, win cell,
+    // facing and held plank size as bytes, padded to a multiple of 8
+    public static final int RECORD_BYTES = 56;
+
+    // most actions legal in any state - three turns, and a step and a pick-up or place ahead
+    public static final int MAX_ACTIONS = 5;
+
+    private static final String[] ACTION_NAMES = {"TURN", "STEP", "PICK_UP", "PLACE"};
+    private static final String[] DIRECTION_NAMES = {"LEFT", "RIGHT", "UP", "DOWN"};
+
+    // first cell held in the high long
+    private static final int SPLIT = 7 * COLUMNS;
+
+    // masks of all the cells in a row and in a column
+    private static final int FULL_ROW = (1 << COLUMNS) - 1;
+    private static final int FULL_COLUMN = (1 << ROWS) - 1;
+
+    // the cell next to each cell in each direction (direction * CELLS + cell), -1 if off the board
+    private static final int[] NEIGHBOUR = new int[4 * CELLS];
+
+    // Zobrist keys - of each content of each cell (content * CELLS + cell, 0 for water), of the
+    // player and win cells, of each facing and of each held plank size
+    private static final long[] CONTENT_KEYS = new long[4 * CELLS];
+    private static final long[] PLAYER_KEYS = new long[CELLS];
+    private static final long[] WIN_KEYS = new long[CELLS];
+    private static final long[] FACING_KEYS = new long[4];
+    private static final long[] HELD_KEYS = new long[ROWS + 1];
+
+    // hash of a cleared state
+    private static final long CLEAR_HASH;
+
+    static {
+        for (int cell = 0; cell < CELLS; cell++) {
+            int row = cell / COLUMNS, col = cell % COLUMNS;
+            NEIGHBOUR[LEFT * CELLS + cell] = col > 0 ? cell - 1 : -1;
+            NEIGHBOUR[RIGHT * CELLS + cell] = col < COLUMNS - 1 ? cell + 1 : -1;
+            NEIGHBOUR[UP * CELLS + cell] = row > 0 ? cell - COLUMNS : -1;
+            NEIGHBOUR[DOWN * CELLS + cell] = row < ROWS - 1 ? cell + COLUMNS : -1;
+        }
+
+        // fixed seed, so hashes are the same on every run
+        long seed = 0x5DEECE66DL;
+        for (int i = 0; i < CELLS; i++) {
+            CONTENT_KEYS[LAND * CELLS + i] = seed = nextKey(seed);
+            CONTENT_KEYS[STUMP * CELLS + i] = seed = nextKey(seed);
+            CONTENT_KEYS[PLANK * CELLS + i] = seed = nextKey(seed);
+            PLAYER_KEYS[i] = seed = nextKey(seed);
+            WIN_KEYS[i] = seed = nextKey(seed);
+        }
+        for (int i = 0; i < 4; i++) {
+            FACING_KEYS[i] = seed = nextKey(seed);
+        }
+        for (int i = 0; i <= ROWS; i++) {
+            HELD_KEYS[i] = seed = nextKey(seed);
+        }
+        CLEAR_HASH = PLAYER_KEYS[0] ^ WIN_KEYS[0] ^ FACING_KEYS[UP] ^ HELD_KEYS[0];
+    }
+
+    // bitboards of the terrain and the placed planks
+    private long stumpLo, stumpHi;
+    private long landLo, landHi;
+    private long plankLo, plankHi;
+
+    // ray index - bit col of rows[row] and bit row of cols[col] are set for each cell holding the content
+    private final int[] stumpRows = new int[ROWS], stumpCols = new int[COLUMNS];
+    private final int[] landRows = new int[ROWS], landCols = new int[COLUMNS];
+    private final int[] plankRows = new int[ROWS], plankCols = new int[COLUMNS];
+
+    private int playerCell;
+    private int facing = UP;
+    private int heldSize;
+    private int winCell;
+    private long hash = CLEAR_HASH;
+
+    /**
+     * Get the cell at a row and column.
+     *
+     * @param row row of the cell
+     * @param col column of the cell
+     * @return index of the cell
+     */
+    public static int cell(int row, int col) {
+        return row * COLUMNS + col;
+    }
+
+    /**
+     * Get the row of a cell.
+     *
+     * @param cell index of the cell
+     * @return row of the cell
+     */
+    public static int rowOf(int cell) {
+        return cell / COLUMNS;
+    }
+
+    /**
+     * Get the column of a cell.
+     *
+     * @param cell index of the cell
+     * @return column of the cell
+     */
+    public static int colOf(int cell) {
+        return cell % COLUMNS;
+    }
+
+    /**
+     * Get the direction opposite to a direction.
+     *
+     * @param direction a direction
+     * @return the reverse direction
+     */
+    public static int reverse(int direction) {
+        return direction ^ 1;
+    }
+
+    /**
+     * Encode an action as a small int.
+     *
+     * @param kind      TURN, STEP, PICK_UP or PLACE
+     * @param direction direction of the action - the player's facing for PICK_UP and PLACE
+     * @return the encoded action
+     */
+    public static int action(int kind, int direction) {
+        return kind << 2 | direction;
+    }
+
+    /**
+     * Encode a turn that can be undone.
+     *
+     * @param direction direction turned to
+     * @param previous  direction faced before the turn
+     * @return the encoded action
+     */
+    public static int turn(int direction, int previous) {
+        return previous << 4 | TURN << 2 | direction;
+    }
+
+    /**
+     * Get the kind of an encoded action.
+     *
+     * @param action encoded action
+     * @return TURN, STEP, PICK_UP or PLACE
+     */
+    public static int actionKind(int action) {
+        return action >>> 2 & 3;
+    }
+
+    /**
+     * Get the direction of an encoded action.
+     *
+     * @param action encoded action
+     * @return LEFT, RIGHT, UP or DOWN
+     */
+    public static int actionDirection(int action) {
+        return action & 3;
+    }
+
+    /**
+     * Describe an encoded action, e.g. "STEP UP".
+     *
+     * @param action encoded action
+     * @return readable name of the action
+     */
+    public static String actionToString(int action) {
+        return ACTION_NAMES[actionKind(action)] + " " + DIRECTION_NAMES[actionDirection(action)];
+    }
+
+    /**
+     * Empty the board. Every cell becomes water, the player drops their plank and faces up.
+     */
+    public void clear() {
+        stumpLo = stumpHi = 0;
+        landLo = landHi = 0;
+        plankLo = plankHi = 0;
+        for (int i = 0; i < ROWS; i++) {
+            stumpRows[i] = landRows[i] = plankRows[i] = 0;
+        }
+        for (int i = 0; i < COLUMNS; i++) {
+            stumpCols[i] = landCols[i] = plankCols[i] = 0;
+        }
+        playerCell = 0;
+        facing = UP;
+        heldSize = 0;
+        winCell = 0;
+        hash = CLEAR_HASH;
+    }
+
+    /**
+     * Copy the whole state of another GameState into this one.
+     *
+     * @param other state to be copied
+     */
+    public void copyFrom(GameState other) {
+        stumpLo = other.stumpLo;
+        stumpHi = other.stumpHi;
+        landLo = other.landLo;
+        landHi = other.landHi;
+        plankLo = other.plankLo;
+        plankHi = other.plankHi;
+        System.arraycopy(other.stumpRows, 0, stumpRows, 0, ROWS);
+        System.arraycopy(other.landRows, 0, landRows, 0, ROWS);
+        System.arraycopy(other.plankRows, 0, plankRows, 0, ROWS);
+        System.arraycopy(other.stumpCols, 0, stumpCols, 0, COLUMNS);
+        System.arraycopy(other.landCols, 0, landCols, 0, COLUMNS);
+        System.arraycopy(other.plankCols, 0, plankCols, 0, COLUMNS);
+        playerCell = other.playerCell;
+        facing = other.facing;
+        heldSize = other.heldSize;
+        winCell = other.winCell;
+        hash = other.hash;
+    }
+
+    /**
+     * Write the whole state as a fixed-size record, without moving the buffer position.
+     *
+     * @param buffer buffer to be written to
+     * @param offset index of the first byte of the record
+     */
+    public void writeRecord(ByteBuffer buffer, int offset) {
+        buffer.putLong(offset, stumpLo);
+        buffer.putLong(offset + 8, stumpHi);
+        buffer.putLong(offset + 16, landLo);
+        buffer.putLong(offset + 24, landHi);
+        buffer.putLong(offset + 32, plankLo);
+        buffer.putLong(offset + 40, plankHi);
+        buffer.put(offset + 48, (byte) playerCell);
+        buffer.put(offset + 49, (byte) winCell);
+        buffer.put(offset + 50, (byte) facing);
+        buffer.put(offset + 51, (byte) heldSize);
+    }
+
+    /**
+     * Read the whole state from a record written by writeRecord, without moving the buffer position.
+     * The ray index and the hash are rebuilt from the bitboards; nothing is allocated.
+     *
+     * @param buffer buffer to be read from
+     * @param offset index of the first byte of the record
+     * @throws IllegalArgumentException if the player, goal, facing or held plank is out of range
+     */
+    public void readRecord(ByteBuffer buffer, int offset) {
+        int player = buffer.get(offset + 48);
+        int win = buffer.get(offset + 49);
+        int direction = buffer.get(offset + 50);
+        int held = buffer.get(offset + 51);
+        if (player < 0 || player >= CELLS || win < 0 || win >= CELLS || direction < 0 || direction > DOWN
+                || held < 0 || held > ROWS)
+            throw new IllegalArgumentException("Malformed level record at " + offset);
+
+        clear();
+        stumpLo = buffer.getLong(offset);
+        stumpHi = buffer.getLong(offset + 8);
+        landLo = buffer.getLong(offset + 16);
+        landHi = buffer.getLong(offset + 24);
+        plankLo = buffer.getLong(offset + 32);
+        plankHi = buffer.getLong(offset + 40);
+        indexBits(stumpLo, 0, stumpRows, stumpCols, STUMP);
+        indexBits(stumpHi, SPLIT, stumpRows, stumpCols, STUMP);
+        indexBits(landLo, 0, landRows, landCols, LAND);
+        indexBits(landHi, SPLIT, landRows, landCols, LAND);
+        indexBits(plankLo, 0, plankRows, plankCols, PLANK);
+        indexBits(plankHi, SPLIT, plankRows, plankCols, PLANK);
+
+        hash ^= PLAYER_KEYS[0] ^ WIN_KEYS[0] ^ FACING_KEYS[UP] ^ HELD_KEYS[0];
+        playerCell = player;
+        winCell = win;
+        facing = direction;
+        heldSize = held;
+        hash ^= PLAYER_KEYS[playerCell] ^ WIN_KEYS[winCell] ^ FACING_KEYS[facing] ^ HELD_KEYS[heldSize];
+    }
+
+    /**
+     * Set the terrain of a cell. Any plank over the cell is dropped.
+     *
+     * @param cell    index of the cell
+     * @param content LAND, WATER or STUMP
+     */
+    public void setTerrain(int cell, int content) {
+        int old = getContent(cell);
+        hash ^= CONTENT_KEYS[(old == PLANK ? terrainOf(cell) : old) * CELLS + cell] ^ CONTENT_KEYS[content * CELLS + cell];
+        if (old == PLANK)
+            hash ^= CONTENT_KEYS[PLANK * CELLS + cell];
+
+        long bit = bitOf(cell);
+        if (cell < SPLIT) {
+            stumpLo &= ~bit;
+            landLo &= ~bit;
+            plankLo &= ~bit;
+            if (content == STUMP) stumpLo |= bit;
+            else if (content == LAND) landLo |= bit;
+        } else {
+            stumpHi &= ~bit;
+            landHi &= ~bit;
+            plankHi &= ~bit;
+            if (content == STUMP) stumpHi |= bit;
+            else if (content == LAND) landHi |= bit;
+        }
+
+        int row = rowOf(cell), col = colOf(cell);
+        int rowBit = 1 << col, colBit = 1 << row;
+        stumpRows[row] &= ~rowBit;
+        stumpCols[col] &= ~colBit;
+        landRows[row] &= ~rowBit;
+        landCols[col] &= ~colBit;
+        plankRows[row] &= ~rowBit;
+        plankCols[col] &= ~colBit;
+        if (content == STUMP) {
+            stumpRows[row] |= rowBit;
+            stumpCols[col] |= colBit;
+        } else if (content == LAND) {
+            landRows[row] |= rowBit;
+            landCols[col] |= colBit;
+        }
+    }
+
+    /**
+     * Get the terrain of a cell, ignoring any plank over it.
+     *
+     * @param cell index of the cell
+     * @return LAND, WATER or STUMP
+     */
+    public int terrainOf(int cell) {
+        if (isStump(cell))
+            return STUMP;
+        if (test(landLo, landHi, cell))
+            return LAND;
+        return WATER;
+    }
+
+    /**
+     * Get the content of a cell. A plank hides the terrain below it.
+     *
+     * @param cell index of the cell
+     * @return LAND, WATER, STUMP or PLANK
+     */
+    public int getContent(int cell) {
+        if (isPlank(cell))
+            return PLANK;
+        if (isStump(cell))
+            return STUMP;
+        if (test(landLo, landHi, cell))
+            return LAND;
+        return WATER;
+    }
+
+    /**
+     * Check if a cell is a stump.
+     *
+     * @param cell index of the cell
+     * @return true if the cell is a stump
+     */
+    public boolean isStump(int cell) {
+        return test(stumpLo, stumpHi, cell);
+    }
+
+    /**
+     * Check if a cell is covered by a plank.
+     *
+     * @param cell index of the cell
+     * @return true if a plank lies over the cell
+     */
+    public boolean isPlank(int cell) {
+        return test(plankLo, plankHi, cell);
+    }
+
+    /**
+     * Get the cell next to a cell.
+     *
+     * @param cell      initial cell
+     * @param direction direction from the initial cell
+     * @return the neighbouring cell, -1 if it is off the board
+     */
+    public int getNextCell(int cell, int direction) {
+        return NEIGHBOUR[direction * CELLS + cell];
+    }
+
+    /**
+     * Get the first cell in a direction holding a certain content.
+     *
+     * @param cell      initial cell
+     * @param direction direction from the initial cell
+     * @param content   content to be searched for
+     * @return first cell in the direction holding the content, the initial cell if there is none
+     */
+    public int getNextCell(int cell, int direction, int content) {
+        int row = rowOf(cell), col = colOf(cell);
+        if (direction == LEFT || direction == RIGHT) {
+            int mask;
+            if (content == PLANK) mask = plankRows[row];
+            else if (content == STUMP) mask = stumpRows[row];
+            else if (content == LAND) mask = landRows[row] & ~plankRows[row];
+            else mask = FULL_ROW & ~(stumpRows[row] | landRows[row] | plankRows[row]);
+            int found = scan(mask, col, direction == RIGHT);
+            return found < 0 ? cell : cell(row, found);
+        } else {
+            int mask;
+            if (content == PLANK) mask = plankCols[col];
+            else if (content == STUMP) mask = stumpCols[col];
+            else if (content == LAND) mask = landCols[col] & ~plankCols[col];
+            else mask = FULL_COLUMN & ~(stumpCols[col] | landCols[col] | plankCols[col]);
+            int found = scan(mask, row, direction == DOWN);
+            return found < 0 ? cell : cell(found, col);
+        }
+    }
+
+    /**
+     * Get the first stump in a direction.
+     *
+     * @param cell      initial cell
+     * @param direction direction from the initial cell
+     * @return first stump in the direction, the initial cell if there is none
+     */
+    public int getNextStump(int cell, int direction) {
+        int row = rowOf(cell), col = colOf(cell);
+        if (direction == LEFT || direction == RIGHT) {
+            int found = scan(stumpRows[row], col, direction == RIGHT);
+            return found < 0 ? cell : cell(row, found);
+        } else {
+            int found = scan(stumpCols[col], row, direction == DOWN);
+            return found < 0 ? cell : cell(found, col);
+        }
+    }
+
+    /**
+     * Check if a plank of a given size fits from a stump to the next stump in a direction.
+     *
+     * @param stump     stump at one end of the plank
+     * @param direction direction towards the other stump
+     * @param size      size of the plank
+     * @return true if the gap is exactly the size of the plank and holds no other plank
+     */
+    public boolean canPlacePlank(int stump, int direction, int size) {
+        if (size <= 0 || !isStump(stump))
+            return false;
+
+        int other = getNextStump(stump, direction);
+        return other != stump && distanceBetween(stump, other) == size && !hasPlankBetween(stump, other);
+    }
+
+    /**
+     * Place a plank between two stumps. The stumps must be next to each other in a row or column.
+     *
+     * @param stumpA stump at one end of the plank
+     * @param stumpB stump at other end of the plank
+     * @return size of the plank placed, -1 if it can't be placed
+     */
+    public int placePlank(int stumpA, int stumpB) {
+        int direction = directionBetween(stumpA, stumpB);
+        if (direction < 0)
+            return -1;
+
+        int size = distanceBetween(stumpA, stumpB);
+        if (!canPlacePlank(stumpA, direction, size))
+            return -1;
+
+        fillPlank(stumpA, direction, size, true);
+        return size;
+    }
+
+    /**
+     * Remove the plank lying next to a stump in a direction.
+     *
+     * @param stump     stump at one end of the plank
+     * @param direction direction of the plank, relative to the stump
+     * @return size of the plank removed, 0 if there is no plank or it doesn't reach a stump
+     */
+    public int removePlank(int stump, int direction) {
+        int next = NEIGHBOUR[direction * CELLS + stump];
+        if (next < 0 || !isPlank(next))
+            return 0;
+
+        // a plank reaches the next stump, unless a malformed level left it hanging
+        int end = getNextStump(stump, direction);
+        if (end == stump)
+            return 0;
+        int size = distanceBetween(stump, end);
+        fillPlank(stump, direction, size, false);
+        return size;
+    }
+
+    /**
+     * Move the player in a direction or turn them to face it.
+     * <p>
+     * If the player is not facing the direction they turn towards it. Otherwise, if a plank lies
+     * in front of them, they walk over it to the stump at its other end.
+     *
+     * @param direction direction of the movement
+     * @return TURNED, MOVED or BLOCKED
+     */
+    public int move(int direction) {
+        if (direction != facing) {
+            hash ^= FACING_KEYS[facing] ^ FACING_KEYS[direction];
+            facing = direction;
+            return TURNED;
+        }
+
+        int next = NEIGHBOUR[direction * CELLS + playerCell];
+        if (next < 0 || !isPlank(next))
+            return BLOCKED;
+
+        int stump = getNextStump(playerCell, direction);
+        if (stump == playerCell)
+            return BLOCKED;
+        hash ^= PLAYER_KEYS[playerCell] ^ PLAYER_KEYS[stump];
+        playerCell = stump;
+        return MOVED;
+    }
+
+    /**
+     * Pick up the plank in front of the player, if they have free hands.
+     *
+     * @return size of the plank picked up, 0 if nothing was picked up
+     */
+    public int pickUp() {
+        if (heldSize > 0)
+            return 0;
+
+        setHeldSize(removePlank(playerCell, facing));
+        return heldSize;
+    }
+
+    /**
+     * Place the plank the player is holding in front of them.
+     *
+     * @return size of the plank placed, 0 if it could not be placed
+     */
+    public int place() {
+        if (heldSize == 0 || !canPlacePlank(playerCell, facing, heldSize))
+            return 0;
+
+        int size = heldSize;
+        fillPlank(playerCell, facing, size, true);
+        setHeldSize(0);
+        return size;
+    }
+
+    /**
+     * Fill a buffer with every action the player can take. Nothing is allocated.
+     *
+     * @param actions buffer for the encoded actions, at least MAX_ACTIONS long
+     * @return number of actions written
+     */
+    public int legalActions(int[] actions) {
+        return legalActions(actions, 0);
+    }
+
+    /**
+     * Fill part of a buffer with every action the player can take. Nothing is allocated.
+     *
+     * @param actions buffer for the encoded actions
+     * @param offset  index of the first action written, at least MAX_ACTIONS from the end of the buffer
+     * @return number of actions written
+     */
+    public int legalActions(int[] actions, int offset) {
+        int count = offset;
+        for (int direction = 0; direction < 4; direction++) {
+            if (direction != facing)
+                actions[count++] = turn(direction, facing);
+        }
+
+        int next = NEIGHBOUR[facing * CELLS + playerCell];
+        boolean plankAhead = next >= 0 && isPlank(next);
+        if (plankAhead)
+            actions[count++] = action(STEP, facing);
+        if (heldSize == 0) {
+            if (plankAhead)
+                actions[count++] = action(PICK_UP, facing);
+        } else if (canPlacePlank(playerCell, facing, heldSize)) {
+            actions[count++] = action(PLACE, facing);
+        }
+        return count - offset;
+    }
+
+    /**
+     * Apply an encoded action, as returned by legalActions, to the state.
+     *
+     * @param action encoded action
+     * @return true if the action was legal and has been applied
+     */
+    public boolean apply(int action) {
+        int direction = actionDirection(action);
+        switch (actionKind(action)) {
+            case TURN:
+                return direction != facing && move(direction) == TURNED;
+            case STEP:
+                return direction == facing && move(direction) == MOVED;
+            case PICK_UP:
+                return direction == facing && pickUp() > 0;
+            default:
+                return direction == facing && place() > 0;
+        }
+    }
+
+    /**
+     * Undo an encoded action, which must be the last action applied to the state.
+     *
+     * @param action encoded action, with the previous facing for a TURN
+     */
+    public void undo(int action) {
+        int direction = actionDirection(action);
+        switch (actionKind(action)) {
+            case TURN:
+                setFacing(action >>> 4 & 3);
+                break;
+            case STEP: {
+                // the plank just crossed leads straight back to the stump the player came from
+                int stump = getNextStump(playerCell, reverse(direction));
+                hash ^= PLAYER_KEYS[playerCell] ^ PLAYER_KEYS[stump];
+                playerCell = stump;
+                break;
+            }
+            case PICK_UP:
+                fillPlank(playerCell, direction, heldSize, true);
+                setHeldSize(0);
+                break;
+            default:
+                setHeldSize(removePlank(playerCell, direction));
+                break;
+        }
+    }
+
+    /**
+     * Get the cell the player stands on.
+     *
+     * @return cell of the player
+     */
+    public int getPlayerCell() {
+        return playerCell;
+    }
+
+    /**
+     * Put the player on a stump or plank.
+     *
+     * @param cell cell of the player
+     * @return true if the player was moved
+     */
+    public boolean setPlayerCell(int cell) {
+        if (!isStump(cell) && !isPlank(cell))
+            return false;
+        hash ^= PLAYER_KEYS[playerCell] ^ PLAYER_KEYS[cell];
+        playerCell = cell;
+        return true;
+    }
+
+    /**
+     * Get the direction the player is facing.
+     *
+     * @return LEFT, RIGHT, UP or DOWN
+     */
+    public int getFacing() {
+        return facing;
+    }
+
+    /**
+     * Set the direction the player is facing.
+     *
+     * @param direction LEFT, RIGHT, UP or DOWN
+     */
+    public void setFacing(int direction) {
+        hash ^= FACING_KEYS[facing] ^ FACING_KEYS[direction];
+        facing = direction;
+    }
+
+    /**
+     * Get the size of the plank the player is holding.
+     *
+     * @return size of the plank held, 0 for none
+     */
+    public int getHeldSize() {
+        return heldSize;
+    }
+
+    /**
+     * Set the size of the plank the player is holding.
+     *
+     * @param size size of the plank held, 0 for none
+     */
+    public void setHeldSize(int size) {
+        hash ^= HELD_KEYS[heldSize] ^ HELD_KEYS[size];
+        heldSize = size;
+    }
+
+    /**
+     * Get the cell the player has to reach to win.
+     *
+     * @return win cell
+     */
+    public int getWinCell() {
+        return winCell;
+    }
+
+    /**
+     * Set the cell the player has to reach to win.
+     *
+     * @param cell win cell
+     */
+    public void setWinCell(int cell) {
+        hash ^= WIN_KEYS[winCell] ^ WIN_KEYS[cell];
+        winCell = cell;
+    }
+
+    /**
+     * Get the Zobrist hash of the whole state - board, player cell, facing, held plank and win cell.
+     * Equal states always have equal hashes, different states almost never do.
+     *
+     * @return 64-bit hash of the state
+     */
+    public long stateHash() {
+        return hash;
+    }
+
+    /**
+     * Check if the player has reached the win cell.
+     *
+     * @return true if the level is completed
+     */
+    public boolean hasWon() {
+        return playerCell == winCell;
+    }
+
+    /**
+     * Get the direction from one cell to another in the same row or column.
+     *
+     * @param from initial cell
+     * @param to   destination cell
+     * @return direction towards the destination, -1 if the cells are not in line
+     */
+    public static int directionBetween(int from, int to) {
+        if (from == to)
+            return -1;
+        if (rowOf(from) == rowOf(to))
+            return colOf(to) < colOf(from) ? LEFT : RIGHT;
+        if (colOf(from) == colOf(to))
+            return rowOf(to) < rowOf(from) ? UP : DOWN;
+        return -1;
+    }
+
+    /**
+     * Get the number of cells between two cells in the same row or column.
+     *
+     * @param cellA cell 1
+     * @param cellB cell 2
+     * @return number of cells strictly between them, -1 if they are not in line
+     */
+    public static int distanceBetween(int cellA, int cellB) {
+        if (rowOf(cellA) == rowOf(cellB))
+            return Math.abs(colOf(cellA) - colOf(cellB)) - 1;
+        if (colOf(cellA) == colOf(cellB))
+            return Math.abs(rowOf(cellA) - rowOf(cellB)) - 1;
+        return -1;
+    }
+
+    /**
+     * Set or clear the plank bits of the cells in front of a stump.
+     *
+     * @param stump     stump at one end of the plank
+     * @param direction direction of the plank
+     * @param size      number of cells covered
+     * @param set       true to lay the plank, false to lift it
+     */
+    private void fillPlank(int stump, int direction, int size, boolean set) {
+        int next = stump;
+        for (int i = 0; i < size; i++) {
+            next = NEIGHBOUR[direction * CELLS + next];
+            hash ^= CONTENT_KEYS[PLANK * CELLS + next];
+            long bit = bitOf(next);
+            if (next < SPLIT) {
+                plankLo = set ? plankLo | bit : plankLo & ~bit;
+            } else {
+                plankHi = set ? plankHi | bit : plankHi & ~bit;
+            }
+
+            int row = rowOf(next), col = colOf(next);
+            if (set) {
+                plankRows[row] |= 1 << col;
+                plankCols[col] |= 1 << row;
+            } else {
+                plankRows[row] &= ~(1 << col);
+                plankCols[col] &= ~(1 << row);
+            }
+        }
+    }
+
+    /**
+     * Add the cells of a bitboard long to the ray index of a content and to the hash.
+     *
+     * @param bits  bitboard long
+     * @param first cell of bit 0 of the long
+     * @param rows  row masks of the content
+     * @param cols  column masks of the content
+     * @param content content of the cells
+     */
+    private void indexBits(long bits, int first, int[] rows, int[] cols, int content) {
+        while (bits != 0) {
+            int cell = first + Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+            rows[rowOf(cell)] |= 1 << colOf(cell);
+            cols[colOf(cell)] |= 1 << rowOf(cell);
+            hash ^= CONTENT_KEYS[content * CELLS + cell];
+        }
+    }
+
+    /**
+     * Check if any cell strictly between two cells in line is covered by a plank.
+     *
+     * @param cellA cell 1
+     * @param cellB cell 2
+     * @return true if a plank lies between the cells
+     */
+    private boolean hasPlankBetween(int cellA, int cellB) {
+        int rowA = rowOf(cellA), colA = colOf(cellA);
+        int rowB = rowOf(cellB), colB = colOf(cellB);
+        if (rowA == rowB)
+            return (plankRows[rowA] & between(colA, colB)) != 0;
+        return (plankCols[colA] & between(rowA, rowB)) != 0;
+    }
+
+    // mask of the bits strictly between two positions
+    private static int between(int a, int b) {
+        int low = Math.min(a, b), high = Math.max(a, b);
+        return ((1 << high) - 1) & ~((2 << low) - 1);
+    }
+
+    /**
+     * Find the nearest set bit of a row or column mask past a position.
+     *
+     * @param mask     row or column mask
+     * @param position position to scan from
+     * @param forward  true to scan towards higher positions, false towards lower ones
+     * @return position of the nearest set bit, -1 if there is none
+     */
+    private static int scan(int mask, int position, boolean forward) {
+        if (forward) {
+            mask &= -(2 << position);
+            return mask == 0 ? -1 : Integer.numberOfTrailingZeros(mask);
+        }
+        mask &= (1 << position) - 1;
+        return mask == 0 ? -1 : 31 - Integer.numberOfLeadingZeros(mask);
+    }
+
+    // next number of a splitmix64 sequence
+    private static long nextKey(long seed) {
+        long z = seed + 0x9E3779B97F4A7C15L;
+        z = (z ^ z >>> 30) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ z >>> 27) * 0x94D049BB133111EBL;
+        return z ^ z >>> 31;
+    }
+
+    // bit of a cell within its long
+    private static long bitOf(int cell) {
+        return 1L << (cell < SPLIT ? cell : cell - SPLIT);
+    }
+
+    // test the bit of a cell in a pair of longs
+    private static boolean test(long lo, long hi, int cell) {
+        return ((cell < SPLIT ? lo : hi) & bitOf(cell)) != 0;
+    }
+}
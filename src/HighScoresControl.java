@@ -1,24 +1,119 @@
-import java.io.*;
+import javax.swing.*;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
 import java.util.regex.Pattern;
 
 /**
- * Controls the high scores and the .highscores file.
+ * Controls the leaderboard of a run category, kept in the ScoreStore.
+ * <p>
+ * Every submitted run is kept, not only the top 10, so the rank of any run can be shown.
+ * A new run is appended to the journal of the store rather than rewriting the store.
+ * Categories that have no leaderboard yet take over the scores of the .highscores file they
+ * used before the store.
+ * <p>
+ * If the system property rivercrossing.leaderboard holds the address of a LeaderboardServer,
+ * such as "http://10.0.0.2:8765", the leaderboard is shared through that server instead. The
+ * local copy is shown at once, while refresh asks the server for the top 10 and the place of a
+ * run in the background and tells a listener on the Event Dispatch Thread once the copy is
+ * updated. New runs are sent without waiting for the answer either, so a slow or lost server
+ * never holds up the game.
  */
 public class HighScoresControl {
-    private PersonalScore[] highScores;
-    private File highScoresFile;
-    private BufferedReader reader;
-    private PrintWriter writer;
+    public static final int PLACES = 10;
+    public static final String SERVER_PROPERTY = "rivercrossing.leaderboard";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(2);
+    // rows a .highscores file was filled with before any run was played
+    private static final String PLACEHOLDER_NAME = "John_Doe";
+    private static final long PLACEHOLDER_SCORE = 600000;
+
+    // one client for every server leaderboard, each client keeps a selector thread while it lives
+    private static HttpClient client;
+
+    /**
+     * Told on the Event Dispatch Thread when the local copy of a server leaderboard has changed.
+     */
+    public interface Listener {
+        /**
+         * Called once an answer of the server has been taken into the local copy.
+         */
+        void changed();
+    }
+
+    private final ScoreStore store;
+    private final URI server;
+    private final String category;
+    private Leaderboard highScores;
+    // state of the local copy of a server leaderboard, only used on the Event Dispatch Thread
+    private int serverRuns;
+    private int localChanges;
+    private long rankedScore = -1;
+    private int rankedPlace;
     private final String fileType = ".highscores";
+    private final Pattern regexScore = Pattern.compile("[A-Za-z0-9_-]{1,9}+=+[0-9]+");
+
+    /**
+     * Constructor. Loads the high scores of a category from the store of the game.
+     *
+     * @param category name of the run category
+     */
+    public HighScoresControl(String category) {
+        this(System.getProperty(SERVER_PROPERTY), category);
+    }
 
     /**
-     * Constructor. Loads the high scores.
+     * Constructor. Loads the high scores of a category from a server, or from the store of the
+     * game if no server is given.
      *
-     * @param filePath path of the high scores file without type
+     * @param server   address of the LeaderboardServer, null for the store of the game
+     * @param category name of the run category
      */
-    public HighScoresControl(String filePath) {
-        highScores = new PersonalScore[10];
-        highScoresFile = new File(filePath + fileType);
+    private HighScoresControl(String server, String category) {
+        this(server == null ? ScoreStore.getDefault() : null, server == null ? null : URI.create(server), category);
+    }
+
+    /**
+     * Constructor. Loads the high scores of a category from a store.
+     *
+     * @param store    store holding the high scores
+     * @param category name of the run category
+     */
+    public HighScoresControl(ScoreStore store, String category) {
+        this(store, null, category);
+    }
+
+    /**
+     * Constructor. Loads the high scores of a category from a LeaderboardServer.
+     *
+     * @param server   address of the server, such as "http://10.0.0.2:8765"
+     * @param category name of the run category
+     */
+    public HighScoresControl(URI server, String category) {
+        this(null, server, category);
+    }
+
+    /**
+     * Constructor. Loads the high scores of a category from either a store or a server.
+     *
+     * @param store    store holding the high scores, null if a server does
+     * @param server   address of the server, null if a store holds the high scores
+     * @param category name of the run category
+     */
+    private HighScoresControl(ScoreStore store, URI server, String category) {
+        this.store = store;
+        this.server = server;
+        this.category = category;
         try {
             load();
         } catch (IOException ex) {
@@ -27,80 +122,235 @@ public class HighScoresControl {
     }
 
     /**
-     * Load the high scores value from the .highscores file.
-     * If no such file or bad values fill up the top 10 with empty high scores.
+     * Load the leaderboard of the category from the store. A category without a leaderboard takes
+     * over its old .highscores file, or its backup if the file is damaged, or starts empty.
+     * With a server, the local copy starts empty until refresh reads the server.
      */
     public void load() throws IOException {
-        String name;
-        int score;
-        int lineNumber = 0;
-        String line = null;
-        String[] scoreLine;
-        boolean fileError = false;
-        Pattern regexScore = Pattern.compile("[A-Za-z0-9_-]{1,9}+=+[0-9]+");
-
-        //If the file exists read it line by line and load the high scores into the game
-        //Else fill up the top 10 with empty high scores
-        if (highScoresFile.exists()) {
-            reader = new BufferedReader(new FileReader(highScoresFile));
-            while ((line = reader.readLine()) != null) {
-                if (!regexScore.matcher(line).matches()) {
-                    fileError = true;
-                    break;
-                }
-                scoreLine = line.split("=");
-                name = scoreLine[0];
-                score = Integer.parseInt(scoreLine[1]);
-                highScores[lineNumber] = new PersonalScore(name, score);
-                lineNumber++;
-                if (lineNumber > 10) {
-                    break;
-                }
-            }
+        if (server != null) {
+            highScores = new Leaderboard();
+            return;
+        }
+        highScores = store.getLeaderboard(category);
+        if (highScores != null)
+            return;
+        highScores = store.createLeaderboard(category);
 
-            if (lineNumber != 10)
-                fileError = true;
+        Path oldFile = Paths.get(category + fileType);
+        if (parse(SafeFile.read(oldFile)))
+            return;
+        if (parse(SafeFile.read(SafeFile.backupOf(oldFile))))
+            System.out.println("Recovered high scores from " + SafeFile.backupOf(oldFile));
+    }
 
-            reader.close();
-        } else {
-            fileError = true;
+    /**
+     * Read the top 10 from the contents of a .highscores file into the leaderboard.
+     * The scores are only added if all 10 lines are valid, and the placeholder rows are skipped.
+     *
+     * @param content contents of the file, null if there is none
+     * @return true if the scores were read
+     * @throws IOException if the scores can't be added to the journal
+     */
+    private boolean parse(String content) throws IOException {
+        if (content == null)
+            return false;
+
+        String[] lines = content.split("\\R");
+        if (lines.length != PLACES)
+            return false;
+
+        long[] names = new long[PLACES];
+        long[] scores = new long[PLACES];
+        for (int i = 0; i < PLACES; i++) {
+            if (!regexScore.matcher(lines[i]).matches())
+                return false;
+            String[] scoreLine = lines[i].split("=");
+            try {
+                names[i] = Leaderboard.packName(scoreLine[0]);
+                scores[i] = Long.parseLong(scoreLine[1]);
+            } catch (NumberFormatException ex) {
+                return false;
+            }
         }
 
-        //If the .highscores file is corrupted or missing fill up the top 10 with empty high scores
-        if (fileError) {
-            highScores[0] = new PersonalScore("John_Doe", 600000);
-            highScores[1] = new PersonalScore("John_Doe", 600000);
-            highScores[2] = new PersonalScore("John_Doe", 600000);
-            highScores[3] = new PersonalScore("John_Doe", 600000);
-            highScores[4] = new PersonalScore("John_Doe", 600000);
-            highScores[5] = new PersonalScore("John_Doe", 600000);
-            highScores[6] = new PersonalScore("John_Doe", 600000);
-            highScores[7] = new PersonalScore("John_Doe", 600000);
-            highScores[8] = new PersonalScore("John_Doe", 600000);
-            highScores[9] = new PersonalScore("John_Doe", 600000);
-            throw (new IOException("Corrupted or missing .highscores file"));
+        long placeholder = Leaderboard.packName(PLACEHOLDER_NAME);
+        for (int i = 0; i < PLACES; i++) {
+            if (names[i] != placeholder || scores[i] != PLACEHOLDER_SCORE)
+                store.submit(category, scores[i], names[i]);
         }
+        return true;
     }
 
     /**
-     * Saves the top 10 high scores into the .highscores file.
-     * Creates the file if it does not exist.
+     * Ask the server for the top 10 of the category, and for the place of a run, without
+     * waiting for the answers. Each answer is read into a new leaderboard or place, which only
+     * replaces the local copy once the whole answer is valid. Does nothing without a server.
+     *
+     * @param score    score of the run to be placed, negative for none
+     * @param listener told on the Event Dispatch Thread after each answer, may be null
      */
-    public void save() throws IOException {
-        if (!highScoresFile.exists()) {
-            highScoresFile.createNewFile();
+    public void refresh(long score, Listener listener) {
+        if (server == null)
+            return;
+
+        final int changes = localChanges;
+        get(categoryUri("?from=0&count=" + PLACES)).whenComplete(new BiConsumer<HttpResponse<String>, Throwable>() {
+            @Override
+            public void accept(HttpResponse<String> response, Throwable error) {
+                final Leaderboard board = new Leaderboard();
+                final int runs;
+                try {
+                    runs = parsePage(bodyOf(response, error), board);
+                } catch (IOException ex) {
+                    // keep showing the local copy
+                    System.out.println(ex.getMessage());
+                    return;
+                }
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        // a run added meanwhile may be missing from the answer
+                        if (localChanges != changes)
+                            return;
+                        highScores = board;
+                        serverRuns = runs;
+                        if (listener != null)
+                            listener.changed();
+                    }
+                });
+            }
+        });
+
+        if (score < 0)
+            return;
+        get(categoryUri("/rank?score=" + score)).whenComplete(new BiConsumer<HttpResponse<String>, Throwable>() {
+            @Override
+            public void accept(HttpResponse<String> response, Throwable error) {
+                final int place;
+                final int runs;
+                try {
+                    String[] parts = bodyOf(response, error).trim().split(" ");
+                    place = Integer.parseInt(parts[0]);
+                    runs = Integer.parseInt(parts[1]);
+                } catch (IOException | IllegalArgumentException | IndexOutOfBoundsException ex) {
+                    // fall back on the local copy
+                    System.out.println(ex.getMessage());
+                    return;
+                }
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        rankedScore = score;
+                        rankedPlace = place;
+                        serverRuns = Math.max(serverRuns, runs);
+                        if (listener != null)
+                            listener.changed();
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Read the answer to a page request into a leaderboard.
+     *
+     * @param answer body of the answer
+     * @param board  empty leaderboard to be filled
+     * @return number of runs on the server
+     * @throws IOException if the answer isn't valid
+     */
+    private int parsePage(String answer, Leaderboard board) throws IOException {
+        String[] lines = answer.split("\\R");
+        try {
+            int runs = Integer.parseInt(lines[0]);
+            for (int i = 1; i < lines.length; i++) {
+                int separator = lines[i].lastIndexOf('=');
+                board.insert(Long.parseLong(lines[i].substring(separator + 1)),
+                        Leaderboard.packName(lines[i].substring(0, separator)));
+            }
+            return runs;
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            throw new IOException("Invalid answer from " + server, ex);
         }
-        highScoresFile.setWritable(true);
-        writer = new PrintWriter(highScoresFile);
+    }
+
+    /**
+     * Get the address of a request about the category.
+     *
+     * @param rest rest of the address after the category
+     * @return address of the request
+     */
+    private URI categoryUri(String rest) {
+        return server.resolve("/scores/" + URLEncoder.encode(category, StandardCharsets.UTF_8).replace("+", "%20") + rest);
+    }
+
+    /**
+     * Get the client shared by every server leaderboard, creating it on first use.
+     *
+     * @return the client
+     */
+    private static synchronized HttpClient getClient() {
+        if (client == null)
+            client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(TIMEOUT).build();
+        return client;
+    }
 
-        for (int i = 0; i < 10; i++) {
-            writer.println(highScores[i].getName() + "=" + highScores[i].getScore());
+    /**
+     * Send a request to the server without waiting for its answer.
+     *
+     * @param uri address of the request
+     * @return the answer, see bodyOf
+     */
+    private CompletableFuture<HttpResponse<String>> get(URI uri) {
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(TIMEOUT).GET().build();
+        return getClient().sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Get the body of an answer of the server.
+     *
+     * @param response answer of the server, null if there is none
+     * @param error    error of the request, null if it was answered
+     * @return the body
+     * @throws IOException if the server couldn't be reached, didn't answer in time or refused the request
+     */
+    private String bodyOf(HttpResponse<String> response, Throwable error) throws IOException {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            throw new IOException("No answer from " + server + ": " + cause, cause);
         }
+        if (response.statusCode() != 200)
+            throw new IOException("Server answered " + response.statusCode() + ": " + response.body().trim());
+        return response.body();
+    }
+
+    /**
+     * Saves a snapshot of the high scores of every category into the store file.
+     * The file is replaced in one step, keeping the previous one as a backup.
+     * With a server there is nothing to save, the server keeps the runs.
+     */
+    public void save() throws IOException {
+        if (store != null)
+            store.save();
+    }
 
-        writer.flush();
-        writer.close();
+    /**
+     * Get the leaderboard of the category.
+     *
+     * @return the leaderboard
+     */
+    public Leaderboard getLeaderboard() {
+        return highScores;
+    }
 
-        highScoresFile.setWritable(false);
+    /**
+     * Get the number of runs on the leaderboard. With a server, this is the number of runs the
+     * server last reported.
+     *
+     * @return number of runs
+     */
+    public int size() {
+        return server != null ? Math.max(serverRuns, highScores.size()) : highScores.size();
     }
 
     /**
@@ -109,16 +359,21 @@ public class HighScoresControl {
      * @return highest score
      */
     public long getHighScore() {
-        return highScores[0].getScore();
+        return highScores.getScore(0);
     }
 
     /**
-     * Get the lowest high score.
+     * Get the place a new score would take, after the runs with the same score. With a server,
+     * this is the place the server gave for the score if refresh asked for it, otherwise the
+     * place on the local copy.
      *
-     * @return lowest high score
+     * @param score number of points scored
+     * @return place of the score, 0 for the first
      */
-    public long getLowScore() {
-        return highScores[9].getScore();
+    public int getPlaceOf(long score) {
+        if (server != null && score == rankedScore)
+            return rankedPlace;
+        return highScores.rankOf(score);
     }
 
     /**
@@ -128,7 +383,7 @@ public class HighScoresControl {
      * @return name of scorer
      */
     public String getName(int place) {
-        return highScores[place].getName();
+        return Leaderboard.unpackName(highScores.getName(place));
     }
 
     /**
@@ -138,63 +393,69 @@ public class HighScoresControl {
      * @return number of points scored
      */
     public long getScore(int place) {
-        return highScores[place].getScore();
+        return highScores.getScore(place);
     }
 
     /**
-     * Set the name of the scorer and the number of point of a high score at a certain position.
+     * Copy the scores from a position on, as many as fit in the arrays or as there are.
      *
-     * @param place positon of score
-     * @param name  name of the scorer
-     * @param score number of points scored
+     * @param from   position of the first score
+     * @param scores numbers of points to be filled
+     * @param names  names of the scorers to be filled
+     * @return number of scores copied
      */
-    public void setHighScore(int place, String name, long score) {
-        highScores[place] = new PersonalScore(name, score);
+    public int getPage(int from, long[] scores, String[] names) {
+        long[] packed = new long[names.length];
+        int copied = highScores.page(from, scores, packed);
+        for (int i = 0; i < copied; i++) {
+            names[i] = Leaderboard.unpackName(packed[i]);
+        }
+        return copied;
     }
 
     /**
-     * Contains a single personal high score with name and score.
+     * Add a run to the leaderboard without waiting for it to be written. The run goes through the
+     * submitter of the store, costing one append to the journal. With a server, the run is added
+     * to the local copy and sent to the server in the background.
+     *
+     * @param name     name of the scorer
+     * @param score    number of points scored
+     * @param callback told on the Event Dispatch Thread once the run is written or sent, with the
+     *                 place of the run on the local copy with a server, may be null
      */
-    private class PersonalScore {
-        private String name;
-        private long score;
-
-        /**
-         * Creates a personal score with given name and score.
-         *
-         * @param name  the name of the scorer
-         * @param score the score
-         */
-        public PersonalScore(String name, long score) {
-            if (name.equals(""))
-                name = "NoName";
-            this.name = name;
-            this.score = score;
+    public void addScore(String name, long score, ScoreSubmitter.Callback callback) {
+        if (name.equals(""))
+            name = "NoName";
+        if (server == null) {
+            store.getSubmitter().submit(category, score, Leaderboard.packName(name), callback);
+            return;
         }
 
-        /**
-         * Creates an empty score with name "empty" and score 0
-         */
-        public PersonalScore() {
-            this("empty", 0);
-        }
-
-        /**
-         * Gets the scorer's name
-         *
-         * @return the scorer's name
-         */
-        public String getName() {
-            return name;
-        }
-
-        /**
-         * Gets the score
-         *
-         * @return the score
-         */
-        public long getScore() {
-            return score;
-        }
+        final int place = highScores.insert(score, Leaderboard.packName(name));
+        localChanges++;
+        HttpRequest request = HttpRequest.newBuilder(categoryUri("")).timeout(TIMEOUT)
+                .POST(HttpRequest.BodyPublishers.ofString(name + "=" + score)).build();
+        getClient().sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete(new BiConsumer<HttpResponse<String>, Throwable>() {
+                    @Override
+                    public void accept(HttpResponse<String> response, Throwable error) {
+                        IOException result = null;
+                        if (error != null)
+                            result = new IOException("Run not sent to " + server + ": " + error.getMessage(), error);
+                        else if (response.statusCode() != 200)
+                            result = new IOException("Run refused by " + server + ": " + response.body().trim());
+                        if (callback != null) {
+                            final IOException resultError = result;
+                            SwingUtilities.invokeLater(new Runnable() {
+                                @Override
+                                public void run() {
+                                    callback.submitted(place, resultError);
+                                }
+                            });
+                        } else if (result != null) {
+                            System.out.println(result.getMessage());
+                        }
+                    }
+                });
     }
-}
\ No newline at end of file
+}
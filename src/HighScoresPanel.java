@@ -12,11 +12,14 @@ import java.util.regex.Pattern;
 /**
  * Creates a high score dialog, displaying the top 10 scores.
  * Adds a new high score if there is one and lets the user assign his name to it.
+ * With a leaderboard server, the local copy is shown first and the table is rebuilt when the
+ * server answers, keeping the name being typed.
  */
 public class HighScoresPanel extends JPanel {
     private JTextField newName;
     private HighScoresControl scores;
     private GamePanel parent;
+    private long newScore;
     private int scorePlace;
 
     /**
@@ -29,7 +32,14 @@ public class HighScoresPanel extends JPanel {
     public HighScoresPanel(GamePanel parent, HighScoresControl scores, long newScore) {
         this.scores = scores;
         this.parent = parent;
-        createPanel(newScore);
+        this.newScore = newScore;
+        createPanel();
+        scores.refresh(newScore > 0 ? newScore : -1, new HighScoresControl.Listener() {
+            @Override
+            public void changed() {
+                rebuildPanel();
+            }
+        });
     }
 
     /**
@@ -56,44 +66,64 @@ public class HighScoresPanel extends JPanel {
         }
     }
 
+    /**
+     * Create the panel again from the current high scores, unless the new score was already entered.
+     */
+    private void rebuildPanel() {
+        if (newName != null && !newName.isEditable())
+            return;
+        boolean typing = newName != null && newName.isFocusOwner();
+        removeAll();
+        createPanel();
+        revalidate();
+        repaint();
+        if (typing)
+            newName.requestFocusInWindow();
+    }
+
     /**
      * Create the panel displaying the high scores.
      * Add new high score if necessary
-     *
-     * @param newScore the new high score
      */
-    private void createPanel(long newScore) {
+    private void createPanel() {
+        int places = HighScoresControl.PLACES;
+        long[] topScores = new long[places];
+        String[] topNames = new String[places];
+        int shown = scores.getPage(0, topScores, topNames);
+
+        //a new score below the top 10 gets a row of its own under it
+        scorePlace = newScore > 0 ? scores.getPlaceOf(newScore) : -1;
+        int rows = scorePlace >= places ? places + 1 : places;
+
         //set up the panels and their layouts
         setLayout(new BoxLayout(this, BoxLayout.LINE_AXIS));
-        setPreferredSize(new Dimension(160, 185));
+        setPreferredSize(new Dimension(160, 185 * (rows + 1) / (places + 1)));
 
         JPanel placePanel = new JPanel();
         placePanel.setOpaque(false);
-        placePanel.setLayout(new GridLayout(11, 1));
+        placePanel.setLayout(new GridLayout(rows + 1, 1));
 
         JPanel namePanel = new JPanel();
         namePanel.setOpaque(false);
-        namePanel.setLayout(new GridLayout(11, 1));
+        namePanel.setLayout(new GridLayout(rows + 1, 1));
 
         JPanel scorePanel = new JPanel();
         scorePanel.setOpaque(false);
-        scorePanel.setLayout(new GridLayout(11, 1));
+        scorePanel.setLayout(new GridLayout(rows + 1, 1));
 
         //add the title row
         placePanel.add(new JLabel("No."));
         namePanel.add(new JLabel("         NAME"));
         scorePanel.add(new JLabel("SCORE"));
 
-        for (int i = 0; i < 10; i++) {
+        for (int i = 0; i < places; i++) {
             placePanel.add(new JLabel(Integer.toString(i + 1) + "."));
         }
 
         //if no new score, show the current top 10
-        if (newScore >= scores.getLowScore() || newScore <= 0) {
-            for (int i = 0; i < 10; i++) {
-                namePanel.add(new JLabel(scores.getName(i)));
-                long tempScore = scores.getScore(i);
-                scorePanel.add(new JLabel("  " + String.format("%02d:%02d:%02d", tempScore / 1000 / 60, tempScore / 1000 % 60, tempScore % 1000 / 10)));
+        if (scorePlace < 0) {
+            for (int i = 0; i < places; i++) {
+                addScore(namePanel, scorePanel, i < shown ? topNames[i] : "", i < shown ? topScores[i] : -1);
             }
         }
 
@@ -101,58 +131,29 @@ public class HighScoresPanel extends JPanel {
         else {
             JPanel newNamePanel = new JPanel();
             newNamePanel.setLayout(new BoxLayout(newNamePanel, BoxLayout.LINE_AXIS));
-            newName = new JTextField(9);
-            ((AbstractDocument) newName.getDocument()).setDocumentFilter(new CustomDocumentFilter());
-            newName.requestFocusInWindow();
+            if (newName == null)
+                createNameField();
+            newNamePanel.add(newName);
+            newNamePanel.setPreferredSize(new Dimension(100, 5));
 
-            //add the score at it's place and rearrange the rest of the scores
-            for (int i = 0; i < 10; i++) {
-                if (newScore < scores.getScore(i)) {
-                    scorePlace = i;
-                    for (int j = 9; j > i; j--) {
-                        scores.setHighScore(j, scores.getName(j - 1), scores.getScore(j - 1));
-                    }
-                    break;
+            //display the top 10 with the new score at its place, the scores after it move down
+            int next = 0;
+            for (int i = 0; i < places; i++) {
+                if (i == scorePlace) {
+                    namePanel.add(newNamePanel);
+                    addScore(null, scorePanel, null, newScore);
+                } else {
+                    addScore(namePanel, scorePanel, next < shown ? topNames[next] : "", next < shown ? topScores[next] : -1);
+                    next++;
                 }
             }
 
-            //display the scores before the new one
-            for (int i = 0; i < scorePlace; i++) {
-                namePanel.add(new JLabel(scores.getName(i)));
-                long tempScore = scores.getScore(i);
-                scorePanel.add(new JLabel("  " + String.format("%02d:%02d:%02d", tempScore / 1000 / 60, tempScore / 1000 % 60, tempScore % 1000 / 10)));
-            }
-
-            //display the new score with a space to assign a name to it
-            newNamePanel.add(newName);
-            newNamePanel.setPreferredSize(new Dimension(100, 5));
-            namePanel.add(newNamePanel);
-            scorePanel.add(new JLabel("  " + String.format("%02d:%02d:%02d", newScore / 1000 / 60, newScore / 1000 % 60, newScore % 1000 / 10)));
-
-            //display the scores after the new one
-            for (int i = scorePlace + 1; i < 10; i++) {
-                namePanel.add(new JLabel(scores.getName(i)));
-                long tempScore = scores.getScore(i);
-                scorePanel.add(new JLabel("  " + String.format("%02d:%02d:%02d", tempScore / 1000 / 60, tempScore / 1000 % 60, tempScore % 1000 / 10)));
+            //display the new score with its rank under the top 10
+            if (scorePlace >= places) {
+                placePanel.add(new JLabel(Integer.toString(scorePlace + 1) + "."));
+                namePanel.add(newNamePanel);
+                addScore(null, scorePanel, null, newScore);
             }
-
-            //when a name is typed and Enter is pressed finalize the field and save the score
-            newName.addActionListener(new ActionListener() {
-                @Override
-                public void actionPerformed(ActionEvent e) {
-                    if (!newName.getText().isEmpty()) {
-                        scores.setHighScore(scorePlace, newName.getText(), newScore);
-                        try {
-                            scores.save();
-                        } catch (IOException e1) {
-                            e1.printStackTrace();
-                        }
-                        parent.remove(HighScoresPanel.this);
-                        parent.revalidate();
-                        parent.repaint();
-                    }
-                }
-            });
         }
 
         //add the objects to the mainPanel and shape it
@@ -165,6 +166,53 @@ public class HighScoresPanel extends JPanel {
         add(Box.createRigidArea(new Dimension(5, 0)));
     }
 
+    /**
+     * Create the field the name of the new score is typed in, kept when the panel is rebuilt.
+     */
+    private void createNameField() {
+        newName = new JTextField(9);
+        ((AbstractDocument) newName.getDocument()).setDocumentFilter(new CustomDocumentFilter());
+        newName.requestFocusInWindow();
+
+        //when a name is typed and Enter is pressed finalize the field and save the score
+        newName.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (!newName.getText().isEmpty()) {
+                    newName.setEditable(false);
+                    scores.addScore(newName.getText(), newScore, new ScoreSubmitter.Callback() {
+                        @Override
+                        public void submitted(int place, IOException error) {
+                            // the run stays on the leaderboard, only writing or sending it failed
+                            if (error != null)
+                                System.out.println(error.getMessage());
+                        }
+                    });
+                    parent.remove(HighScoresPanel.this);
+                    parent.revalidate();
+                    parent.repaint();
+                }
+            }
+        });
+    }
+
+    /**
+     * Add a row of the table, leaving the name out if there is no name panel.
+     *
+     * @param namePanel  column of the names, may be null
+     * @param scorePanel column of the scores
+     * @param name       name of the scorer
+     * @param score      time in milliseconds, negative for an empty row
+     */
+    private void addScore(JPanel namePanel, JPanel scorePanel, String name, long score) {
+        if (namePanel != null)
+            namePanel.add(new JLabel(name));
+        if (score < 0)
+            scorePanel.add(new JLabel(""));
+        else
+            scorePanel.add(new JLabel("  " + String.format("%02d:%02d:%02d", score / 1000 / 60, score / 1000 % 60, score % 1000 / 10)));
+    }
+
 
     // Filter for the newName text field. Only alphabetical,numerical ,"_" and "-" characters can be entered up to 9 characters.
     private class CustomDocumentFilter extends DocumentFilter {
@@ -199,5 +247,5 @@ public class HighScoresPanel extends JPanel {
     }
 
     // background image
-    private final Image bgIMG = new ImageIcon(getClass().getResource("winbg.jpg")).getImage();
+    private final Image bgIMG = Assets.image("winbg.jpg");
 }
\ No newline at end of file
@@ -0,0 +1,385 @@
+import java.util.Arrays;
+
+/**
+ * Finds shortest solutions to levels with A* or IDA*, guided by a PlankHeuristic.
+ * <p>
+ * Both searches apply the same key presses as LevelSolver and return the same solution lengths,
+ * while expanding only the states the heuristic can't rule out. A* keeps every generated state;
+ * IDA* only keeps the current path plus a transposition table of a fixed size, so it runs in a
+ * memory budget chosen by the caller. It walks a single GameState, applying each action on the
+ * way down and undoing it on the way back, so no board is ever copied.
+ */
+public class InformedSolver {
+    private static final int FOUND = -1;
+
+    private final GameState level;
+    private final StateCodec codec;
+    private final PlankHeuristic heuristic;
+
+    // A* nodes - key, parent node, action taken, cost from the start and estimated total cost
+    private long[] nodeKeys;
+    private int[] nodeParents;
+    private byte[] nodeActions;
+    private int[] nodeCosts;
+    private int[] nodeTotals;
+    private int nodeCount;
+
+    // A* open list - binary heap of node indices
+    private int[] heap;
+    private int heapSize;
+
+    // A* cost of the cheapest path found to each state, by key, in an open-addressing table
+    private long[] bestKeys;
+    private int[] bestCosts;
+    private int bestCount;
+
+    // IDA* path - the state at the current depth, the action taken at each depth and the legal
+    // actions of each depth (depth * MAX_ACTIONS)
+    private GameState node;
+    private int[] pathActions;
+    private int[] candidates;
+    private int pathLength;
+    private long expanded;
+
+    // IDA* transposition table - iteration << 16 | cost of the cheapest visit in the iteration of each key
+    private TranspositionTable table;
+    private int iteration;
+
+    /**
+     * Constructor. Prepares a solver for a level.
+     *
+     * @param level state of the level, as copied from a LevelSource
+     */
+    public InformedSolver(GameState level) {
+        this.level = new GameState();
+        this.level.copyFrom(level);
+        this.codec = new StateCodec(level);
+        this.heuristic = new PlankHeuristic(level, codec);
+    }
+
+    /**
+     * Search the level with A* for a shortest solution.
+     * <p>
+     * The heuristic is admissible but not shown to be consistent, so a state reached again by a
+     * cheaper path is searched again rather than skipped.
+     *
+     * @return the solution found, with the search statistics
+     */
+    public Solution solveAStar() {
+        long startTime = System.nanoTime();
+        nodeKeys = new long[1024];
+        nodeParents = new int[1024];
+        nodeActions = new byte[1024];
+        nodeCosts = new int[1024];
+        nodeTotals = new int[1024];
+        heap = new int[1024];
+        nodeCount = heapSize = 0;
+        bestKeys = new long[1024];
+        bestCosts = new int[1024];
+        bestCount = 0;
+
+        GameState node = new GameState();
+        int[] actions = new int[GameState.MAX_ACTIONS];
+        long expanded = 0;
+
+        long startKey = codec.encode(level);
+        int h = heuristic.estimate(level);
+        if (h < PlankHeuristic.UNREACHABLE && improve(startKey, 0))
+            push(startKey, -1, 0, 0, h);
+
+        while (heapSize > 0) {
+            int current = pop();
+            int cost = nodeCosts[current];
+            // a cheaper path to the state was found after this node was pushed
+            if (cost > bestCost(nodeKeys[current]))
+                continue;
+
+            codec.decode(nodeKeys[current], node);
+            if (node.hasWon()) {
+                return new Solution("A*", buildPath(current), expanded, getAStarMemory(), System.nanoTime() - startTime);
+            }
+            expanded++;
+
+            // try each action on the node itself and take it back after estimating the child
+            int count = node.legalActions(actions);
+            for (int i = 0; i < count; i++) {
+                int action = actions[i];
+                node.apply(action);
+                long key = codec.encode(node);
+                if (improve(key, cost + 1)) {
+                    h = heuristic.estimate(node);
+                    if (h < PlankHeuristic.UNREACHABLE)
+                        push(key, current, action, cost + 1, cost + 1 + h);
+                }
+                node.undo(action);
+            }
+        }
+
+        return new Solution("A*", null, expanded, getAStarMemory(), System.nanoTime() - startTime);
+    }
+
+    /**
+     * Get the memory taken by the A* nodes, open list and best costs.
+     *
+     * @return size of the arrays in bytes
+     */
+    private long getAStarMemory() {
+        return 25L * nodeKeys.length + 4L * heap.length + 12L * bestKeys.length + heuristic.getMemoryBytes();
+    }
+
+    /**
+     * Get the cost of the cheapest path found to a state.
+     *
+     * @param key key of the state
+     * @return number of actions from the start, Integer.MAX_VALUE if the state wasn't reached
+     */
+    private int bestCost(long key) {
+        int slot = StateSet.hash(key) & (bestKeys.length - 1);
+        while (bestCosts[slot] != 0) {
+            if (bestKeys[slot] == key)
+                return bestCosts[slot] - 1;
+            slot = (slot + 1) & (bestKeys.length - 1);
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Record a path to a state if it is cheaper than every path found before.
+     *
+     * @param key  key of the state
+     * @param cost number of actions from the start
+     * @return true if the path is the cheapest so far
+     */
+    private boolean improve(long key, int cost) {
+        int slot = StateSet.hash(key) & (bestKeys.length - 1);
+        while (bestCosts[slot] != 0) {
+            if (bestKeys[slot] == key) {
+                if (bestCosts[slot] - 1 <= cost)
+                    return false;
+                bestCosts[slot] = cost + 1;
+                return true;
+            }
+            slot = (slot + 1) & (bestKeys.length - 1);
+        }
+        // costs are kept one higher, so 0 marks a free slot
+        bestKeys[slot] = key;
+        bestCosts[slot] = cost + 1;
+        if (++bestCount > bestKeys.length / 2)
+            growBest();
+        return true;
+    }
+
+    /**
+     * Double the table of best costs and re-insert every state.
+     */
+    private void growBest() {
+        long[] oldKeys = bestKeys;
+        int[] oldCosts = bestCosts;
+        bestKeys = new long[oldKeys.length << 1];
+        bestCosts = new int[oldKeys.length << 1];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldCosts[i] == 0)
+                continue;
+            int slot = StateSet.hash(oldKeys[i]) & (bestKeys.length - 1);
+            while (bestCosts[slot] != 0) {
+                slot = (slot + 1) & (bestKeys.length - 1);
+            }
+            bestKeys[slot] = oldKeys[i];
+            bestCosts[slot] = oldCosts[i];
+        }
+    }
+
+    /**
+     * Search the level with IDA* for a shortest solution, using a fixed amount of memory.
+     * The transposition table keeps the entries with the most search left below them.
+     *
+     * @param memoryBudget bytes to spend on the transposition table
+     * @return the solution found, with the search statistics
+     */
+    public Solution solveIdaStar(long memoryBudget) {
+        return solveIdaStar(memoryBudget, TranspositionTable.DEPTH_PREFERRED);
+    }
+
+    /**
+     * Search the level with IDA* for a shortest solution, using a fixed amount of memory.
+     *
+     * @param memoryBudget bytes to spend on the transposition table
+     * @param policy       replacement policy of the transposition table
+     * @return the solution found, with the search statistics
+     */
+    public Solution solveIdaStar(long memoryBudget, int policy) {
+        long startTime = System.nanoTime();
+        table = TranspositionTable.withBudget(memoryBudget, policy);
+        iteration = 0;
+
+        node = new GameState();
+        node.copyFrom(level);
+        pathActions = new int[256];
+        candidates = new int[256 * GameState.MAX_ACTIONS];
+        expanded = 0;
+
+        int bound = heuristic.estimate(level);
+        while (bound < PlankHeuristic.UNREACHABLE) {
+            // tag the table entries with the iteration, so older ones are ignored
+            if (++iteration > 0x7FFF) {
+                table.clear();
+                iteration = 1;
+            }
+
+            int next = search(0, 0, bound);
+            if (next == FOUND) {
+                long memory = table.getMemoryBytes() + 4L * pathActions.length + heuristic.getMemoryBytes();
+                return new Solution("IDA*", Arrays.copyOf(pathActions, pathLength), expanded, memory, System.nanoTime() - startTime);
+            }
+            bound = next;
+        }
+
+        long memory = table.getMemoryBytes() + 4L * pathActions.length + heuristic.getMemoryBytes();
+        return new Solution("IDA*", null, expanded, memory, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Depth-first search below a node of the IDA* path, up to a cost bound.
+     *
+     * @param depth depth of the node
+     * @param cost  number of actions from the start to the node
+     * @param bound largest total cost searched in this iteration
+     * @return FOUND if the win cell was reached, otherwise the smallest total cost over the bound
+     */
+    private int search(int depth, int cost, int bound) {
+        int total = cost + heuristic.estimate(node);
+        if (total > bound)
+            return total;
+        if (node.hasWon()) {
+            pathLength = depth;
+            return FOUND;
+        }
+
+        // skip the node if it was already searched this iteration with a lower or equal cost
+        long key = node.stateHash();
+        long visit = table.probe(key);
+        if (visit >= 0 && visit >>> 16 == iteration && (visit & 0xFFFF) <= cost)
+            return PlankHeuristic.UNREACHABLE;
+        table.store(key, bound - cost, iteration << 16 | cost);
+        expanded++;
+
+        if (depth == pathActions.length) {
+            pathActions = Arrays.copyOf(pathActions, depth * 2);
+            candidates = Arrays.copyOf(candidates, depth * 2 * GameState.MAX_ACTIONS);
+        }
+
+        int min = PlankHeuristic.UNREACHABLE;
+        int first = depth * GameState.MAX_ACTIONS;
+        int count = node.legalActions(candidates, first);
+        for (int i = 0; i < count; i++) {
+            int action = candidates[first + i];
+
+            // two turns in a row are never better than one
+            if (depth > 0 && GameState.actionKind(action) == GameState.TURN && GameState.actionKind(pathActions[depth - 1]) == GameState.TURN)
+                continue;
+
+            pathActions[depth] = action;
+            node.apply(action);
+            int result = search(depth + 1, cost + 1, bound);
+            if (result == FOUND)
+                return FOUND;
+            node.undo(action);
+            min = Math.min(min, result);
+        }
+        return min;
+    }
+
+    /**
+     * Get the transposition table of the last IDA* run, with its load and collision statistics.
+     *
+     * @return the table, null before the first IDA* run
+     */
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Add a node to the A* open list.
+     *
+     * @param key    key of the state
+     * @param parent node the state was reached from, -1 for the start
+     * @param action action taken from the parent
+     * @param cost   number of actions from the start
+     * @param total  cost plus the estimate of the remaining actions
+     */
+    private void push(long key, int parent, int action, int cost, int total) {
+        if (nodeCount == nodeKeys.length) {
+            int capacity = nodeCount * 2;
+            nodeKeys = Arrays.copyOf(nodeKeys, capacity);
+            nodeParents = Arrays.copyOf(nodeParents, capacity);
+            nodeActions = Arrays.copyOf(nodeActions, capacity);
+            nodeCosts = Arrays.copyOf(nodeCosts, capacity);
+            nodeTotals = Arrays.copyOf(nodeTotals, capacity);
+            heap = Arrays.copyOf(heap, capacity);
+        }
+        int node = nodeCount++;
+        nodeKeys[node] = key;
+        nodeParents[node] = parent;
+        nodeActions[node] = (byte) action;
+        nodeCosts[node] = cost;
+        nodeTotals[node] = total;
+
+        // sift up
+        int i = heapSize++;
+        while (i > 0) {
+            int up = (i - 1) >> 1;
+            if (!before(node, heap[up]))
+                break;
+            heap[i] = heap[up];
+            i = up;
+        }
+        heap[i] = node;
+    }
+
+    /**
+     * Remove the best node from the A* open list.
+     *
+     * @return the node with the lowest total cost
+     */
+    private int pop() {
+        int top = heap[0];
+        int last = heap[--heapSize];
+
+        // sift down
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize)
+                break;
+            if (child + 1 < heapSize && before(heap[child + 1], heap[child]))
+                child++;
+            if (!before(heap[child], last))
+                break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return top;
+    }
+
+    // order of the open list - lowest total first, deepest first among equal totals
+    private boolean before(int a, int b) {
+        if (nodeTotals[a] != nodeTotals[b])
+            return nodeTotals[a] < nodeTotals[b];
+        return nodeCosts[a] > nodeCosts[b];
+    }
+
+    /**
+     * Follow the parents of an A* node back to the start.
+     *
+     * @param node final node
+     * @return the actions leading from the start to the node
+     */
+    private int[] buildPath(int node) {
+        int[] actions = new int[nodeCosts[node]];
+        for (int i = node; nodeParents[i] >= 0; i = nodeParents[i]) {
+            actions[nodeCosts[i] - 1] = nodeActions[i];
+        }
+        return actions;
+    }
+}
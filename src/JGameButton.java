@@ -31,6 +31,6 @@ public class JGameButton extends JButton {
     }
 
     // load resources
-    private final ImageIcon buttonIcon = new ImageIcon(getClass().getResource("buttons/menubutton.png"));
-    private final ImageIcon buttonROIcon = new ImageIcon(getClass().getResource("buttons/menubuttonr.png"));
+    private final ImageIcon buttonIcon = Assets.icon("buttons/menubutton.png");
+    private final ImageIcon buttonROIcon = Assets.icon("buttons/menubuttonr.png");
 }
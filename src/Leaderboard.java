@@ -0,0 +1,368 @@
+import java.util.Arrays;
+
+/**
+ * All the runs of a category, ordered by score, lowest time first.
+ * <p>
+ * The runs are kept in a weight-balanced binary tree stored in primitive arrays, one slot per
+ * run. Every node knows the size of its subtree, so adding a run, finding the rank of a score and
+ * finding the run on a rank all take O(log n), and a page of k runs takes O(log n + k).
+ * A run with the same score as earlier runs is ranked after them.
+ * <p>
+ * Names are packed into a long, 6 bits per character, see packName.
+ */
+public class Leaderboard {
+    public static final int MAX_NAME_LENGTH = 10;
+
+    private static final String ALPHABET = "-0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ_abcdefghijklmnopqrstuvwxyz";
+    // a subtree may be at most DELTA times the size of its sibling, see Adams' balanced trees
+    private static final int DELTA = 3;
+    private static final int RATIO = 2;
+    private static final int NIL = 0;
+
+    // node 0 is NIL, with a size of 0
+    private long[] scores;
+    private long[] names;
+    private int[] left;
+    private int[] right;
+    private int[] sizes;
+    private int count;
+    private int root = NIL;
+
+    // nodes of the path to the current node while walking the tree in order
+    private int[] path = new int[128];
+
+    /**
+     * Constructor. Creates an empty leaderboard.
+     */
+    public Leaderboard() {
+        this(16);
+    }
+
+    /**
+     * Constructor. Creates an empty leaderboard with room for a number of runs.
+     *
+     * @param capacity number of runs before the arrays have to grow
+     */
+    public Leaderboard(int capacity) {
+        int length = Math.max(capacity, 1) + 1;
+        scores = new long[length];
+        names = new long[length];
+        left = new int[length];
+        right = new int[length];
+        sizes = new int[length];
+    }
+
+    /**
+     * Pack a name into a long. The length takes the top 4 bits and every character 6 bits.
+     *
+     * @param name name of up to 10 letters, digits, '_' or '-'
+     * @return packed name
+     */
+    public static long packName(String name) {
+        if (name.length() > MAX_NAME_LENGTH)
+            throw new IllegalArgumentException("Name too long: " + name);
+        long packed = (long) name.length() << 60;
+        for (int i = 0; i < name.length(); i++) {
+            int code = ALPHABET.indexOf(name.charAt(i));
+            if (code < 0)
+                throw new IllegalArgumentException("Invalid character in name: " + name);
+            packed |= (long) code << (6 * i);
+        }
+        return packed;
+    }
+
+    /**
+     * Unpack a name packed by packName.
+     *
+     * @param packed packed name
+     * @return the name
+     */
+    public static String unpackName(long packed) {
+        int length = Math.min((int) (packed >>> 60), MAX_NAME_LENGTH);
+        char[] name = new char[length];
+        for (int i = 0; i < length; i++) {
+            name[i] = ALPHABET.charAt((int) (packed >>> (6 * i)) & 63);
+        }
+        return new String(name);
+    }
+
+    /**
+     * Get the number of runs.
+     *
+     * @return number of runs
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Add a run.
+     *
+     * @param score score of the run
+     * @param name  packed name of the player
+     * @return rank of the run, 0 for the best
+     */
+    public synchronized int insert(long score, long name) {
+        int rank = rankOf(score);
+        root = insert(root, newNode(score, name));
+        return rank;
+    }
+
+    /**
+     * Get the rank a new run with a score would take, which is the number of runs with the same
+     * or a better score.
+     *
+     * @param score score of the run
+     * @return rank, 0 for the best
+     */
+    public synchronized int rankOf(long score) {
+        int rank = 0;
+        int node = root;
+        while (node != NIL) {
+            if (score < scores[node]) {
+                node = left[node];
+            } else {
+                rank += sizes[left[node]] + 1;
+                node = right[node];
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Get the score of the run on a rank.
+     *
+     * @param rank rank of the run, 0 for the best
+     * @return score
+     */
+    public synchronized long getScore(int rank) {
+        return scores[select(rank)];
+    }
+
+    /**
+     * Get the name of the player of the run on a rank.
+     *
+     * @param rank rank of the run, 0 for the best
+     * @return packed name
+     */
+    public synchronized long getName(int rank) {
+        return names[select(rank)];
+    }
+
+    /**
+     * Copy the runs from a rank on, as many as fit in the arrays or as there are.
+     *
+     * @param from       rank of the first run
+     * @param pageScores scores to be filled
+     * @param pageNames  packed names to be filled
+     * @return number of runs copied
+     */
+    public synchronized int page(int from, long[] pageScores, long[] pageNames) {
+        int wanted = Math.min(pageScores.length, pageNames.length);
+        if (from < 0 || from >= count || wanted == 0)
+            return 0;
+
+        // walk down to the first run, keeping the nodes whose left subtree is entered
+        int depth = 0;
+        int node = root;
+        int rank = from;
+        while (true) {
+            int leftSize = sizes[left[node]];
+            if (rank < leftSize) {
+                path[depth++] = node;
+                node = left[node];
+            } else if (rank > leftSize) {
+                rank -= leftSize + 1;
+                node = right[node];
+            } else {
+                path[depth++] = node;
+                break;
+            }
+        }
+
+        // then walk on in order
+        int copied = 0;
+        while (copied < wanted && depth > 0) {
+            node = path[--depth];
+            pageScores[copied] = scores[node];
+            pageNames[copied] = names[node];
+            copied++;
+            for (node = right[node]; node != NIL; node = left[node]) {
+                path[depth++] = node;
+            }
+        }
+        return copied;
+    }
+
+    /**
+     * Replace the runs with runs already in order of rank. The tree is built perfectly balanced.
+     *
+     * @param sortedScores scores, lowest first
+     * @param sortedNames  packed names
+     * @param length       number of runs
+     */
+    public synchronized void load(long[] sortedScores, long[] sortedNames, int length) {
+        count = 0;
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            if (i > 0 && sortedScores[i] < sortedScores[i - 1])
+                throw new IllegalArgumentException("Runs are not in order");
+            int node = ++count;
+            scores[node] = sortedScores[i];
+            names[node] = sortedNames[i];
+        }
+        // nodes 1 to count are in order, so the middle of every range is the root of its subtree
+        root = build(1, count);
+    }
+
+    /**
+     * Link the nodes of a range of ranks into a balanced subtree.
+     *
+     * @param first first node
+     * @param last  last node
+     * @return root of the subtree
+     */
+    private int build(int first, int last) {
+        if (first > last)
+            return NIL;
+        int middle = (first + last) >>> 1;
+        left[middle] = build(first, middle - 1);
+        right[middle] = build(middle + 1, last);
+        sizes[middle] = last - first + 1;
+        return middle;
+    }
+
+    /**
+     * Find the node of a rank.
+     *
+     * @param rank rank of the run
+     * @return the node
+     */
+    private int select(int rank) {
+        if (rank < 0 || rank >= count)
+            throw new IndexOutOfBoundsException("Rank " + rank + " of " + count);
+        int node = root;
+        while (true) {
+            int leftSize = sizes[left[node]];
+            if (rank < leftSize) {
+                node = left[node];
+            } else if (rank > leftSize) {
+                rank -= leftSize + 1;
+                node = right[node];
+            } else {
+                return node;
+            }
+        }
+    }
+
+    /**
+     * Take a node for a new run, growing the arrays if needed.
+     *
+     * @param score score of the run
+     * @param name  packed name
+     * @return the node
+     */
+    private int newNode(long score, long name) {
+        ensureCapacity(count + 1);
+        int node = ++count;
+        scores[node] = score;
+        names[node] = name;
+        left[node] = NIL;
+        right[node] = NIL;
+        sizes[node] = 1;
+        return node;
+    }
+
+    /**
+     * Grow the arrays to hold a number of runs.
+     *
+     * @param capacity number of runs
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity < scores.length)
+            return;
+        int length = (int) Math.min(Math.max(capacity + 1L, scores.length * 2L), Integer.MAX_VALUE - 8);
+        scores = Arrays.copyOf(scores, length);
+        names = Arrays.copyOf(names, length);
+        left = Arrays.copyOf(left, length);
+        right = Arrays.copyOf(right, length);
+        sizes = Arrays.copyOf(sizes, length);
+    }
+
+    /**
+     * Add a node to a subtree.
+     *
+     * @param tree root of the subtree
+     * @param node node to be added
+     * @return new root of the subtree
+     */
+    private int insert(int tree, int node) {
+        if (tree == NIL)
+            return node;
+        if (scores[node] < scores[tree])
+            left[tree] = insert(left[tree], node);
+        else
+            right[tree] = insert(right[tree], node);
+        sizes[tree]++;
+        return balance(tree);
+    }
+
+    /**
+     * Restore the balance of a subtree one of whose sides has grown by one.
+     *
+     * @param tree root of the subtree
+     * @return new root of the subtree
+     */
+    private int balance(int tree) {
+        int leftSize = sizes[left[tree]];
+        int rightSize = sizes[right[tree]];
+        if (leftSize + rightSize <= 1)
+            return tree;
+
+        if (rightSize > DELTA * leftSize) {
+            int child = right[tree];
+            if (sizes[left[child]] < RATIO * sizes[right[child]])
+                return rotateLeft(tree);
+            right[tree] = rotateRight(child);
+            return rotateLeft(tree);
+        }
+        if (leftSize > DELTA * rightSize) {
+            int child = left[tree];
+            if (sizes[right[child]] < RATIO * sizes[left[child]])
+                return rotateRight(tree);
+            left[tree] = rotateLeft(child);
+            return rotateRight(tree);
+        }
+        return tree;
+    }
+
+    /**
+     * Rotate a subtree to the left, its right child becoming its root.
+     *
+     * @param tree root of the subtree
+     * @return new root
+     */
+    private int rotateLeft(int tree) {
+        int child = right[tree];
+        right[tree] = left[child];
+        left[child] = tree;
+        sizes[tree] = sizes[left[tree]] + sizes[right[tree]] + 1;
+        sizes[child] = sizes[left[child]] + sizes[right[child]] + 1;
+        return child;
+    }
+
+    /**
+     * Rotate a subtree to the right, its left child becoming its root.
+     *
+     * @param tree root of the subtree
+     * @return new root
+     */
+    private int rotateRight(int tree) {
+        int child = left[tree];
+        left[tree] = right[child];
+        right[child] = tree;
+        sizes[tree] = sizes[left[tree]] + sizes[right[tree]] + 1;
+        sizes[child] = sizes[left[child]] + sizes[right[child]] + 1;
+        return child;
+    }
+}
@@ -0,0 +1,343 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serves the leaderboards of a ScoreStore over HTTP, so the machines of a LAN share one leaderboard.
+ * <p>
+ * Requests, answered in plain text:
+ * <ul>
+ * <li>POST /scores/{category} with "name=score" as body adds a run and answers "place runs"</li>
+ * <li>GET /scores/{category}?from=0&amp;count=10 answers the number of runs, then a "name=score"
+ * line for every run of the page</li>
+ * <li>GET /scores/{category}/rank?score=n answers "place runs" for a run with that score</li>
+ * <li>GET /stats answers the request and journal statistics</li>
+ * </ul>
+ * Places count from 0. Every request runs on a virtual thread where the JVM has them, otherwise
+ * on a pooled thread. Runs of different categories are added in parallel and written to the
+ * journal of the store in groups, see ScoreStore.submit.
+ */
+public class LeaderboardServer {
+    public static final int DEFAULT_PORT = 8765;
+    public static final int MAX_PAGE = 1000;
+
+    private static final int MAX_BODY = 256;
+
+    static {
+        // the JDK server writes the head and body of an answer apart, which Nagle's algorithm
+        // holds up for the delayed acknowledgement of the client, about 40 ms
+        if (System.getProperty("sun.net.httpserver.nodelay") == null)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final ScoreStore store;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    // statistics
+    private final LongAdder submissions = new LongAdder();
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Constructor. Creates a server for a store on an address, not yet started.
+     *
+     * @param store   store holding the leaderboards
+     * @param address address to listen on, port 0 for any free port
+     * @throws IOException if the address can't be bound
+     */
+    public LeaderboardServer(ScoreStore store, InetSocketAddress address) throws IOException {
+        this.store = store;
+        server = HttpServer.create(address, 0);
+        executor = createExecutor();
+        server.setExecutor(executor);
+
+        server.createContext("/scores/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                handleScores(exchange);
+            }
+        });
+        server.createContext("/stats", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                respond(exchange, 200, report());
+            }
+        });
+    }
+
+    /**
+     * Create the executor of the requests: a virtual thread per request if the JVM has virtual
+     * threads, otherwise a pool of daemon threads that grows with the number of requests.
+     *
+     * @return the executor
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            // no virtual threads before Java 21
+        }
+        final AtomicInteger threads = new AtomicInteger();
+        return Executors.newCachedThreadPool(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "Leaderboard server " + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Start answering requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stop answering requests, letting the ones being answered finish for up to a second.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    /**
+     * Get the port the server listens on.
+     *
+     * @return port number
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Answer a request about the leaderboard of a category.
+     *
+     * @param exchange the request
+     * @throws IOException if the answer can't be sent
+     */
+    private void handleScores(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath().substring("/scores/".length());
+        boolean rank = path.endsWith("/rank");
+        String category = rank ? path.substring(0, path.length() - "/rank".length()) : path;
+        String method = exchange.getRequestMethod();
+
+        try {
+            if (category.isEmpty() || category.indexOf('/') >= 0) {
+                reject(exchange, 404, "Unknown path");
+            } else if (method.equals("POST") && !rank) {
+                submit(exchange, category);
+            } else if (method.equals("GET")) {
+                HashMap<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+                if (rank)
+                    rank(exchange, category, query);
+                else
+                    page(exchange, category, query);
+            } else {
+                reject(exchange, 405, "Method not allowed");
+            }
+        } catch (IllegalArgumentException ex) {
+            // a bad category, name or number
+            reject(exchange, 400, ex.getMessage());
+        }
+    }
+
+    /**
+     * Add the run in the body of a request.
+     *
+     * @param exchange the request
+     * @param category name of the category
+     * @throws IOException if the answer can't be sent
+     */
+    private void submit(HttpExchange exchange, String category) throws IOException {
+        String body = readBody(exchange).trim();
+        int separator = body.lastIndexOf('=');
+        if (separator < 0)
+            throw new IllegalArgumentException("Expected name=score");
+        long name = Leaderboard.packName(body.substring(0, separator));
+        long score = Long.parseLong(body.substring(separator + 1));
+        if (score < 0)
+            throw new IllegalArgumentException("Negative score");
+
+        int place;
+        try {
+            place = store.submit(category, score, name);
+        } catch (IOException ex) {
+            // the run is on the leaderboard, but not yet in the journal
+            reject(exchange, 500, ex.getMessage());
+            return;
+        }
+        submissions.increment();
+        Leaderboard board = store.getLeaderboard(category);
+        int runs;
+        synchronized (board) {
+            runs = board.size();
+        }
+        respond(exchange, 200, place + " " + runs + "\n");
+    }
+
+    /**
+     * Answer the place a score would take.
+     *
+     * @param exchange the request
+     * @param category name of the category
+     * @param query    parameters of the request
+     * @throws IOException if the answer can't be sent
+     */
+    private void rank(HttpExchange exchange, String category, HashMap<String, String> query) throws IOException {
+        long score = Long.parseLong(query.getOrDefault("score", ""));
+        Leaderboard board = store.getLeaderboard(category);
+        int place = 0;
+        int runs = 0;
+        if (board != null) {
+            synchronized (board) {
+                place = board.rankOf(score);
+                runs = board.size();
+            }
+        }
+        queries.increment();
+        respond(exchange, 200, place + " " + runs + "\n");
+    }
+
+    /**
+     * Answer a page of runs.
+     *
+     * @param exchange the request
+     * @param category name of the category
+     * @param query    parameters of the request
+     * @throws IOException if the answer can't be sent
+     */
+    private void page(HttpExchange exchange, String category, HashMap<String, String> query) throws IOException {
+        int from = Integer.parseInt(query.getOrDefault("from", "0"));
+        int count = Integer.parseInt(query.getOrDefault("count", "10"));
+        if (from < 0 || count < 0 || count > MAX_PAGE)
+            throw new IllegalArgumentException("Invalid page");
+
+        Leaderboard board = store.getLeaderboard(category);
+        long[] scores = new long[count];
+        long[] names = new long[count];
+        int runs = 0;
+        int copied = 0;
+        if (board != null) {
+            synchronized (board) {
+                runs = board.size();
+                copied = board.page(from, scores, names);
+            }
+        }
+
+        StringBuilder text = new StringBuilder().append(runs).append('\n');
+        for (int i = 0; i < copied; i++) {
+            text.append(Leaderboard.unpackName(names[i])).append('=').append(scores[i]).append('\n');
+        }
+        queries.increment();
+        respond(exchange, 200, text.toString());
+    }
+
+    /**
+     * Split the query of a request into its parameters.
+     *
+     * @param rawQuery query of the request, may be null
+     * @return parameters by name
+     */
+    private static HashMap<String, String> parseQuery(String rawQuery) {
+        HashMap<String, String> query = new HashMap<>();
+        if (rawQuery == null)
+            return query;
+        for (String parameter : rawQuery.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0)
+                query.put(parameter.substring(0, separator), parameter.substring(separator + 1));
+        }
+        return query;
+    }
+
+    /**
+     * Read the body of a request, which must be short.
+     *
+     * @param exchange the request
+     * @return the body
+     * @throws IOException if the body can't be read
+     */
+    private static String readBody(HttpExchange exchange) throws IOException {
+        byte[] body = new byte[MAX_BODY];
+        int length = 0;
+        try (InputStream in = exchange.getRequestBody()) {
+            int read;
+            while ((read = in.read(body, length, body.length - length)) > 0) {
+                length += read;
+                if (length == body.length)
+                    throw new IllegalArgumentException("Body too long");
+            }
+        }
+        return new String(body, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Answer a request that can't be served.
+     *
+     * @param exchange the request
+     * @param status   HTTP status
+     * @param message  reason
+     * @throws IOException if the answer can't be sent
+     */
+    private void reject(HttpExchange exchange, int status, String message) throws IOException {
+        rejected.increment();
+        respond(exchange, status, message + "\n");
+    }
+
+    /**
+     * Send a plain text answer and end the exchange.
+     *
+     * @param exchange the request
+     * @param status   HTTP status
+     * @param text     answer
+     * @throws IOException if the answer can't be sent
+     */
+    private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Describe the request and journal statistics.
+     *
+     * @return statistics, one per line
+     */
+    public String report() {
+        ScoreJournal journal = store.getJournal();
+        return String.format("%d runs submitted%n%d queries%n%d rejected%n%s%n", submissions.sum(), queries.sum(),
+                rejected.sum(), journal == null ? "no journal" : journal.report());
+    }
+
+    /**
+     * Serve the store of the game to the LAN.
+     *
+     * @param args port to listen on, DEFAULT_PORT if not given
+     * @throws IOException if the port can't be bound
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        LeaderboardServer server = new LeaderboardServer(ScoreStore.getDefault(), new InetSocketAddress(port));
+        server.start();
+        System.out.println("Leaderboard server listening on port " + server.getPort());
+    }
+}
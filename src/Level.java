@@ -0,0 +1,66 @@
+/**
+ * An immutable, ready to play level of a LevelPack.
+ * <p>
+ * The level is held as a complete GameState, so loading it is a copy of a few arrays.
+ */
+public class Level {
+    private final int number;
+    private final GameState template = new GameState();
+
+    /**
+     * Constructor. Takes a copy of a level state.
+     *
+     * @param number number of the level in its pack
+     * @param state  state of the level at its start
+     */
+    Level(int number, GameState state) {
+        this.number = number;
+        template.copyFrom(state);
+    }
+
+    /**
+     * Get the number of the level.
+     *
+     * @return level number, from 1
+     */
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * Copy the starting state of the level into a GameState.
+     *
+     * @param state state to be overwritten
+     */
+    public void copyInto(GameState state) {
+        state.copyFrom(template);
+    }
+
+    /**
+     * Get the content of a cell at the start of the level.
+     *
+     * @param cell index of the cell
+     * @return LAND, WATER, STUMP or PLANK
+     */
+    public int getContent(int cell) {
+        return template.getContent(cell);
+    }
+
+    /**
+     * Get the cell the player starts on.
+     *
+     * @return start cell
+     */
+    public int getStartCell() {
+        return template.getPlayerCell();
+    }
+
+    /**
+     * Get the cell the player has to reach.
+     *
+     * @return win cell
+     */
+    public int getWinCell() {
+        return template.getWinCell();
+    }
+}
@@ -0,0 +1,199 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * A pack of levels, parsed once from a text file into immutable Level objects.
+ * <p>
+ * The file format is described at the top of res/levels.txt, the pack of the built-in levels.
+ * Each level is a "level N" line followed by one line of cell characters per row. Large packs
+ * are better converted to a BinaryLevelPack, which is read on demand rather than parsed.
+ */
+public class LevelPack implements LevelSource {
+    public static final String DEFAULT_PACK = "levels.txt";
+
+    private static LevelPack defaultPack;
+
+    private final Level[] levels;
+
+    /**
+     * Constructor.
+     *
+     * @param levels levels of the pack, in order
+     */
+    LevelPack(Level[] levels) {
+        this.levels = levels;
+    }
+
+    /**
+     * Get the pack of the built-in levels, loading it on first use.
+     *
+     * @return the built-in levels
+     * @throws IllegalStateException if the pack is missing or malformed
+     */
+    public static synchronized LevelPack getDefault() {
+        if (defaultPack == null) {
+            InputStream in = LevelPack.class.getResourceAsStream(DEFAULT_PACK);
+            if (in == null)
+                throw new IllegalStateException("Missing level pack " + DEFAULT_PACK);
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                defaultPack = parse(reader);
+            } catch (IOException ex) {
+                throw new IllegalStateException("Can't read level pack " + DEFAULT_PACK, ex);
+            }
+        }
+        return defaultPack;
+    }
+
+    /**
+     * Parse a text level pack.
+     *
+     * @param reader source of the pack
+     * @return the levels of the pack
+     * @throws IOException              if the source can't be read
+     * @throws IllegalArgumentException if the pack is malformed, naming the faulty line
+     */
+    public static LevelPack parse(Reader reader) throws IOException {
+        BufferedReader in = new BufferedReader(reader);
+        ArrayList<Level> levels = new ArrayList<>();
+        GameState state = new GameState();
+        char[] cells = new char[GameState.CELLS];
+
+        String line;
+        int lineNumber = 0;
+        int row = -1; // row being read, -1 between levels
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            if (line.startsWith(";"))
+                continue;
+
+            if (row < 0) {
+                line = line.trim();
+                if (line.isEmpty())
+                    continue;
+                if (!line.equals("level " + (levels.size() + 1)))
+                    throw new IllegalArgumentException("Line " + lineNumber + ": expected \"level " + (levels.size() + 1) + "\"");
+                row = 0;
+                continue;
+            }
+
+            if (line.length() != GameState.COLUMNS)
+                throw new IllegalArgumentException("Line " + lineNumber + ": a row must have " + GameState.COLUMNS + " cells");
+            line.getChars(0, GameState.COLUMNS, cells, row * GameState.COLUMNS);
+
+            if (++row == GameState.ROWS) {
+                levels.add(compile(levels.size() + 1, cells, state, lineNumber));
+                row = -1;
+            }
+        }
+        if (row >= 0)
+            throw new IllegalArgumentException("Line " + lineNumber + ": level " + (levels.size() + 1) + " is incomplete");
+
+        return new LevelPack(levels.toArray(new Level[0]));
+    }
+
+    @Override
+    public int size() {
+        return levels.length;
+    }
+
+    @Override
+    public boolean copyLevel(int number, GameState state) {
+        Level level = getLevel(number);
+        if (level == null)
+            return false;
+        level.copyInto(state);
+        return true;
+    }
+
+    /**
+     * Get a level of the pack.
+     *
+     * @param number number of the level, from 1
+     * @return the level, null if the pack has no such level
+     */
+    public Level getLevel(int number) {
+        if (number < 1 || number > levels.length)
+            return null;
+        return levels[number - 1];
+    }
+
+    /**
+     * Build a level from its cell characters.
+     *
+     * @param number     number of the level
+     * @param cells      character of each cell
+     * @param state      work state, overwritten
+     * @param lineNumber last line of the level, for error messages
+     * @return the level
+     */
+    private static Level compile(int number, char[] cells, GameState state, int lineNumber) {
+        state.clear();
+        int start = -1, win = -1;
+        for (int cell = 0; cell < GameState.CELLS; cell++) {
+            switch (cells[cell]) {
+                case '#':
+                    state.setTerrain(cell, GameState.LAND);
+                    break;
+                case 'S':
+                    start = cell;
+                    state.setTerrain(cell, GameState.STUMP);
+                    break;
+                case 'W':
+                    win = cell;
+                    state.setTerrain(cell, GameState.STUMP);
+                    break;
+                case 'o':
+                    state.setTerrain(cell, GameState.STUMP);
+                    break;
+                case '.':
+                case '-':
+                case '|':
+                    state.setTerrain(cell, GameState.WATER);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Level " + number + ": unknown cell '" + cells[cell] + "'");
+            }
+        }
+        if (start < 0 || win < 0)
+            throw new IllegalArgumentException("Line " + lineNumber + ": level " + number + " needs a start and a win stump");
+
+        // lay each plank from the stump at its top or left end
+        for (int cell = 0; cell < GameState.CELLS; cell++) {
+            if (!state.isStump(cell))
+                continue;
+            for (int direction = GameState.RIGHT; direction <= GameState.DOWN; direction += 2) {
+                int next = state.getNextCell(cell, direction);
+                if (next < 0 || cells[next] != (direction == GameState.RIGHT ? '-' : '|'))
+                    continue;
+                int end = state.getNextStump(cell, direction);
+                if (!covered(cells, cell, end, cells[next]) || state.placePlank(cell, end) < 0)
+                    throw new IllegalArgumentException("Level " + number + ": plank at cell " + next + " doesn't reach a stump");
+            }
+        }
+
+        // every plank cell must belong to a plank laid above
+        for (int cell = 0; cell < GameState.CELLS; cell++) {
+            if ((cells[cell] == '-' || cells[cell] == '|') != state.isPlank(cell))
+                throw new IllegalArgumentException("Level " + number + ": plank at cell " + cell + " doesn't reach a stump");
+        }
+
+        state.setPlayerCell(start);
+        state.setWinCell(win);
+        return new Level(number, state);
+    }
+
+    // check if every cell strictly between two stumps holds a plank character
+    private static boolean covered(char[] cells, int from, int to, char plank) {
+        int step = GameState.rowOf(from) == GameState.rowOf(to) ? 1 : GameState.COLUMNS;
+        for (int cell = from + step; cell < to; cell += step) {
+            if (cells[cell] != plank)
+                return false;
+        }
+        return to != from;
+    }
+}
@@ -0,0 +1,113 @@
+import java.util.Arrays;
+
+/**
+ * Finds shortest solutions to levels by breadth-first search over the GameState rules.
+ * <p>
+ * Every key press costs one action: turning, stepping over a plank, picking a plank up or
+ * placing it. States are stored as StateCodec keys in primitive arrays, so a level's whole
+ * state space takes a few bytes per state.
+ */
+public class LevelSolver {
+    private final GameState level;
+    private final StateCodec codec;
+
+    // the BFS queue - every stored state with the node it was reached from and the action taken
+    private long[] queueKeys = new long[1024];
+    private int[] queueParents = new int[1024];
+    private byte[] queueActions = new byte[1024];
+
+    /**
+     * Constructor. Prepares a solver for a level.
+     *
+     * @param level state of the level, as copied from a LevelSource
+     */
+    public LevelSolver(GameState level) {
+        this.level = new GameState();
+        this.level.copyFrom(level);
+        this.codec = new StateCodec(level);
+    }
+
+    /**
+     * Search the level breadth-first for a shortest solution.
+     *
+     * @return the solution found, with the search statistics
+     */
+    public Solution solve() {
+        long startTime = System.nanoTime();
+        if (level.hasWon())
+            return new Solution("BFS", new int[0], 0, 0, System.nanoTime() - startTime);
+
+        GameState node = new GameState();
+        int[] actions = new int[GameState.MAX_ACTIONS];
+        StateSet visited = new StateSet(1024);
+
+        long startKey = codec.encode(level);
+        visited.add(startKey);
+        queueKeys[0] = startKey;
+        queueParents[0] = -1;
+        int head = 0, tail = 1;
+        long expanded = 0;
+
+        while (head < tail) {
+            int parent = head++;
+            codec.decode(queueKeys[parent], node);
+            expanded++;
+
+            // try each action on the node itself and take it back after encoding the child
+            int count = node.legalActions(actions);
+            for (int i = 0; i < count; i++) {
+                int action = actions[i];
+                node.apply(action);
+                long key = codec.encode(node);
+                boolean won = node.hasWon();
+                node.undo(action);
+                if (!visited.add(key))
+                    continue;
+
+                if (tail == queueKeys.length)
+                    growQueue();
+                queueKeys[tail] = key;
+                queueParents[tail] = parent;
+                queueActions[tail] = (byte) action;
+                tail++;
+
+                if (won) {
+                    long memory = visited.getMemoryBytes() + 13L * queueKeys.length;
+                    return new Solution("BFS", buildPath(tail - 1), expanded, memory, System.nanoTime() - startTime);
+                }
+            }
+        }
+
+        long memory = visited.getMemoryBytes() + 13L * queueKeys.length;
+        return new Solution("BFS", null, expanded, memory, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Follow the parents of a queue node back to the start.
+     *
+     * @param node index of the final node in the queue
+     * @return the actions leading from the start to the node
+     */
+    private int[] buildPath(int node) {
+        int length = 0;
+        for (int i = node; queueParents[i] >= 0; i = queueParents[i]) {
+            length++;
+        }
+
+        int[] path = new int[length];
+        for (int i = node; queueParents[i] >= 0; i = queueParents[i]) {
+            path[--length] = queueActions[i];
+        }
+        return path;
+    }
+
+    /**
+     * Double the size of the queue.
+     */
+    private void growQueue() {
+        int capacity = queueKeys.length << 1;
+        queueKeys = Arrays.copyOf(queueKeys, capacity);
+        queueParents = Arrays.copyOf(queueParents, capacity);
+        queueActions = Arrays.copyOf(queueActions, capacity);
+    }
+}
@@ -0,0 +1,32 @@
+/**
+ * A numbered collection of levels that can copy any of its levels into a GameState.
+ */
+public interface LevelSource {
+    /**
+     * Get the number of levels.
+     *
+     * @return level count
+     */
+    int size();
+
+    /**
+     * Copy the starting state of a level into a GameState.
+     *
+     * @param number number of the level, from 1
+     * @param state  state to be overwritten
+     * @return true if the level exists and was copied
+     */
+    boolean copyLevel(int number, GameState state);
+
+    /**
+     * Get the built-in levels - the binary pack if it is bundled and was built from the current
+     * text pack, otherwise the text pack.
+     *
+     * @return the built-in levels
+     */
+    static LevelSource getDefault() {
+        if (BinaryLevelPack.isDefaultCurrent())
+            return BinaryLevelPack.getDefault();
+        return LevelPack.getDefault();
+    }
+}
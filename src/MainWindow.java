@@ -27,7 +27,7 @@ public class MainWindow {
 
         mainPanel.add(new MenuPanel(mainPanel), BorderLayout.CENTER);
 
-        window.setIconImage(new ImageIcon(getClass().getResource("icon.png")).getImage());
+        window.setIconImage(Assets.image("icon.png"));
 
         //finalize and show window
         window.setSize(WINDOW_WIDTH, WINDOW_HEIGHT);
@@ -44,9 +44,11 @@ public class MainWindow {
      * @param args not used
      */
     public static void main(String[] args) {
+        // read the high scores of every run once, before the first game
+        ScoreStore.getDefault();
         new MainWindow();
     }
 
     // background image
-    private final Image bgIMG = new ImageIcon(getClass().getResource("Background.jpg")).getImage();
+    private final Image bgIMG = Assets.image("Background.jpg");
 }
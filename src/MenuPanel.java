@@ -219,38 +219,38 @@ public class MenuPanel extends JPanel {
 
     // load resources
     private final ImageIcon lvlIcon[] = {
-            new ImageIcon(getClass().getResource("buttons/lvlbutton1.png")),
-            new ImageIcon(getClass().getResource("buttons/lvlbutton2.png")),
-            new ImageIcon(getClass().getResource("buttons/lvlbutton3.png")),
-            new ImageIcon(getClass().getResource("buttons/lvlbutton4.png"))
+            Assets.icon("buttons/lvlbutton1.png"),
+            Assets.icon("buttons/lvlbutton2.png"),
+            Assets.icon("buttons/lvlbutton3.png"),
+            Assets.icon("buttons/lvlbutton4.png")
     };
 
     private final ImageIcon lvlROIcon[] = {
-            new ImageIcon(getClass().getResource("buttons/lvlbutton1r.png")),
-            new ImageIcon(getClass().getResource("buttons/lvlbutton2r.png")),
-            new ImageIcon(getClass().getResource("buttons/lvlbutton3r.png")),
-            new ImageIcon(getClass().getResource("buttons/lvlbutton4r.png"))
+            Assets.icon("buttons/lvlbutton1r.png"),
+            Assets.icon("buttons/lvlbutton2r.png"),
+            Assets.icon("buttons/lvlbutton3r.png"),
+            Assets.icon("buttons/lvlbutton4r.png")
     };
 
     private final ImageIcon diffIcon[] = {
-            new ImageIcon(getClass().getResource("buttons/diffbutton1.png")),
-            new ImageIcon(getClass().getResource("buttons/diffbutton2.png")),
-            new ImageIcon(getClass().getResource("buttons/diffbutton3.png")),
-            new ImageIcon(getClass().getResource("buttons/diffbutton4.png")),
-            new ImageIcon(getClass().getResource("buttons/diffbutton5.png")),
+            Assets.icon("buttons/diffbutton1.png"),
+            Assets.icon("buttons/diffbutton2.png"),
+            Assets.icon("buttons/diffbutton3.png"),
+            Assets.icon("buttons/diffbutton4.png"),
+            Assets.icon("buttons/diffbutton5.png"),
     };
 
     private final ImageIcon diffROIcon[] = {
-            new ImageIcon(getClass().getResource("buttons/diffbutton1r.png")),
-            new ImageIcon(getClass().getResource("buttons/diffbutton2r.png")),
-            new ImageIcon(getClass().getResource("buttons/diffbutton3r.png")),
-            new ImageIcon(getClass().getResource("buttons/diffbutton4r.png")),
-            new ImageIcon(getClass().getResource("buttons/diffbutton5r.png")),
+            Assets.icon("buttons/diffbutton1r.png"),
+            Assets.icon("buttons/diffbutton2r.png"),
+            Assets.icon("buttons/diffbutton3r.png"),
+            Assets.icon("buttons/diffbutton4r.png"),
+            Assets.icon("buttons/diffbutton5r.png"),
     };
 
-    private final ImageIcon logo = new ImageIcon(getClass().getResource("logo.jpg"));
+    private final ImageIcon logo = Assets.icon("logo.jpg");
 
-    private final ImageIcon helpBG = new ImageIcon(getClass().getResource("help.jpg")); // help panel background
+    private final ImageIcon helpBG = Assets.icon("help.jpg"); // help panel background
 
 }
 
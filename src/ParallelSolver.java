@@ -0,0 +1,287 @@
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finds shortest solutions to levels by a level-synchronous breadth-first search on all cores.
+ * <p>
+ * Each depth of the search is split over a ForkJoinPool. Every worker thread expands its share
+ * of the frontier into a frontier of its own, and the states are deduplicated in an off-heap
+ * TranspositionTable, so the threads never wait for each other within a depth. The frontiers of
+ * the workers are joined into the next depth once all of them are done.
+ * <p>
+ * Before each depth the table is grown, if needed, to hold every child the depth could add, so
+ * it never fills up however large the level's state space is. Workers expand a state by
+ * applying each legal action to it and undoing it, without copying the state.
+ */
+public class ParallelSolver {
+    // number of frontier states a task expands itself rather than splitting further
+    private static final int GRAIN = 256;
+
+    // default number of entries the visited table starts with, 1 MB
+    private static final long TABLE_ENTRIES = 1 << 16;
+
+    // largest share of the visited table in use, to keep the probes short
+    private static final double MAX_LOAD = 0.75;
+
+    private final GameState level;
+    private final StateCodec codec;
+    private final int threads;
+    private final long tableEntries;
+
+    // workers of the last run and the pool they ran in
+    private final ConcurrentLinkedQueue<Worker> workers = new ConcurrentLinkedQueue<>();
+    private ThreadLocal<Worker> currentWorker;
+    private TranspositionTable visited;
+    private final AtomicLong goalKey = new AtomicLong(-1);
+
+    /**
+     * Constructor. Prepares a solver for a level.
+     *
+     * @param level   state of the level, as copied from a LevelSource
+     * @param threads number of worker threads
+     */
+    public ParallelSolver(GameState level, int threads) {
+        this(level, threads, TABLE_ENTRIES);
+    }
+
+    /**
+     * Constructor. Prepares a solver for a level with a visited table of a given starting size.
+     *
+     * @param level        state of the level, as copied from a LevelSource
+     * @param threads      number of worker threads
+     * @param tableEntries number of entries the visited table starts with, it grows as needed
+     */
+    public ParallelSolver(GameState level, int threads, long tableEntries) {
+        this.level = new GameState();
+        this.level.copyFrom(level);
+        this.codec = new StateCodec(level);
+        this.threads = threads;
+        this.tableEntries = tableEntries;
+    }
+
+    /**
+     * Search the level breadth-first on all the worker threads for a shortest solution.
+     *
+     * @return the solution found, with the search statistics
+     */
+    public Solution solve() {
+        long startTime = System.nanoTime();
+        workers.clear();
+        goalKey.set(-1);
+        if (level.hasWon())
+            return new Solution("Parallel BFS", new int[0], 0, 0, System.nanoTime() - startTime);
+
+        currentWorker = new ThreadLocal<Worker>() {
+            @Override
+            protected Worker initialValue() {
+                Worker worker = new Worker();
+                workers.add(worker);
+                return worker;
+            }
+        };
+
+        long startKey = codec.encode(level);
+        visited = new TranspositionTable(tableEntries);
+        visited.putIfAbsent(startKey, startKey);
+
+        long[] frontier = {startKey};
+        int frontierSize = 1;
+        long peakFrontier = 1;
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            while (frontierSize > 0 && goalKey.get() < 0) {
+                makeRoom((long) frontierSize * GameState.MAX_ACTIONS);
+                pool.invoke(new ExpandTask(frontier, 0, frontierSize));
+
+                // join the frontiers of the workers into the next depth
+                frontierSize = 0;
+                for (Worker worker : workers) {
+                    frontierSize += worker.nextSize;
+                }
+                long[] next = new long[frontierSize];
+                int position = 0;
+                for (Worker worker : workers) {
+                    System.arraycopy(worker.next, 0, next, position, worker.nextSize);
+                    position += worker.nextSize;
+                    worker.nextSize = 0;
+                }
+                frontier = next;
+                peakFrontier = Math.max(peakFrontier, frontierSize);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        long expanded = 0;
+        for (Worker worker : workers) {
+            expanded += worker.expanded;
+        }
+        long memory = visited.getMemoryBytes() + 16L * peakFrontier;
+        int[] actions = goalKey.get() < 0 ? null : buildPath(goalKey.get());
+        return new Solution("Parallel BFS", actions, expanded, memory, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Grow the visited table until it can take more states and stay within MAX_LOAD. Only called
+     * between depths, while no worker uses the table.
+     *
+     * @param states number of states that may be added
+     */
+    private void makeRoom(long states) {
+        long needed = visited.size() + states;
+        long entries = visited.capacity();
+        while (needed > entries * MAX_LOAD) {
+            entries <<= 1;
+        }
+        if (entries > visited.capacity())
+            visited = visited.grow(entries);
+    }
+
+    /**
+     * Get the number of worker threads.
+     *
+     * @return thread count
+     */
+    public int getThreadCount() {
+        return threads;
+    }
+
+    /**
+     * Get the visited table of the last run, with its load and collision statistics.
+     *
+     * @return the table, null before the first run
+     */
+    public TranspositionTable getTable() {
+        return visited;
+    }
+
+    /**
+     * Get the expansion rate of each worker thread of the last run.
+     *
+     * @return states expanded per second of work, one entry per thread that took part
+     */
+    public double[] getThreadRates() {
+        double[] rates = new double[workers.size()];
+        int i = 0;
+        for (Worker worker : workers) {
+            rates[i++] = worker.busyNanos == 0 ? 0 : worker.expanded * 1e9 / worker.busyNanos;
+        }
+        return rates;
+    }
+
+    /**
+     * Follow the parents stored in the visited table back from a state to the start.
+     *
+     * @param key key of the final state
+     * @return the actions leading from the start to the state
+     */
+    private int[] buildPath(long key) {
+        int length = 0;
+        for (long k = key; visited.get(k) != k; k = visited.get(k)) {
+            length++;
+        }
+
+        // find the action leading from each parent to its child
+        GameState parent = new GameState();
+        int[] legal = new int[GameState.MAX_ACTIONS];
+        int[] actions = new int[length];
+        for (long k = key; visited.get(k) != k; k = visited.get(k)) {
+            codec.decode(visited.get(k), parent);
+            int count = parent.legalActions(legal);
+            for (int i = 0; i < count; i++) {
+                parent.apply(legal[i]);
+                boolean found = codec.encode(parent) == k;
+                parent.undo(legal[i]);
+                if (found) {
+                    actions[--length] = legal[i];
+                    break;
+                }
+            }
+        }
+        return actions;
+    }
+
+    /**
+     * State of a single worker thread - its own search states, next frontier and statistics.
+     */
+    private static class Worker {
+        private final GameState node = new GameState();
+        private final int[] actions = new int[GameState.MAX_ACTIONS];
+        private long[] next = new long[1024];
+        private int nextSize;
+        private long expanded;
+        private long busyNanos;
+
+        /**
+         * Add a state to the next frontier of the worker.
+         *
+         * @param key key of the state
+         */
+        private void push(long key) {
+            if (nextSize == next.length) {
+                long[] grown = new long[next.length * 2];
+                System.arraycopy(next, 0, grown, 0, nextSize);
+                next = grown;
+            }
+            next[nextSize++] = key;
+        }
+    }
+
+    /**
+     * Expands a range of the frontier, splitting it between threads while it is large.
+     */
+    private class ExpandTask extends RecursiveAction {
+        private final long[] frontier;
+        private final int from, to;
+
+        /**
+         * Constructor.
+         *
+         * @param frontier states of the current depth
+         * @param from     first state of the range
+         * @param to       end of the range, exclusive
+         */
+        private ExpandTask(long[] frontier, int from, int to) {
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > GRAIN) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ExpandTask(frontier, from, middle), new ExpandTask(frontier, middle, to));
+                return;
+            }
+
+            Worker worker = currentWorker.get();
+            long start = System.nanoTime();
+            for (int i = from; i < to && goalKey.get() < 0; i++) {
+                long key = frontier[i];
+                codec.decode(key, worker.node);
+                worker.expanded++;
+
+                // try each action on the node itself and take it back after encoding the child
+                int count = worker.node.legalActions(worker.actions);
+                for (int a = 0; a < count; a++) {
+                    int action = worker.actions[a];
+                    worker.node.apply(action);
+                    long childKey = codec.encode(worker.node);
+                    boolean won = worker.node.hasWon();
+                    worker.node.undo(action);
+                    if (!visited.putIfAbsent(childKey, key))
+                        continue;
+
+                    worker.push(childKey);
+                    if (won)
+                        goalKey.compareAndSet(-1, childKey);
+                }
+            }
+            worker.busyNanos += System.nanoTime() - start;
+        }
+    }
+}
@@ -0,0 +1,328 @@
+import java.util.Arrays;
+
+/**
+ * Admissible estimate of the actions still needed to finish a level, for the informed solvers.
+ * <p>
+ * The stumps of a level form a graph whose edges are the plank slots between them. A slot is
+ * only usable if the level has a plank of its length - the planks are only ever moved, so their
+ * lengths never change. Any walk to the win stump contains a simple route of slots, and along it:
+ * <ul>
+ * <li>every slot is crossed with a step;</li>
+ * <li>every slot that is empty now needs a plank placed in it first;</li>
+ * <li>every placement but the first needs a pick-up before it, and so does the first unless the
+ * player holds a plank;</li>
+ * <li>a held plank only fills slots of its own length, so if the route has no empty slot of that
+ * length it must be put down elsewhere before anything can be picked up.</li>
+ * </ul>
+ * All these are different actions. Between them the player has to turn at least every time the
+ * direction of the route changes, counting a first step away from the way the player faces. On a
+ * shortest walk the player also has to turn after every pick-up: the slot ahead was just emptied,
+ * so the next step or placement faces another way, or puts the plank back and repeats a state.
+ * The two kinds of turns may be the same actions, so the estimate is the larger of the two sums
+ * over their cheapest routes, and never less than the number of slots on the shortest route.
+ * <p>
+ * The estimate only depends on the player's stump and facing once the planks are known, so it is
+ * worked out for every stump and facing at once, backwards from the win stump, and kept for the
+ * last plank layouts seen.
+ */
+public class PlankHeuristic {
+    public static final int UNREACHABLE = 1 << 20;
+
+    // phases of a route - no empty slot on it, only empty slots of other lengths than the held
+    // plank, or an empty slot the held plank fits
+    private static final int NO_EMPTY_SLOT = 0;
+    private static final int OTHER_LENGTHS = 1;
+    private static final int HELD_LENGTH = 2;
+    private static final int PHASES = 3;
+
+    private static final int CACHE_SIZE = 1024;
+
+    private final StateCodec codec;
+    private final int stumps;
+    private final int winStump;
+
+    // neighbour stump, first slot cell and slot length of each stump in each direction
+    // (stump * 4 + direction), -1 for no neighbour
+    private final int[] neighbour;
+    private final int[] slotCell;
+    private final int[] slotSize;
+
+    // number of slots on the shortest route from each stump to the win stump
+    private final int[] hops;
+
+    // work arrays of the route searches - cost to the win stump of each stump, facing and phase
+    // ((stump * 4 + facing) * 3 + phase), of each stump and phase, and eight rolling buckets of
+    // pending nodes
+    private final int[] turnCost;
+    private final int[] pickCost;
+    private final int[][] buckets = new int[8][];
+    private final int[] bucketSize = new int[8];
+
+    // estimates of recent plank layouts for every stump and facing (stump * 4 + facing), by hash of the layout
+    private final long[] cachedLayouts = new long[CACHE_SIZE];
+    private final int[][] cachedEstimates = new int[CACHE_SIZE][];
+    private long hits, misses;
+
+    /**
+     * Constructor. Builds the stump graph of a level.
+     *
+     * @param level state of the level
+     * @param codec codec of the level, giving the stump and slot indices
+     */
+    public PlankHeuristic(GameState level, StateCodec codec) {
+        this.codec = codec;
+        stumps = codec.getStumpCount();
+        winStump = codec.getStumpIndex(level.getWinCell());
+
+        // lengths of all the planks of the level, on the board or in hand
+        boolean[] lengths = new boolean[GameState.ROWS + 1];
+        lengths[level.getHeldSize()] = true;
+        for (int i = 0; i < codec.getSlotCount(); i++) {
+            if (level.isPlank(level.getNextCell(codec.getSlotStump(i), codec.getSlotDirection(i))))
+                lengths[codec.getSlotSize(i)] = true;
+        }
+
+        // link the stumps across every usable slot
+        neighbour = new int[4 * stumps];
+        slotCell = new int[4 * stumps];
+        slotSize = new int[4 * stumps];
+        Arrays.fill(neighbour, -1);
+        for (int i = 0; i < codec.getSlotCount(); i++) {
+            if (!lengths[codec.getSlotSize(i)])
+                continue;
+
+            int a = codec.getSlotStump(i), direction = codec.getSlotDirection(i);
+            int b = level.getNextStump(a, direction);
+            int reverse = GameState.reverse(direction);
+            neighbour[codec.getStumpIndex(a) * 4 + direction] = codec.getStumpIndex(b);
+            neighbour[codec.getStumpIndex(b) * 4 + reverse] = codec.getStumpIndex(a);
+            slotCell[codec.getStumpIndex(a) * 4 + direction] = level.getNextCell(a, direction);
+            slotCell[codec.getStumpIndex(b) * 4 + reverse] = level.getNextCell(b, reverse);
+            slotSize[codec.getStumpIndex(a) * 4 + direction] = codec.getSlotSize(i);
+            slotSize[codec.getStumpIndex(b) * 4 + reverse] = codec.getSlotSize(i);
+        }
+
+        // every node settled pushes at most four others
+        turnCost = new int[4 * stumps * PHASES];
+        pickCost = new int[stumps * PHASES];
+        for (int i = 0; i < 8; i++) {
+            buckets[i] = new int[4 * turnCost.length + 4];
+        }
+
+        // breadth-first from the win stump for the static number of slots to cross
+        hops = new int[stumps];
+        Arrays.fill(hops, UNREACHABLE);
+        if (winStump >= 0) {
+            int[] queue = new int[stumps];
+            int head = 0, tail = 0;
+            hops[winStump] = 0;
+            queue[tail++] = winStump;
+            while (head < tail) {
+                int v = queue[head++];
+                for (int direction = 0; direction < 4; direction++) {
+                    int u = neighbour[v * 4 + direction];
+                    if (u >= 0 && hops[u] == UNREACHABLE) {
+                        hops[u] = hops[v] + 1;
+                        queue[tail++] = u;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Estimate the number of actions needed to reach the win stump. Never overestimates.
+     *
+     * @param state state with the player on a stump
+     * @return lower bound of the remaining actions, UNREACHABLE if the level can't be finished
+     */
+    public int estimate(GameState state) {
+        int start = codec.getStumpIndex(state.getPlayerCell());
+        if (start == winStump)
+            return 0;
+        if (hops[start] == UNREACHABLE)
+            return UNREACHABLE;
+
+        long layout = codec.layoutOf(codec.encode(state));
+        int slot = StateSet.hash(layout) & (CACHE_SIZE - 1);
+        int[] estimates = cachedEstimates[slot];
+        if (estimates == null || cachedLayouts[slot] != layout) {
+            if (estimates == null)
+                estimates = cachedEstimates[slot] = new int[4 * stumps];
+            cachedLayouts[slot] = layout;
+            fillEstimates(state, estimates);
+            misses++;
+        } else {
+            hits++;
+        }
+        return estimates[start * 4 + state.getFacing()];
+    }
+
+    /**
+     * Work out the estimate of every stump and facing for the planks of a state.
+     *
+     * @param state     state giving the planks on the board and in hand
+     * @param estimates estimates to be filled (stump * 4 + facing)
+     */
+    private void fillEstimates(GameState state, int[] estimates) {
+        int held = state.getHeldSize();
+        searchTurns(state, held);
+        searchPickUps(state, held);
+
+        for (int v = 0; v < stumps; v++) {
+            int pickUps = UNREACHABLE;
+            for (int phase = 0; phase < PHASES; phase++) {
+                pickUps = Math.min(pickUps, pickCost[v * PHASES + phase] + correction(held, phase, 2));
+            }
+            for (int facing = 0; facing < 4; facing++) {
+                int turns = UNREACHABLE;
+                for (int phase = 0; phase < PHASES; phase++) {
+                    turns = Math.min(turns, turnCost[(v * 4 + facing) * PHASES + phase] + correction(held, phase, 1));
+                }
+                int estimate = Math.max(hops[v], Math.max(turns, pickUps));
+                estimates[v * 4 + facing] = v == winStump ? 0 : Math.min(estimate, UNREACHABLE);
+            }
+        }
+    }
+
+    /**
+     * Find the cheapest routes to the win stump counting a turn for every change of direction,
+     * from every stump, facing and phase. Dial's algorithm, backwards from the win stump - a slot
+     * costs 1 to 4 with the turn, so eight buckets of pending nodes are enough.
+     *
+     * @param state state giving the planks on the board
+     * @param held  size of the held plank, 0 for none
+     */
+    private void searchTurns(GameState state, int held) {
+        Arrays.fill(turnCost, UNREACHABLE);
+        Arrays.fill(bucketSize, 0);
+        int pending = 0;
+        for (int facing = 0; facing < 4; facing++) {
+            int node = (winStump * 4 + facing) * PHASES + NO_EMPTY_SLOT;
+            turnCost[node] = 0;
+            buckets[0][bucketSize[0]++] = node;
+            pending++;
+        }
+
+        for (int distance = 0; pending > 0; distance++) {
+            int[] bucket = buckets[distance & 7];
+            while (bucketSize[distance & 7] > 0) {
+                int node = bucket[--bucketSize[distance & 7]];
+                pending--;
+                if (turnCost[node] != distance)
+                    continue;
+
+                // the player faces the way they came, so only the stump behind leads here
+                int phase = node % PHASES, u = node / PHASES >> 2, direction = node / PHASES & 3;
+                int v = neighbour[u * 4 + GameState.reverse(direction)];
+                if (v < 0)
+                    continue;
+                int slot = v * 4 + direction;
+                int nextPhase = phaseAfter(state, held, slot, phase);
+                int slotCost = distance + (state.isPlank(slotCell[slot]) ? 1 : 3);
+                for (int facing = 0; facing < 4; facing++) {
+                    int next = slotCost + (facing == direction ? 0 : 1);
+                    int target = (v * 4 + facing) * PHASES + nextPhase;
+                    if (next < turnCost[target]) {
+                        turnCost[target] = next;
+                        buckets[next & 7][bucketSize[next & 7]++] = target;
+                        pending++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the cheapest routes to the win stump counting a turn for every pick-up, from every
+     * stump and phase. Dial's algorithm, backwards from the win stump - a slot costs 1 or 4.
+     *
+     * @param state state giving the planks on the board
+     * @param held  size of the held plank, 0 for none
+     */
+    private void searchPickUps(GameState state, int held) {
+        Arrays.fill(pickCost, UNREACHABLE);
+        Arrays.fill(bucketSize, 0);
+        int first = winStump * PHASES + NO_EMPTY_SLOT;
+        pickCost[first] = 0;
+        buckets[0][bucketSize[0]++] = first;
+        int pending = 1;
+
+        for (int distance = 0; pending > 0; distance++) {
+            int[] bucket = buckets[distance & 7];
+            while (bucketSize[distance & 7] > 0) {
+                int node = bucket[--bucketSize[distance & 7]];
+                pending--;
+                if (pickCost[node] != distance)
+                    continue;
+
+                int phase = node % PHASES, u = node / PHASES;
+                for (int direction = 0; direction < 4; direction++) {
+                    int v = neighbour[u * 4 + direction];
+                    if (v < 0)
+                        continue;
+                    int slot = v * 4 + GameState.reverse(direction);
+                    // step, or step, placement, pick-up and the turn after it
+                    int next = distance + (state.isPlank(slotCell[slot]) ? 1 : 4);
+                    int target = v * PHASES + phaseAfter(state, held, slot, phase);
+                    if (next < pickCost[target]) {
+                        pickCost[target] = next;
+                        buckets[next & 7][bucketSize[next & 7]++] = target;
+                        pending++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the phase of a route that starts with a slot.
+     *
+     * @param state state giving the planks on the board
+     * @param held  size of the held plank, 0 for none
+     * @param slot  slot crossed first (stump * 4 + direction)
+     * @param phase phase of the rest of the route
+     * @return phase of the whole route
+     */
+    private int phaseAfter(GameState state, int held, int slot, int phase) {
+        if (state.isPlank(slotCell[slot]))
+            return phase;
+        if (held > 0 && slotSize[slot] == held)
+            return HELD_LENGTH;
+        return phase == NO_EMPTY_SLOT ? OTHER_LENGTHS : phase;
+    }
+
+    /**
+     * Get the correction of a route for the plank in hand.
+     *
+     * @param held       size of the held plank, 0 for none
+     * @param phase      phase of the route
+     * @param pickUpCost actions counted for every pick-up on the route
+     * @return actions to be added to the cost of the route
+     */
+    private static int correction(int held, int phase, int pickUpCost) {
+        if (held == 0 || phase == NO_EMPTY_SLOT)
+            return 0;
+        // the held plank saves a pick-up, or has to be put down before the first one
+        return phase == HELD_LENGTH ? -pickUpCost : 1;
+    }
+
+    /**
+     * Get the memory taken by the cached estimates.
+     *
+     * @return size of the cache in bytes
+     */
+    public long getMemoryBytes() {
+        return 8L * CACHE_SIZE + 16L * stumps * CACHE_SIZE;
+    }
+
+    /**
+     * Describe how often an estimate was found in the cache.
+     *
+     * @return cache statistics
+     */
+    @Override
+    public String toString() {
+        return String.format("%d estimates, %.1f%% cached", hits + misses, 100.0 * hits / Math.max(1, hits + misses));
+    }
+}
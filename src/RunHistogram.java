@@ -0,0 +1,174 @@
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts the completion times of the runs of a category, to tell a player how many runs they beat.
+ * <p>
+ * Times are counted in logarithmic buckets, the way an HDR histogram does: every power of two is
+ * split into 32 buckets, so a bucket is at most about 3% wide, and times below 64 ms have a
+ * bucket each. Times from 0 to MAX_MILLIS take BUCKETS counters, whatever the number of runs.
+ * <p>
+ * Recording a time only increments atomic counters, so runs can be recorded from any thread
+ * without locking. Every 32 buckets also share a group counter, so a query adds at most the
+ * groups and the buckets of one group instead of every bucket.
+ */
+public class RunHistogram {
+    public static final long MAX_MILLIS = (1L << 23) - 1; // about 2 hours 20 minutes
+    public static final int BUCKETS = indexOf(MAX_MILLIS) + 1;
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int HALF_BUCKETS = 1 << (SUB_BUCKET_BITS - 1);
+    private static final int GROUP_BITS = SUB_BUCKET_BITS - 1;
+    private static final int GROUPS = (BUCKETS + HALF_BUCKETS - 1) >>> GROUP_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLongArray groups = new AtomicLongArray(GROUPS);
+    private final AtomicLong total = new AtomicLong();
+
+    /**
+     * Get the bucket of a time.
+     *
+     * @param millis time in milliseconds, 0 to MAX_MILLIS
+     * @return index of the bucket
+     */
+    private static int indexOf(long millis) {
+        if (millis < 2 * HALF_BUCKETS)
+            return (int) millis;
+        // keep the top SUB_BUCKET_BITS bits of the time
+        int shift = 63 - Long.numberOfLeadingZeros(millis) - (SUB_BUCKET_BITS - 1);
+        return shift * HALF_BUCKETS + (int) (millis >>> shift);
+    }
+
+    /**
+     * Get the longest time counted in a bucket.
+     *
+     * @param index index of the bucket
+     * @return time in milliseconds
+     */
+    private static long highestOf(int index) {
+        if (index < 2 * HALF_BUCKETS)
+            return index;
+        int shift = index / HALF_BUCKETS - 1;
+        long lowest = (long) (index % HALF_BUCKETS + HALF_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Count the completion time of a run. Times over MAX_MILLIS are counted as MAX_MILLIS.
+     *
+     * @param millis time of the run in milliseconds
+     */
+    public void record(long millis) {
+        int index = indexOf(Math.max(0, Math.min(millis, MAX_MILLIS)));
+        counts.incrementAndGet(index);
+        groups.incrementAndGet(index >>> GROUP_BITS);
+        total.incrementAndGet();
+    }
+
+    /**
+     * Get the number of runs counted.
+     *
+     * @return number of runs
+     */
+    public long getTotalCount() {
+        return total.get();
+    }
+
+    /**
+     * Get the number of runs slower than a time, not counting the runs in the bucket of the time.
+     *
+     * @param millis time in milliseconds
+     * @return number of slower runs
+     */
+    public long getCountAbove(long millis) {
+        int index = indexOf(Math.max(0, Math.min(millis, MAX_MILLIS)));
+        int group = index >>> GROUP_BITS;
+        long above = 0;
+        for (int i = index + 1; i < Math.min((group + 1) << GROUP_BITS, BUCKETS); i++) {
+            above += counts.get(i);
+        }
+        for (int i = group + 1; i < GROUPS; i++) {
+            above += groups.get(i);
+        }
+        return above;
+    }
+
+    /**
+     * Get the share of the runs slower than a time.
+     *
+     * @param millis time in milliseconds
+     * @return percentage of runs beaten, 0 if there are none
+     */
+    public double getPercentBeaten(long millis) {
+        long runs = total.get();
+        return runs == 0 ? 0 : 100.0 * Math.min(getCountAbove(millis), runs) / runs;
+    }
+
+    /**
+     * Get the share of the other runs slower than a run that is already recorded, which doesn't
+     * count against itself.
+     *
+     * @param millis time of the recorded run in milliseconds
+     * @return percentage of the other runs beaten, 0 if there are none
+     */
+    public double getPercentBeatenByRun(long millis) {
+        long others = total.get() - 1;
+        return others <= 0 ? 0 : 100.0 * Math.min(getCountAbove(millis), others) / others;
+    }
+
+    /**
+     * Get the time that a share of the runs were at least as fast as.
+     *
+     * @param percent percentage of the runs, 0 to 100
+     * @return time in milliseconds, to within the width of its bucket, 0 if there are no runs
+     */
+    public long getMillisAtPercentile(double percent) {
+        long runs = total.get();
+        if (runs == 0)
+            return 0;
+        long wanted = Math.max(1, (long) Math.ceil(percent / 100 * runs));
+
+        // find the group holding the run, then the bucket within it
+        long seen = 0;
+        int group = 0;
+        while (group < GROUPS - 1 && seen + groups.get(group) < wanted) {
+            seen += groups.get(group);
+            group++;
+        }
+        int last = Math.min((group + 1) << GROUP_BITS, BUCKETS) - 1;
+        for (int i = group << GROUP_BITS; i < last; i++) {
+            seen += counts.get(i);
+            if (seen >= wanted)
+                return highestOf(i);
+        }
+        return highestOf(last);
+    }
+
+    /**
+     * Write the counters, BUCKETS longs.
+     *
+     * @param data buffer to be written to at its position
+     */
+    public void write(ByteBuffer data) {
+        for (int i = 0; i < BUCKETS; i++) {
+            data.putLong(counts.get(i));
+        }
+    }
+
+    /**
+     * Add counters written by write.
+     *
+     * @param data buffer to be read from at its position
+     */
+    public void read(ByteBuffer data) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = data.getLong();
+            if (count < 0)
+                throw new IllegalArgumentException("Negative count in bucket " + i);
+            counts.addAndGet(i, count);
+            groups.addAndGet(i >>> GROUP_BITS, count);
+            total.addAndGet(count);
+        }
+    }
+}
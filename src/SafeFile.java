@@ -0,0 +1,205 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Crash-safe files, which are either completely replaced or left as they were.
+ * <p>
+ * A file is written to a temporary file next to it and forced to the disk. The old file is
+ * linked, or copied where links aren't supported, to a ".bak" backup, and the temporary file is
+ * then renamed over it, so the file exists at every moment and holds either the old or the new
+ * contents. The last line of a text file holds a CRC-32 of
+ * the rest, so a damaged file is noticed and the backup can be read instead. Binary files are
+ * expected to carry their own checksum.
+ */
+public final class SafeFile {
+    private static final String CHECKSUM_PREFIX = "#crc32=";
+
+    private SafeFile() {
+    }
+
+    /**
+     * Replace the contents of a file, keeping the old file as its backup.
+     *
+     * @param file    path of the file
+     * @param content new contents, ending with a line break
+     * @throws IOException if the file can't be written
+     */
+    public static void write(Path file, String content) throws IOException {
+        byte[] data = content.getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        byte[] checksum = String.format("%s%08x%n", CHECKSUM_PREFIX, crc.getValue()).getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer buffer = ByteBuffer.allocate(data.length + checksum.length);
+        buffer.put(data).put(checksum).flip();
+        replace(file, buffer);
+    }
+
+    /**
+     * Replace the contents of a file with binary data, keeping the old file as its backup.
+     * The data is written as it is, any checksum is up to the format of the file.
+     *
+     * @param file path of the file
+     * @param data new contents, from its position to its limit
+     * @throws IOException if the file can't be written
+     */
+    public static void replace(Path file, ByteBuffer data) throws IOException {
+        Path temp = writeTemp(file, data);
+
+        // keep the old file as the backup, then put the new one in its place
+        if (Files.exists(file))
+            backUp(file);
+        move(temp, file);
+        syncDirectory(file);
+    }
+
+    /**
+     * Replace the contents of a file with binary data in one step, without a backup. For files
+     * whose old contents are worth nothing once replaced, such as a compacted journal.
+     *
+     * @param file path of the file
+     * @param data new contents, from its position to its limit
+     * @throws IOException if the file can't be written
+     */
+    public static void replaceWithoutBackup(Path file, ByteBuffer data) throws IOException {
+        move(writeTemp(file, data), file);
+        syncDirectory(file);
+    }
+
+    /**
+     * Write the new contents of a file to a temporary file next to it, forced to the disk.
+     *
+     * @param file path of the file
+     * @param data new contents, from its position to its limit
+     * @return path of the temporary file
+     * @throws IOException if the temporary file can't be written
+     */
+    private static Path writeTemp(Path file, ByteBuffer data) throws IOException {
+        Path temp = siblingOf(file, ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+            channel.force(true);
+        }
+        return temp;
+    }
+
+    /**
+     * Make the backup of a file, leaving the file where it is. A hard link costs no copy, and
+     * keeps the old contents once the file is renamed over.
+     *
+     * @param file path of the file
+     * @throws IOException if the backup can't be made
+     */
+    private static void backUp(Path file) throws IOException {
+        Path backup = backupOf(file);
+        Files.deleteIfExists(backup);
+        try {
+            Files.createLink(backup, file);
+        } catch (UnsupportedOperationException | IOException ex) {
+            Files.copy(file, backup, StandardCopyOption.REPLACE_EXISTING);
+            try (FileChannel channel = FileChannel.open(backup, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+        }
+        syncDirectory(file);
+    }
+
+    /**
+     * Read a file, checking its checksum. Files written before checksums were added are read
+     * as they are.
+     *
+     * @param file path of the file
+     * @return contents without the checksum line, null if the file is missing or damaged
+     * @throws IOException if the file exists but can't be read
+     */
+    public static String read(Path file) throws IOException {
+        byte[] data;
+        try {
+            data = Files.readAllBytes(file);
+        } catch (NoSuchFileException ex) {
+            return null;
+        }
+        String text = new String(data, StandardCharsets.UTF_8);
+
+        // find the last line, ignoring the line break that ends it
+        int end = text.length();
+        while (end > 0 && (text.charAt(end - 1) == '\n' || text.charAt(end - 1) == '\r'))
+            end--;
+        int start = text.lastIndexOf('\n', end - 1) + 1;
+        if (!text.startsWith(CHECKSUM_PREFIX, start))
+            return text;
+
+        String content = text.substring(0, start);
+        CRC32 crc = new CRC32();
+        crc.update(content.getBytes(StandardCharsets.UTF_8));
+        try {
+            long expected = Long.parseLong(text.substring(start + CHECKSUM_PREFIX.length(), end), 16);
+            return expected == crc.getValue() ? content : null;
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Get the path of the backup of a file.
+     *
+     * @param file path of the file
+     * @return path of the backup
+     */
+    public static Path backupOf(Path file) {
+        return siblingOf(file, ".bak");
+    }
+
+    /**
+     * Get a path next to a file with a suffix added to its name.
+     *
+     * @param file   path of the file
+     * @param suffix suffix of the name
+     * @return the path
+     */
+    private static Path siblingOf(Path file, String suffix) {
+        return file.resolveSibling(file.getFileName() + suffix);
+    }
+
+    /**
+     * Rename a file over another, atomically where the file system allows it.
+     *
+     * @param from file to be renamed
+     * @param to   new name, replaced if it exists
+     * @throws IOException if the file can't be renamed
+     */
+    private static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Force the renames in the directory of a file to the disk. Not every system allows a
+     * directory to be opened, in which case the renames are left to the file system.
+     *
+     * @param file file in the directory
+     */
+    private static void syncDirectory(Path file) {
+        Path directory = file.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ex) {
+            // not supported here
+        }
+    }
+}
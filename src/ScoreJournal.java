@@ -0,0 +1,684 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the runs submitted since the last snapshot of a ScoreStore.
+ * <p>
+ * Every run is one fixed-size record written at the end of the file: a sequence number, the
+ * score, the packed name, the category and a CRC-32 of the rest. When the store is read the
+ * records newer than its snapshot are replayed, up to the first record that is incomplete or
+ * damaged, which is where a crash left the journal.
+ * <p>
+ * The sync policy decides when records are forced to the disk: after every record, when sync()
+ * is called, or never, leaving it to the operating system.
+ * <p>
+ * Records are committed in groups. A record is first queued, then the first thread to commit
+ * writes every queued record in one write, forcing it if the policy asks, while the threads
+ * whose records it carries wait for it. A single thread still gets one write per record. The
+ * waiting threads of each group share a condition, so a thread is only woken once its group has
+ * been written, or to write the records queued meanwhile as the next group.
+ * <p>
+ * A group that fails to be written is cut off the end of the file again, so the groups after it
+ * follow the last good record, and every thread whose record it carried gets the error until a
+ * snapshot of the store holds the runs. If the file can't even be cut back, the journal is
+ * broken: no record is written until the next snapshot reopens it at its last valid record.
+ */
+public class ScoreJournal {
+    public static final int SYNC_ALWAYS = 0;
+    public static final int SYNC_PERIODIC = 1;
+    public static final int SYNC_NEVER = 2;
+
+    public static final int RECORD_SIZE = 52;
+
+    private static final int CATEGORY_LENGTH = 24;
+    private static final int CATEGORY_OFFSET = 24;
+    private static final int CHECKSUM_OFFSET = 48;
+
+    private final Path file;
+    private final int syncPolicy;
+    private final CRC32 crc = new CRC32();
+    private final ReentrantLock lock = new ReentrantLock();
+    // signalled when no group is being written
+    private final Condition idle = lock.newCondition();
+    private FileChannel channel;
+    private long lastSeq;
+    private boolean unsynced;
+
+    // queued records, and the buffer of the group being written
+    private ByteBuffer queued = ByteBuffer.allocate(64 * RECORD_SIZE);
+    private ByteBuffer spare = ByteBuffer.allocate(64 * RECORD_SIZE);
+    // threads waiting for the queued records, and for the group being written
+    private Condition queuedWaiters = lock.newCondition();
+    private Condition groupWaiters = lock.newCondition();
+    private boolean writing;
+    // threads waiting for the writer to finish, committing threads let them go first
+    private int idleWaiters;
+    // last record of the group being written, or of the last group written
+    private long takenSeq;
+    private long writtenSeq, syncedSeq;
+    // groups that failed to be written, until a snapshot holds their runs
+    private final ArrayList<FailedGroup> failedGroups = new ArrayList<>();
+    // error that left the end of the file unknown, set by the writing thread
+    private IOException broken;
+
+    // statistics
+    private int records;
+    private long appends, groups, syncs, failedWrites;
+
+    // records of a group that failed to be written
+    private static class FailedGroup {
+        private final long from, to;
+        private final IOException error;
+
+        private FailedGroup(long from, long to, IOException error) {
+            this.from = from;
+            this.to = to;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Told about every record read from a journal.
+     */
+    public interface Reader {
+        /**
+         * Called for a record, in the order of the journal.
+         *
+         * @param seq      sequence number of the record
+         * @param category name of the category
+         * @param score    score of the run
+         * @param name     packed name of the player
+         */
+        void record(long seq, String category, long score, long name);
+    }
+
+    /**
+     * Constructor. Opens a journal for appending, cutting off anything after its last valid record.
+     *
+     * @param file       path of the journal
+     * @param syncPolicy SYNC_ALWAYS, SYNC_PERIODIC or SYNC_NEVER
+     * @param lastSeq    sequence number of the last run already in the store
+     * @throws IOException if the journal can't be opened
+     */
+    public ScoreJournal(Path file, int syncPolicy, long lastSeq) throws IOException {
+        this.file = file;
+        this.syncPolicy = syncPolicy;
+        this.lastSeq = lastSeq;
+        takenSeq = lastSeq;
+        writtenSeq = lastSeq;
+        syncedSeq = lastSeq;
+        reopen();
+    }
+
+    /**
+     * Open the file for appending after its last valid record, cutting off anything after it.
+     *
+     * @throws IOException if the journal can't be opened
+     */
+    private void reopen() throws IOException {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                // the old channel is given up either way
+            }
+        }
+        ByteBuffer data = readFile(file);
+        int valid = data == null ? 0 : validLength(data);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(valid);
+        channel.position(valid);
+        records = valid / RECORD_SIZE + queued.position() / RECORD_SIZE;
+    }
+
+    /**
+     * Get the path of the journal of a store.
+     *
+     * @param store path of the store
+     * @return path of its journal
+     */
+    public static Path journalOf(Path store) {
+        return store.resolveSibling(store.getFileName() + ".journal");
+    }
+
+    /**
+     * Get the sync policy named by a system property.
+     *
+     * @param name "always", "periodic" or "never"
+     * @return the policy, SYNC_PERIODIC for any other name
+     */
+    public static int policyOf(String name) {
+        if ("always".equals(name))
+            return SYNC_ALWAYS;
+        if ("never".equals(name))
+            return SYNC_NEVER;
+        return SYNC_PERIODIC;
+    }
+
+    /**
+     * Read the valid records of a journal.
+     *
+     * @param file   path of the journal
+     * @param reader told about every record
+     * @return sequence number of the last record, 0 if there is none
+     * @throws IOException if the journal exists but can't be read
+     */
+    public static long replay(Path file, Reader reader) throws IOException {
+        ByteBuffer data = readFile(file);
+        if (data == null)
+            return 0;
+
+        long seq = 0;
+        int end = validLength(data);
+        for (int offset = 0; offset < end; offset += RECORD_SIZE) {
+            seq = data.getLong(offset);
+            String category = ScoreStore.getText(data, offset + CATEGORY_OFFSET, CATEGORY_LENGTH);
+            reader.record(seq, category, data.getLong(offset + 8), data.getLong(offset + 16));
+        }
+        return seq;
+    }
+
+    /**
+     * Read all of a file.
+     *
+     * @param file path of the file
+     * @return contents, null if the file is missing
+     * @throws IOException if the file exists but can't be read
+     */
+    private static ByteBuffer readFile(Path file) throws IOException {
+        try {
+            return ByteBuffer.wrap(Files.readAllBytes(file));
+        } catch (NoSuchFileException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Find the end of the valid records, the first record that is incomplete, fails its checksum
+     * or doesn't follow the one before it.
+     *
+     * @param data contents of the journal
+     * @return length of the valid records
+     */
+    private static int validLength(ByteBuffer data) {
+        CRC32 crc = new CRC32();
+        long seq = 0;
+        int offset = 0;
+        while (offset + RECORD_SIZE <= data.limit()) {
+            crc.reset();
+            ByteBuffer body = data.duplicate();
+            body.position(offset).limit(offset + CHECKSUM_OFFSET);
+            crc.update(body);
+            if ((int) crc.getValue() != data.getInt(offset + CHECKSUM_OFFSET) || data.getLong(offset) <= seq)
+                break;
+            seq = data.getLong(offset);
+            offset += RECORD_SIZE;
+        }
+        return offset;
+    }
+
+    /**
+     * Append a run, forcing it to the disk if the policy is SYNC_ALWAYS.
+     *
+     * @param category name of the category
+     * @param score    score of the run
+     * @param name     packed name of the player
+     * @return sequence number of the record
+     * @throws IOException if the record can't be written
+     */
+    public long append(String category, long score, long name) throws IOException {
+        long seq = enqueue(category, score, name);
+        commit(seq);
+        return seq;
+    }
+
+    /**
+     * Queue a run to be written by the next commit.
+     *
+     * @param category name of the category
+     * @param score    score of the run
+     * @param name     packed name of the player
+     * @return sequence number of the record
+     */
+    public long enqueue(String category, long score, long name) {
+        byte[] text = category.getBytes(StandardCharsets.US_ASCII);
+        lock.lock();
+        try {
+            if (queued.remaining() < RECORD_SIZE) {
+                ByteBuffer larger = ByteBuffer.allocate(queued.capacity() * 2);
+                queued.flip();
+                queued = larger.put(queued);
+            }
+
+            long seq = ++lastSeq;
+            int start = queued.position();
+            queued.putLong(seq).putLong(score).putLong(name);
+            for (int i = 0; i < CATEGORY_LENGTH; i++) {
+                queued.put(i < text.length ? text[i] : 0);
+            }
+            crc.reset();
+            crc.update(queued.array(), start, CHECKSUM_OFFSET);
+            queued.putInt((int) crc.getValue());
+            records++;
+            appends++;
+            return seq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until a queued record has been written, and forced if the policy is SYNC_ALWAYS.
+     * If no other thread is writing, this one writes every record queued so far.
+     *
+     * @param seq sequence number of the record
+     * @throws IOException if the group of the record couldn't be written
+     */
+    public void commit(long seq) throws IOException {
+        boolean force = syncPolicy == SYNC_ALWAYS;
+        while (true) {
+            ByteBuffer group;
+            long groupSeq;
+            IOException error;
+            lock.lock();
+            try {
+                try {
+                    // a record not taken by the writer yet waits with the queued records
+                    while ((writing || idleWaiters > 0) && !committed(seq, force))
+                        (seq > takenSeq ? queuedWaiters : groupWaiters).await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while committing run " + seq);
+                }
+                IOException failure = failureOf(seq);
+                if (failure != null)
+                    throw failure;
+                if (committed(seq, force))
+                    return;
+
+                // write the group of every queued record, its waiters now wait for the group
+                writing = true;
+                group = queued;
+                queued = spare;
+                spare = null;
+                groupSeq = lastSeq;
+                takenSeq = groupSeq;
+                Condition waiters = groupWaiters;
+                groupWaiters = queuedWaiters;
+                queuedWaiters = waiters;
+                error = broken;
+            } finally {
+                lock.unlock();
+            }
+
+            group.flip();
+            int groupRecords = group.remaining() / RECORD_SIZE;
+            if (error == null)
+                error = writeGroup(group, force);
+
+            lock.lock();
+            try {
+                group.clear();
+                spare = group;
+                writing = false;
+                finishGroup(groupSeq, groupRecords, error, force);
+                writerDone();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Wake the threads of the group just written, the threads waiting for the writer, and if
+     * there are none, one of the threads waiting for the queued records to write them next.
+     * Called holding the lock.
+     */
+    private void writerDone() {
+        groupWaiters.signalAll();
+        idle.signalAll();
+        resumeQueued();
+    }
+
+    /**
+     * Let one of the threads waiting for the queued records write them, unless a group is being
+     * written or a thread waits for the writer. Called holding the lock.
+     */
+    private void resumeQueued() {
+        if (!writing && idleWaiters == 0) {
+            queuedWaiters.signal();
+            // records written but not yet forced need a writer as well
+            groupWaiters.signalAll();
+        }
+    }
+
+    /**
+     * Write a group of records at the end of the journal, forcing them if asked. If the write or
+     * the force fails, the file is cut back to where the group started; if that fails too, the
+     * journal is broken. Only called by the thread writing.
+     *
+     * @param group records, from its position to its limit
+     * @param force whether the records must be forced to the disk
+     * @return error of the write, null if the group was written
+     */
+    private IOException writeGroup(ByteBuffer group, boolean force) {
+        long start = -1;
+        try {
+            start = channel.position();
+            while (group.hasRemaining()) {
+                channel.write(group);
+            }
+            if (force)
+                channel.force(false);
+            return null;
+        } catch (IOException ex) {
+            if (!rollBack(start))
+                broken = ex;
+            return ex;
+        }
+    }
+
+    /**
+     * Cut the file back to the end of the last group written.
+     *
+     * @param start length of the file before the failed group, -1 if unknown
+     * @return true if the next group can be written at the end of the file
+     */
+    private boolean rollBack(long start) {
+        if (start < 0)
+            return false;
+        try {
+            channel.truncate(start);
+            channel.position(start);
+            return true;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Record the outcome of a group write. Called holding the lock.
+     *
+     * @param groupSeq     sequence number of the last record of the group
+     * @param groupRecords number of records in the group
+     * @param error        error of the write, null if the group was written
+     * @param forced       whether the group was forced to the disk
+     */
+    private void finishGroup(long groupSeq, int groupRecords, IOException error, boolean forced) {
+        if (error != null) {
+            // the runs are still in memory, and saved with the next snapshot
+            failedGroups.add(new FailedGroup(writtenSeq + 1, groupSeq, error));
+            records -= groupRecords;
+            failedWrites++;
+        } else {
+            if (groupSeq > writtenSeq) {
+                groups++;
+                unsynced = !forced;
+            }
+            // an empty group is still forced, for records written by writeQueued
+            if (forced) {
+                syncedSeq = groupSeq;
+                unsynced = false;
+                syncs++;
+            }
+        }
+        writtenSeq = groupSeq;
+    }
+
+    /**
+     * Get the error of the group a record was in, if that group failed to be written and no
+     * snapshot holds its runs yet. Called holding the lock.
+     *
+     * @param seq sequence number of the record
+     * @return error of the group, null if the record wasn't in a failed group
+     */
+    private IOException failureOf(long seq) {
+        for (FailedGroup failed : failedGroups) {
+            if (seq >= failed.from && seq <= failed.to)
+                return failed.error;
+        }
+        return null;
+    }
+
+    /**
+     * Check if runs are missing from the journal, and only saved by a snapshot of the store.
+     *
+     * @return true if a group failed to be written or the journal is broken
+     */
+    public boolean hasFailures() {
+        lock.lock();
+        try {
+            return broken != null || !failedGroups.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tell whether a record has been written, and forced if needed.
+     *
+     * @param seq   sequence number of the record
+     * @param force whether the record must be on the disk
+     * @return true if the record is committed
+     */
+    private boolean committed(long seq, boolean force) {
+        return seq <= (force ? syncedSeq : writtenSeq);
+    }
+
+    /**
+     * Wait until no group is being written. Called holding the lock.
+     *
+     * @throws IOException if interrupted
+     */
+    private void waitForWriter() throws IOException {
+        idleWaiters++;
+        try {
+            while (writing)
+                idle.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the journal");
+        } finally {
+            idleWaiters--;
+        }
+    }
+
+    /**
+     * Wait until no group is being written, and write the queued records. Called holding the lock.
+     *
+     * @throws IOException if the records can't be written
+     */
+    private void writeQueued() throws IOException {
+        waitForWriter();
+        queued.flip();
+        int groupRecords = queued.remaining() / RECORD_SIZE;
+        IOException error = broken != null ? broken : writeGroup(queued, false);
+        queued.clear();
+        takenSeq = lastSeq;
+        finishGroup(lastSeq, groupRecords, error, false);
+        // every waiting record has been written, each of its threads checks for itself
+        groupWaiters.signalAll();
+        queuedWaiters.signalAll();
+        if (error != null)
+            throw error;
+    }
+
+    /**
+     * Force the appended records to the disk, unless the policy is SYNC_NEVER.
+     *
+     * @throws IOException if the journal can't be forced
+     */
+    public void sync() throws IOException {
+        long seq;
+        lock.lock();
+        try {
+            waitForWriter();
+            if (!unsynced || syncPolicy == SYNC_NEVER) {
+                resumeQueued();
+                return;
+            }
+            // records are queued meanwhile, and written once the journal is forced
+            writing = true;
+            seq = writtenSeq;
+            unsynced = false;
+        } finally {
+            lock.unlock();
+        }
+        boolean forced = false;
+        try {
+            channel.force(false);
+            forced = true;
+        } finally {
+            lock.lock();
+            try {
+                writing = false;
+                if (forced) {
+                    syncedSeq = Math.max(syncedSeq, seq);
+                    syncs++;
+                } else {
+                    unsynced = true;
+                }
+                writerDone();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Drop the records that a snapshot of the store already holds, and reopen a broken journal.
+     *
+     * @param seq sequence number of the last run in the snapshot
+     * @throws IOException if the journal can't be rewritten
+     */
+    public void truncate(long seq) throws IOException {
+        lock.lock();
+        try {
+            // the snapshot holds the runs of the failed groups up to seq
+            for (int i = failedGroups.size() - 1; i >= 0; i--) {
+                if (failedGroups.get(i).to <= seq)
+                    failedGroups.remove(i);
+            }
+            waitForWriter();
+            if (broken != null) {
+                reopen();
+                broken = null;
+            }
+            writeQueued();
+            if (seq >= lastSeq) {
+                channel.truncate(0);
+                channel.force(true);
+                records = 0;
+                unsynced = false;
+                syncedSeq = lastSeq;
+                return;
+            }
+
+            // runs were added while the snapshot was written, keep those
+            ByteBuffer data = readFile(file);
+            int end = validLength(data);
+            int start = 0;
+            while (start < end && data.getLong(start) <= seq)
+                start += RECORD_SIZE;
+            data.position(start).limit(end);
+
+            // the kept records are renamed over the journal in one step, so it is never missing
+            channel.close();
+            SafeFile.replaceWithoutBackup(file, data);
+            channel = FileChannel.open(file, StandardOpenOption.WRITE);
+            channel.position(end - start);
+            records = (end - start) / RECORD_SIZE;
+            unsynced = false;
+            syncedSeq = lastSeq;
+        } finally {
+            resumeQueued();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write the queued records, force them to the disk and close the journal.
+     *
+     * @throws IOException if the journal can't be closed
+     */
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            try {
+                writeQueued();
+                if (unsynced)
+                    channel.force(false);
+                unsynced = false;
+                syncedSeq = lastSeq;
+            } finally {
+                channel.close();
+            }
+        } finally {
+            resumeQueued();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the path of the journal.
+     *
+     * @return path of the file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Get the sequence number of the last record.
+     *
+     * @return sequence number, 0 if nothing was ever appended
+     */
+    public long getLastSeq() {
+        lock.lock();
+        try {
+            return lastSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of records waiting to be compacted into a snapshot.
+     *
+     * @return number of records in the journal
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return records;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Describe the journal statistics.
+     *
+     * @return records, appends, groups written, syncs and failed writes
+     */
+    public String report() {
+        lock.lock();
+        try {
+            return String.format("%d records in the journal, %d appended in %d writes, %d syncs, %d failed writes%s",
+                    records, appends, groups, syncs, failedWrites, broken != null ? ", broken" : "");
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,630 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * Holds the leaderboards and run histograms of every run category in a single file.
+ * <p>
+ * The file starts with a fixed header and an index with a slot for each category, giving the
+ * name of the category and the place and size of its runs and its histogram. The runs of every
+ * category follow the index in order of rank, as a score and a packed name each, then the
+ * counters of its histogram. The header keeps a CRC-32 of the rest of the file and the sequence
+ * number of the last journal record in the file.
+ * <p>
+ * The store is read once when the game starts and kept in memory, a leaderboard is found by the
+ * name of its category in constant time. A submitted run is appended to the ScoreJournal, so it
+ * costs one small write however many runs there are. A background thread syncs the journal and
+ * now and then compacts it, writing a new snapshot of the whole store through SafeFile and
+ * dropping the records it holds. Reading the store replays the journal records newer than the
+ * snapshot. Histograms are not journaled, a snapshot is taken within COMPACT_MILLIS of a change
+ * and when the store is closed.
+ */
+public class ScoreStore {
+    public static final String DEFAULT_FILE = "scores.db";
+
+    // the journal is synced every SYNC_MILLIS, and compacted once it holds COMPACT_RECORDS
+    // records or its oldest record is COMPACT_MILLIS old
+    public static final long SYNC_MILLIS = 1000;
+    public static final int COMPACT_RECORDS = 10000;
+    public static final long COMPACT_MILLIS = 60000;
+
+    private static final int MAGIC = 0x52435344; // "RCSD"
+    private static final int VERSION = 4;
+    private static final int HEADER_SIZE = 28;
+    private static final int CHECKSUM_OFFSET = 16;
+    private static final int SEQ_OFFSET = 20;
+    private static final int SLOT_SIZE = 48;
+    private static final int CATEGORY_LENGTH = 24;
+    private static final int ENTRY_SIZE = 16;
+    private static final int MIN_SLOTS = 64;
+
+    private static ScoreStore defaultStore;
+
+    private final Path file;
+    private final LinkedHashMap<String, Leaderboard> boards = new LinkedHashMap<>();
+    private final LinkedHashMap<String, RunHistogram> histograms = new LinkedHashMap<>();
+    private final Object compactLock = new Object();
+    private final ReentrantReadWriteLock submitLock = new ReentrantReadWriteLock();
+    private long appliedSeq;
+    private ScoreJournal journal;
+    private ScheduledThreadPoolExecutor worker;
+    private ScoreSubmitter submitter;
+    private long journalStart;
+    private long lastSave = System.currentTimeMillis();
+    private long savedHistogramRuns;
+
+    /**
+     * Constructor. Creates an empty store for a file, without reading it.
+     *
+     * @param file path of the store
+     */
+    public ScoreStore(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Get the store of the game, read from DEFAULT_FILE on first use, with its journal started.
+     * A store that can't be read is started from its journal alone. The sync policy is read from
+     * the "rivercrossing.journalSync" property, see ScoreJournal.policyOf.
+     *
+     * @return the shared store
+     */
+    public static synchronized ScoreStore getDefault() {
+        if (defaultStore == null) {
+            Path file = Paths.get(DEFAULT_FILE);
+            try {
+                defaultStore = open(file);
+            } catch (IOException ex) {
+                System.out.println(ex.getMessage());
+                defaultStore = new ScoreStore(file);
+                try {
+                    defaultStore.replayJournal();
+                } catch (IOException journalEx) {
+                    System.out.println(journalEx.getMessage());
+                }
+            }
+            try {
+                defaultStore.startJournal(ScoreJournal.policyOf(System.getProperty("rivercrossing.journalSync")));
+            } catch (IOException ex) {
+                System.out.println("Scores will only be saved in snapshots: " + ex.getMessage());
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    defaultStore.close();
+                }
+            }, "Score store shutdown"));
+        }
+        return defaultStore;
+    }
+
+    /**
+     * Read a store from its file, or from the backup if the file is missing or damaged, then
+     * replay the runs of its journal that are newer. Without file and backup the store holds the
+     * journal alone.
+     *
+     * @param file path of the store
+     * @return the store
+     * @throws IOException if the file is damaged and the backup can't be read
+     */
+    public static ScoreStore open(Path file) throws IOException {
+        ScoreStore store = new ScoreStore(file);
+        ByteBuffer data = readFile(file);
+        if (data == null || !store.parse(data)) {
+            ByteBuffer backup = readFile(SafeFile.backupOf(file));
+            if (backup != null && store.parse(backup))
+                System.out.println("Recovered scores from " + SafeFile.backupOf(file));
+            else if (data != null)
+                throw new IOException("Damaged score store " + file);
+        }
+        store.replayJournal();
+        return store;
+    }
+
+    /**
+     * Add the runs of the journal that are newer than the snapshot.
+     *
+     * @throws IOException if the journal exists but can't be read
+     */
+    private synchronized void replayJournal() throws IOException {
+        final long snapshotSeq = appliedSeq;
+        long lastSeq = ScoreJournal.replay(ScoreJournal.journalOf(file), new ScoreJournal.Reader() {
+            @Override
+            public void record(long seq, String category, long score, long name) {
+                if (seq > snapshotSeq)
+                    getOrCreate(category).insert(score, name);
+            }
+        });
+        appliedSeq = Math.max(appliedSeq, lastSeq);
+    }
+
+    /**
+     * Open the journal for new runs and start the thread that syncs and compacts it.
+     *
+     * @param syncPolicy policy of the journal, see ScoreJournal
+     * @throws IOException if the journal can't be opened
+     */
+    public synchronized void startJournal(int syncPolicy) throws IOException {
+        journal = new ScoreJournal(ScoreJournal.journalOf(file), syncPolicy, appliedSeq);
+        journalStart = System.currentTimeMillis();
+        worker = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "Score journal");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        worker.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                maintainJournal();
+            }
+        }, SYNC_MILLIS, SYNC_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sync the journal, and compact it if it has grown large or old.
+     */
+    private void maintainJournal() {
+        ScoreJournal current = getJournal();
+        if (current == null)
+            return;
+        try {
+            current.sync();
+            int records = current.size();
+            long now = System.currentTimeMillis();
+            boolean old;
+            synchronized (this) {
+                old = records > 0 && now - journalStart >= COMPACT_MILLIS
+                        || histogramRuns() != savedHistogramRuns && now - lastSave >= COMPACT_MILLIS;
+            }
+            // runs that failed to be journaled are only safe once a snapshot holds them
+            if (records >= COMPACT_RECORDS || old || current.hasFailures())
+                save();
+        } catch (IOException | RuntimeException ex) {
+            // keep the thread alive, the records are still in the journal
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Read all of a file.
+     *
+     * @param file path of the file
+     * @return contents, null if the file is missing
+     * @throws IOException if the file exists but can't be read
+     */
+    private static ByteBuffer readFile(Path file) throws IOException {
+        try {
+            return ByteBuffer.wrap(Files.readAllBytes(file));
+        } catch (NoSuchFileException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Fill the store from the contents of a store file.
+     * The leaderboards are only changed if the whole file is valid.
+     *
+     * @param data contents of the file
+     * @return true if the leaderboards were read
+     */
+    private synchronized boolean parse(ByteBuffer data) {
+        if (data.limit() < HEADER_SIZE || data.getInt(0) != MAGIC || data.getInt(4) != VERSION)
+            return false;
+        int slots = data.getInt(8);
+        int count = data.getInt(12);
+        if (slots < 0 || count < 0 || count > slots || HEADER_SIZE + (long) slots * SLOT_SIZE > data.limit())
+            return false;
+
+        CRC32 crc = new CRC32();
+        ByteBuffer body = data.duplicate();
+        body.position(CHECKSUM_OFFSET + 4);
+        crc.update(body);
+        if ((int) crc.getValue() != data.getInt(CHECKSUM_OFFSET))
+            return false;
+
+        LinkedHashMap<String, Leaderboard> read = new LinkedHashMap<>();
+        LinkedHashMap<String, RunHistogram> readHistograms = new LinkedHashMap<>();
+        try {
+            for (int i = 0; i < count; i++) {
+                int slot = HEADER_SIZE + i * SLOT_SIZE;
+                String category = getText(data, slot, CATEGORY_LENGTH);
+                long offset = data.getLong(slot + CATEGORY_LENGTH);
+                int runs = data.getInt(slot + CATEGORY_LENGTH + 8);
+                // a category may have a histogram without a leaderboard, or the other way round
+                int buckets = data.getInt(slot + CATEGORY_LENGTH + 12);
+                long histogramOffset = data.getLong(slot + CATEGORY_LENGTH + 16);
+                if (buckets != 0) {
+                    if (buckets != RunHistogram.BUCKETS || histogramOffset < 0
+                            || histogramOffset + buckets * 8L > data.limit())
+                        return false;
+                    RunHistogram histogram = new RunHistogram();
+                    ByteBuffer counters = data.duplicate();
+                    counters.position((int) histogramOffset);
+                    histogram.read(counters);
+                    readHistograms.put(category, histogram);
+                }
+                if (runs == -1)
+                    continue;
+                if (runs < 0 || offset < 0 || offset + (long) runs * ENTRY_SIZE > data.limit())
+                    return false;
+
+                long[] scores = new long[runs];
+                long[] names = new long[runs];
+                for (int run = 0; run < runs; run++) {
+                    int entry = (int) offset + run * ENTRY_SIZE;
+                    scores[run] = data.getLong(entry);
+                    names[run] = data.getLong(entry + 8);
+                }
+                Leaderboard board = new Leaderboard(runs);
+                board.load(scores, names, runs);
+                read.put(category, board);
+            }
+        } catch (IllegalArgumentException ex) {
+            // runs out of order
+            return false;
+        }
+
+        boards.clear();
+        boards.putAll(read);
+        histograms.clear();
+        histograms.putAll(readHistograms);
+        savedHistogramRuns = histogramRuns();
+        appliedSeq = data.getLong(SEQ_OFFSET);
+        return true;
+    }
+
+    /**
+     * Write the store as the contents of a store file. The index has room for at least
+     * MIN_SLOTS categories, doubled as it fills up.
+     *
+     * @return contents of the file
+     */
+    private synchronized ByteBuffer toFileContent() {
+        LinkedHashSet<String> categories = new LinkedHashSet<>(boards.keySet());
+        categories.addAll(histograms.keySet());
+        int slots = MIN_SLOTS;
+        while (slots < categories.size())
+            slots *= 2;
+        long length = HEADER_SIZE + (long) slots * SLOT_SIZE + (long) histograms.size() * RunHistogram.BUCKETS * 8;
+        for (Leaderboard board : boards.values()) {
+            length += (long) board.size() * ENTRY_SIZE;
+        }
+        if (length > Integer.MAX_VALUE)
+            throw new IllegalStateException("Score store too large: " + length + " bytes");
+
+        ByteBuffer data = ByteBuffer.allocate((int) length);
+        data.putInt(MAGIC).putInt(VERSION).putInt(slots).putInt(categories.size()).putInt(0).putLong(appliedSeq);
+
+        int slot = HEADER_SIZE;
+        int offset = HEADER_SIZE + slots * SLOT_SIZE;
+        long[] scores = new long[0];
+        long[] names = new long[0];
+        for (String category : categories) {
+            putText(data, slot, category, CATEGORY_LENGTH);
+            Leaderboard board = boards.get(category);
+            if (board == null) {
+                data.putInt(slot + CATEGORY_LENGTH + 8, -1);
+            } else {
+                synchronized (board) {
+                    int runs = board.size();
+                    if (scores.length < runs) {
+                        scores = new long[runs];
+                        names = new long[runs];
+                    }
+                    board.page(0, scores, names);
+
+                    data.putLong(slot + CATEGORY_LENGTH, offset);
+                    data.putInt(slot + CATEGORY_LENGTH + 8, runs);
+                    for (int run = 0; run < runs; run++) {
+                        data.putLong(offset, scores[run]);
+                        data.putLong(offset + 8, names[run]);
+                        offset += ENTRY_SIZE;
+                    }
+                }
+            }
+
+            RunHistogram histogram = histograms.get(category);
+            if (histogram != null) {
+                data.putInt(slot + CATEGORY_LENGTH + 12, RunHistogram.BUCKETS);
+                data.putLong(slot + CATEGORY_LENGTH + 16, offset);
+                data.position(offset);
+                histogram.write(data);
+                offset = data.position();
+            }
+            slot += SLOT_SIZE;
+        }
+
+        CRC32 crc = new CRC32();
+        data.position(CHECKSUM_OFFSET + 4);
+        crc.update(data);
+        data.putInt(CHECKSUM_OFFSET, (int) crc.getValue());
+        data.rewind();
+        return data;
+    }
+
+    /**
+     * Read a zero-padded ASCII text field.
+     *
+     * @param data   contents of the file
+     * @param offset start of the field
+     * @param length length of the field
+     * @return the text
+     */
+    static String getText(ByteBuffer data, int offset, int length) {
+        int end = 0;
+        while (end < length && data.get(offset + end) != 0)
+            end++;
+        byte[] text = new byte[end];
+        for (int i = 0; i < end; i++) {
+            text[i] = data.get(offset + i);
+        }
+        return new String(text, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Write a zero-padded ASCII text field. The rest of the field is expected to be zero.
+     *
+     * @param data   contents of the file
+     * @param offset start of the field
+     * @param text   the text, no longer than the field
+     * @param length length of the field
+     */
+    private static void putText(ByteBuffer data, int offset, String text, int length) {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < bytes.length && i < length; i++) {
+            data.put(offset + i, bytes[i]);
+        }
+    }
+
+    /**
+     * Get the leaderboard of a category.
+     *
+     * @param category name of the category
+     * @return the leaderboard, null if the category has none
+     */
+    public synchronized Leaderboard getLeaderboard(String category) {
+        return boards.get(category);
+    }
+
+    /**
+     * Add an empty leaderboard for a category, replacing any leaderboard it had.
+     *
+     * @param category name of the category, at most 24 ASCII characters
+     * @return the new leaderboard
+     */
+    public synchronized Leaderboard createLeaderboard(String category) {
+        if (category.isEmpty() || category.length() > CATEGORY_LENGTH)
+            throw new IllegalArgumentException("Invalid category name: " + category);
+        Leaderboard board = new Leaderboard();
+        boards.put(category, board);
+        return board;
+    }
+
+    /**
+     * Get the run histogram of a category, adding an empty one if it has none.
+     *
+     * @param category name of the category, at most 24 ASCII characters
+     * @return the histogram
+     */
+    public synchronized RunHistogram getHistogram(String category) {
+        RunHistogram histogram = histograms.get(category);
+        if (histogram == null) {
+            if (category.isEmpty() || category.length() > CATEGORY_LENGTH)
+                throw new IllegalArgumentException("Invalid category name: " + category);
+            histogram = new RunHistogram();
+            histograms.put(category, histogram);
+        }
+        return histogram;
+    }
+
+    /**
+     * Count the runs in every histogram, to tell whether they changed since the last snapshot.
+     *
+     * @return number of runs counted
+     */
+    private synchronized long histogramRuns() {
+        long runs = 0;
+        for (RunHistogram histogram : histograms.values()) {
+            runs += histogram.getTotalCount();
+        }
+        return runs;
+    }
+
+    /**
+     * Get the leaderboard of a category, adding an empty one if it has none.
+     *
+     * @param category name of the category
+     * @return the leaderboard
+     */
+    private Leaderboard getOrCreate(String category) {
+        Leaderboard board = boards.get(category);
+        return board != null ? board : createLeaderboard(category);
+    }
+
+    /**
+     * Add a run to the leaderboard of a category and append it to the journal. The run is kept
+     * in memory even if the journal can't be written, and saved with the next snapshot.
+     * <p>
+     * Runs of different categories are added at the same time, only a snapshot holds them up.
+     * The journal write happens after every lock is released, in a group with the runs of other
+     * threads.
+     *
+     * @param category name of the category
+     * @param score    score of the run
+     * @param name     packed name of the player
+     * @return rank of the run, 0 for the best
+     * @throws IOException if the run can't be appended to the journal
+     */
+    public int submit(String category, long score, long name) throws IOException {
+        ScoreJournal current;
+        long seq = 0;
+        int rank;
+        submitLock.readLock().lock();
+        try {
+            Leaderboard board;
+            synchronized (this) {
+                current = journal;
+                board = getOrCreate(category);
+                if (current != null && current.size() == 0)
+                    journalStart = System.currentTimeMillis();
+            }
+            // the journal and the leaderboard get the runs of a category in the same order
+            synchronized (board) {
+                if (current != null)
+                    seq = current.enqueue(category, score, name);
+                rank = board.insert(score, name);
+            }
+        } finally {
+            submitLock.readLock().unlock();
+        }
+        if (current != null)
+            current.commit(seq);
+        return rank;
+    }
+
+    /**
+     * Get the submitter adding runs to the store in the background, started on first use. The
+     * runs it holds are submitted when the store is closed.
+     *
+     * @return the submitter of the store
+     */
+    public synchronized ScoreSubmitter getSubmitter() {
+        if (submitter == null)
+            submitter = new ScoreSubmitter(this);
+        return submitter;
+    }
+
+    /**
+     * Get the number of categories in the store.
+     *
+     * @return number of categories
+     */
+    public synchronized int size() {
+        return boards.size();
+    }
+
+    /**
+     * Get the path of the store.
+     *
+     * @return path of the file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Get the journal of the store.
+     *
+     * @return the journal, null if it wasn't started
+     */
+    public synchronized ScoreJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Save a snapshot of the store, replacing the file in one step and keeping the previous one
+     * as a backup, then drop the journal records the snapshot holds. Runs may still be submitted
+     * while the file is written.
+     *
+     * @throws IOException if the file can't be written
+     */
+    public void save() throws IOException {
+        synchronized (compactLock) {
+            ByteBuffer content;
+            long seq;
+            long histogramRunsSaved;
+            // no run is added while the snapshot is taken, so it holds exactly the runs up to seq
+            submitLock.writeLock().lock();
+            try {
+                synchronized (this) {
+                    if (journal != null)
+                        appliedSeq = journal.getLastSeq();
+                    histogramRunsSaved = histogramRuns();
+                    content = toFileContent();
+                    seq = appliedSeq;
+                }
+            } finally {
+                submitLock.writeLock().unlock();
+            }
+            SafeFile.replace(file, content);
+            synchronized (this) {
+                lastSave = System.currentTimeMillis();
+                savedHistogramRuns = histogramRunsSaved;
+            }
+
+            ScoreJournal current = getJournal();
+            if (current != null) {
+                current.truncate(seq);
+                synchronized (this) {
+                    journalStart = System.currentTimeMillis();
+                }
+            }
+        }
+    }
+
+    /**
+     * Submit the runs waiting in the submitter, stop the journal thread, save a snapshot if the
+     * histograms changed and force the journal to the disk. Runs submitted afterwards are only
+     * kept in memory.
+     */
+    public void close() {
+        ScoreSubmitter pending;
+        synchronized (this) {
+            pending = submitter;
+        }
+        if (pending != null) {
+            try {
+                pending.shutdown();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        ScoreJournal current;
+        submitLock.writeLock().lock();
+        try {
+            synchronized (this) {
+                current = journal;
+                if (current != null)
+                    appliedSeq = current.getLastSeq();
+                journal = null;
+                if (worker != null)
+                    worker.shutdown();
+            }
+        } finally {
+            submitLock.writeLock().unlock();
+        }
+        if (current == null)
+            return;
+        try {
+            worker.awaitTermination(5, TimeUnit.SECONDS);
+            boolean changed;
+            synchronized (this) {
+                changed = histogramRuns() != savedHistogramRuns;
+            }
+            if (changed || current.hasFailures())
+                save();
+            synchronized (compactLock) {
+                current.close();
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+import javax.swing.*;
+import java.io.IOException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Submits runs to a ScoreStore on a background thread, so the Event Dispatch Thread never waits
+ * for the journal.
+ * <p>
+ * A submit request returns at once. The run is added to the store on the submitting thread, in
+ * the order the requests were made, and the callback of the request is told on the Event
+ * Dispatch Thread. The store drains the pending runs into its journal when it is closed.
+ */
+public class ScoreSubmitter {
+    /**
+     * Told on the Event Dispatch Thread when a run has been submitted.
+     */
+    public interface Callback {
+        /**
+         * Called once the run has been added to the store, or its journal write has failed.
+         *
+         * @param place place of the run, 0 for the first, -1 if it failed
+         * @param error error of the journal write, null if it succeeded
+         */
+        void submitted(int place, IOException error);
+    }
+
+    private final ScoreStore store;
+    private final ThreadPoolExecutor executor;
+
+    // statistics
+    private long requests, submitted, failures;
+    private int waiting;
+    private long totalNanos, maxNanos;
+
+    /**
+     * Constructor. Starts the submitting thread of a store.
+     *
+     * @param store store the runs are added to
+     */
+    public ScoreSubmitter(ScoreStore store) {
+        this.store = store;
+        executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "Score submitter");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+
+    /**
+     * Ask for a run to be added to the store. Returns without waiting for the journal.
+     *
+     * @param category name of the category
+     * @param score    score of the run
+     * @param name     packed name of the player
+     * @param callback told when the run is submitted, may be null
+     */
+    public void submit(String category, long score, long name, Callback callback) {
+        final long start = System.nanoTime();
+        synchronized (this) {
+            requests++;
+            waiting++;
+        }
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                submitNow(category, score, name, callback, start);
+            }
+        };
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException ex) {
+            // the submitting thread has been shut down, submit on this thread instead
+            task.run();
+        }
+    }
+
+    /**
+     * Add a run to the store and tell its callback.
+     *
+     * @param category name of the category
+     * @param score    score of the run
+     * @param name     packed name of the player
+     * @param callback told when the run is submitted, may be null
+     * @param start    nanoTime of the request
+     */
+    private void submitNow(String category, long score, long name, Callback callback, long start) {
+        int place = -1;
+        IOException error = null;
+        try {
+            place = store.submit(category, score, name);
+        } catch (IOException ex) {
+            error = ex;
+        }
+        long nanos = System.nanoTime() - start;
+
+        synchronized (this) {
+            waiting--;
+            submitted++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            if (error != null)
+                failures++;
+        }
+
+        if (callback != null) {
+            final int result = place;
+            final IOException resultError = error;
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    callback.submitted(result, resultError);
+                }
+            });
+        }
+    }
+
+    /**
+     * Submit the pending runs and stop the submitting thread. Runs asked for afterwards are
+     * submitted on the calling thread.
+     *
+     * @throws InterruptedException if interrupted while waiting for the pending runs
+     */
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Get the number of runs waiting to be submitted.
+     *
+     * @return queue depth
+     */
+    public synchronized int getQueueDepth() {
+        return waiting;
+    }
+
+    /**
+     * Get the number of submit requests.
+     *
+     * @return number of requests
+     */
+    public synchronized long getRequests() {
+        return requests;
+    }
+
+    /**
+     * Get the number of runs submitted.
+     *
+     * @return number of runs
+     */
+    public synchronized long getSubmitted() {
+        return submitted;
+    }
+
+    /**
+     * Get the number of runs whose journal write failed.
+     *
+     * @return number of failures
+     */
+    public synchronized long getFailures() {
+        return failures;
+    }
+
+    /**
+     * Get the average time from a request to its run being submitted.
+     *
+     * @return submit latency in nanoseconds
+     */
+    public synchronized long getAverageNanos() {
+        return submitted == 0 ? 0 : totalNanos / submitted;
+    }
+
+    /**
+     * Get the longest time from a request to its run being submitted.
+     *
+     * @return submit latency in nanoseconds
+     */
+    public synchronized long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Describe the submitting statistics.
+     *
+     * @return requests, queue depth and submit latency
+     */
+    public synchronized String report() {
+        return String.format("%d requests, %d submitted, %d failed, %d waiting, %.2f ms average, %.2f ms longest",
+                requests, submitted, failures, waiting, getAverageNanos() / 1e6, maxNanos / 1e6);
+    }
+}
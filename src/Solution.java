@@ -0,0 +1,115 @@
+/**
+ * Result of a solver run - the actions found and the cost of finding them.
+ */
+public class Solution {
+    private final String method;
+    private final int[] actions; // encoded GameState actions, null if the level has no solution
+    private final long nodesExpanded;
+    private final long peakMemoryBytes;
+    private final long wallTimeNanos;
+
+    /**
+     * Constructor.
+     *
+     * @param method          name of the search used
+     * @param actions         encoded actions from the start to the win cell, null if there is no solution
+     * @param nodesExpanded   number of states whose successors were generated
+     * @param peakMemoryBytes largest size reached by the search structures
+     * @param wallTimeNanos   time taken by the search
+     */
+    public Solution(String method, int[] actions, long nodesExpanded, long peakMemoryBytes, long wallTimeNanos) {
+        this.method = method;
+        this.actions = actions;
+        this.nodesExpanded = nodesExpanded;
+        this.peakMemoryBytes = peakMemoryBytes;
+        this.wallTimeNanos = wallTimeNanos;
+    }
+
+    /**
+     * Get the name of the search that produced the solution.
+     *
+     * @return search name
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Check if a solution was found.
+     *
+     * @return true if the level can be completed
+     */
+    public boolean isSolved() {
+        return actions != null;
+    }
+
+    /**
+     * Get the actions of the solution.
+     *
+     * @return encoded GameState actions, null if there is no solution
+     */
+    public int[] getActions() {
+        return actions;
+    }
+
+    /**
+     * Get the number of actions in the solution.
+     *
+     * @return number of actions, -1 if there is no solution
+     */
+    public int length() {
+        return actions == null ? -1 : actions.length;
+    }
+
+    /**
+     * Get the number of states expanded.
+     *
+     * @return number of states whose successors were generated
+     */
+    public long getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    /**
+     * Get the peak memory used by the search structures.
+     *
+     * @return size in bytes
+     */
+    public long getPeakMemoryBytes() {
+        return peakMemoryBytes;
+    }
+
+    /**
+     * Get the time taken by the search.
+     *
+     * @return wall time in nanoseconds
+     */
+    public long getWallTimeNanos() {
+        return wallTimeNanos;
+    }
+
+    /**
+     * Describe the actions of the solution, e.g. "STEP UP, TURN RIGHT".
+     *
+     * @return readable list of actions
+     */
+    public String describeActions() {
+        if (actions == null)
+            return "no solution";
+
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < actions.length; i++) {
+            if (i > 0)
+                text.append(", ");
+            text.append(GameState.actionToString(actions[i]));
+        }
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %s, %d nodes expanded, %d KB peak, %.2f ms",
+                method, isSolved() ? length() + " actions" : "unsolvable",
+                nodesExpanded, (peakMemoryBytes + 1023) / 1024, wallTimeNanos / 1e6);
+    }
+}
@@ -0,0 +1,82 @@
+import java.awt.*;
+
+/**
+ * Shows how far a speed run is ahead of or behind the personal best, as "-mm:ss:cc" in green
+ * or "+mm:ss:cc" in red.
+ * <p>
+ * The delta at the last level finished is worked out once per split. In between, the clock is
+ * only compared with the next personal-best split, and once the run has fallen behind it the
+ * delta grows live. Nothing is shown before the first split or without a personal best.
+ */
+public class SplitDeltaDisplay extends ClockDisplay {
+    private static final Color AHEAD = new Color(0, 140, 0);
+    private static final Color BEHIND = new Color(200, 0, 0);
+
+    private final SplitTable splits;
+
+    // delta at the last split, worked out when the number of splits changes
+    private int shownSplits = -1;
+    private long splitDelta;
+
+    /**
+     * Constructor. Creates a display comparing a run with its personal best.
+     *
+     * @param clock  clock of the run
+     * @param splits personal-best splits of the run
+     */
+    public SplitDeltaDisplay(GameClock clock, SplitTable splits) {
+        super(clock, GameClock.TEXT_LENGTH + 1);
+        this.splits = splits;
+    }
+
+    /**
+     * Write the delta to be shown, blank when there is none.
+     *
+     * @param out characters to be written to
+     */
+    @Override
+    protected void format(char[] out) {
+        if (!splits.hasBest()) {
+            blank(out);
+            return;
+        }
+
+        int done = clock.getSplitCount();
+        if (done != shownSplits) {
+            shownSplits = done;
+            splitDelta = done == 0 ? 0 : splits.getDelta(done - 1, clock.getSplitMillis(done - 1));
+        }
+
+        // behind the personal best at the end of the current level already
+        long delta = splitDelta;
+        boolean live = false;
+        if (done < splits.size()) {
+            long liveDelta = splits.getDelta(done, clock.getElapsedMillis());
+            if (liveDelta > 0 && liveDelta > splitDelta) {
+                delta = liveDelta;
+                live = true;
+            }
+        }
+
+        if (done == 0 && !live) {
+            blank(out);
+            return;
+        }
+        out[0] = delta < 0 ? '-' : '+';
+        GameClock.format(Math.abs(delta), out, 1);
+        Color colour = delta < 0 ? AHEAD : BEHIND;
+        if (getForeground() != colour)
+            setForeground(colour);
+    }
+
+    /**
+     * Fill the text with spaces.
+     *
+     * @param out characters to be written to
+     */
+    private static void blank(char[] out) {
+        for (int i = 0; i < out.length; i++) {
+            out[i] = ' ';
+        }
+    }
+}
@@ -0,0 +1,217 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.regex.Pattern;
+
+/**
+ * Personal-best split times of a speed run, kept in a .splits file.
+ * <p>
+ * For each level of the run the table holds the split of the best complete run - the time from
+ * the start of the run to the end of the level - and the best segment, the fastest the level has
+ * ever been finished in. Times are in milliseconds, 0 where there is none yet.
+ * <p>
+ * Each line of the file is "level=split=segment", one per level of the run. The file is written
+ * with SafeFile, so a run interrupted while saving leaves the old splits or their backup.
+ */
+public class SplitTable {
+    private final Path splitsFile;
+    private final int firstLevel;
+    private final long[] bestSplits;
+    private final long[] bestSegments;
+    private final String fileType = ".splits";
+
+    /**
+     * Constructor. Loads the splits of a run.
+     *
+     * @param filePath   path of the splits file without type
+     * @param firstLevel first level of the run
+     * @param levels     number of levels in the run
+     */
+    public SplitTable(String filePath, int firstLevel, int levels) {
+        this.firstLevel = firstLevel;
+        bestSplits = new long[levels];
+        bestSegments = new long[levels];
+        splitsFile = Paths.get(filePath + fileType);
+        try {
+            load();
+        } catch (IOException ex) {
+            System.out.println(ex.getMessage());
+        }
+    }
+
+    /**
+     * Load the splits from the .splits file, or its backup if the file is missing or damaged.
+     * If there is neither or they hold bad values the table is left empty.
+     */
+    public void load() throws IOException {
+        if (parse(SafeFile.read(splitsFile)))
+            return;
+        Path backup = SafeFile.backupOf(splitsFile);
+        if (parse(SafeFile.read(backup))) {
+            System.out.println("Recovered splits from " + backup);
+            return;
+        }
+
+        clear();
+        if (Files.exists(splitsFile) || Files.exists(backup))
+            throw new IOException("Corrupted .splits file " + splitsFile);
+    }
+
+    /**
+     * Read the splits from the contents of a .splits file into the table.
+     *
+     * @param content contents of the file, null if there is none
+     * @return true if there was a valid line for every level of the run
+     */
+    private boolean parse(String content) {
+        if (content == null)
+            return false;
+
+        Pattern regexSplit = Pattern.compile("[0-9]+=[0-9]+=[0-9]+");
+        String[] lines = content.split("\\R");
+        if (lines.length != bestSplits.length)
+            return false;
+        for (int i = 0; i < lines.length; i++) {
+            if (!regexSplit.matcher(lines[i]).matches())
+                return false;
+            String[] splitLine = lines[i].split("=");
+            try {
+                if (Integer.parseInt(splitLine[0]) != firstLevel + i)
+                    return false;
+                bestSplits[i] = Long.parseLong(splitLine[1]);
+                bestSegments[i] = Long.parseLong(splitLine[2]);
+            } catch (NumberFormatException ex) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Save the splits into the .splits file, replacing it whole.
+     */
+    public void save() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < bestSplits.length; i++) {
+            content.append(firstLevel + i).append('=').append(bestSplits[i]).append('=').append(bestSegments[i])
+                    .append(System.lineSeparator());
+        }
+        SafeFile.write(splitsFile, content.toString());
+    }
+
+    /**
+     * Forget every split.
+     */
+    public void clear() {
+        for (int i = 0; i < bestSplits.length; i++) {
+            bestSplits[i] = bestSegments[i] = 0;
+        }
+    }
+
+    /**
+     * Get the number of levels of the run.
+     *
+     * @return number of splits in a complete run
+     */
+    public int size() {
+        return bestSplits.length;
+    }
+
+    /**
+     * Check if a complete run has been recorded.
+     *
+     * @return true if there is a personal best
+     */
+    public boolean hasBest() {
+        return bestSplits[bestSplits.length - 1] > 0;
+    }
+
+    /**
+     * Get the split of the personal best run at a level.
+     *
+     * @param index index of the level in the run, from 0
+     * @return time from the start of the run in milliseconds, 0 if there is no personal best
+     */
+    public long getBestSplit(int index) {
+        return bestSplits[index];
+    }
+
+    /**
+     * Get the fastest a level of the run has been finished in.
+     *
+     * @param index index of the level in the run, from 0
+     * @return segment time in milliseconds, 0 if the level was never finished
+     */
+    public long getBestSegment(int index) {
+        return bestSegments[index];
+    }
+
+    /**
+     * Get the time of the personal best run.
+     *
+     * @return run time in milliseconds, 0 if there is none
+     */
+    public long getBestTime() {
+        return bestSplits[bestSplits.length - 1];
+    }
+
+    /**
+     * Get the sum of the best segments - the best time possible from the segments played.
+     *
+     * @return time in milliseconds, 0 if some level was never finished
+     */
+    public long getSumOfBest() {
+        long sum = 0;
+        for (long segment : bestSegments) {
+            if (segment == 0)
+                return 0;
+            sum += segment;
+        }
+        return sum;
+    }
+
+    /**
+     * Get how far a split is ahead of or behind the personal best.
+     *
+     * @param index  index of the level in the run, from 0
+     * @param millis time of the split from the start of the run in milliseconds
+     * @return negative when ahead, positive when behind, 0 if there is no personal best
+     */
+    public long getDelta(int index, long millis) {
+        if (index >= bestSplits.length || bestSplits[index] == 0)
+            return 0;
+        return millis - bestSplits[index];
+    }
+
+    /**
+     * Record a finished level, keeping it if it is the best segment.
+     *
+     * @param index  index of the level in the run, from 0
+     * @param millis time the level took in milliseconds
+     */
+    public void recordSegment(int index, long millis) {
+        if (index < bestSegments.length && (bestSegments[index] == 0 || millis < bestSegments[index]))
+            bestSegments[index] = millis;
+    }
+
+    /**
+     * Record the splits of a complete run, keeping them if the run is the personal best.
+     *
+     * @param clock stopped clock of the run, with a split for each level
+     * @return true if the run is a new personal best
+     */
+    public boolean recordRun(GameClock clock) {
+        if (clock.getSplitCount() != bestSplits.length)
+            return false;
+
+        long time = clock.getSplitMillis(bestSplits.length - 1);
+        if (hasBest() && time >= getBestTime())
+            return false;
+
+        for (int i = 0; i < bestSplits.length; i++) {
+            bestSplits[i] = clock.getSplitMillis(i);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,224 @@
+import java.util.Arrays;
+
+/**
+ * Packs the changing part of a GameState into a single long, for the solvers.
+ * <p>
+ * The terrain of a level never changes, so a state is fully described by the player's stump,
+ * facing, held plank size and which gaps between neighbouring stumps hold a plank. Every stump
+ * and every such gap ("slot") of the level gets an index when the codec is built, and a key is
+ * laid out as:
+ * <pre>
+ *   bits 0 .. slots-1          one bit per slot holding a plank
+ *   next 6 bits                index of the player's stump
+ *   next 4 bits                size of the held plank
+ *   next 2 bits                facing direction
+ * </pre>
+ * A slot counts as holding a plank when the cell next to its stump is covered, so no other slot may
+ * cross that cell. That holds for every layout built on the even grid of the built-in levels,
+ * where slots can only cross on cells two or more steps away from a stump.
+ */
+public class StateCodec {
+    public static final int MAX_STUMPS = 64;
+    public static final int MAX_SLOTS = 50;
+
+    private final GameState template = new GameState(); // the level with every plank lifted
+
+    private final int[] stumpIndex = new int[GameState.CELLS]; // index of the stump on each cell, -1 for none
+    private final int[] stumps; // cell of each stump
+
+    private final int[] slotStump; // stump at the top or left end of each slot
+    private final int[] slotDirection; // RIGHT or DOWN from slotStump
+    private final int[] slotSize; // number of cells covered by a plank in the slot
+
+    private final int playerShift, heldShift, facingShift;
+
+    /**
+     * Constructor. Indexes the stumps and plank slots of a level.
+     *
+     * @param level state of the level to be encoded
+     * @throws IllegalArgumentException if the level has too many stumps or slots to fit a key
+     */
+    public StateCodec(GameState level) {
+        int[] stumpList = new int[GameState.CELLS];
+        int[] slotList = new int[2 * GameState.CELLS];
+        int stumpCount = 0, slotCount = 0;
+
+        for (int cell = 0; cell < GameState.CELLS; cell++) {
+            stumpIndex[cell] = -1;
+            if (!level.isStump(cell))
+                continue;
+
+            stumpIndex[cell] = stumpCount;
+            stumpList[stumpCount++] = cell;
+
+            // every slot is found once, from its top or left stump
+            if (level.getNextStump(cell, GameState.RIGHT) != cell)
+                slotList[slotCount++] = cell << 2 | GameState.RIGHT;
+            if (level.getNextStump(cell, GameState.DOWN) != cell)
+                slotList[slotCount++] = cell << 2 | GameState.DOWN;
+        }
+
+        if (stumpCount > MAX_STUMPS || slotCount > MAX_SLOTS)
+            throw new IllegalArgumentException("Level too large to encode: " + stumpCount + " stumps, " + slotCount + " slots");
+
+        // check that the cell next to the stump of each slot belongs to no other slot
+        int[] owner = new int[GameState.CELLS];
+        Arrays.fill(owner, -1);
+        for (int i = 0; i < slotCount; i++) {
+            int stump = slotList[i] >> 2, direction = slotList[i] & 3;
+            for (int cell = level.getNextCell(stump, direction); !level.isStump(cell); cell = level.getNextCell(cell, direction)) {
+                owner[cell] = owner[cell] == -1 ? i : -2;
+            }
+        }
+        for (int i = 0; i < slotCount; i++) {
+            int first = level.getNextCell(slotList[i] >> 2, slotList[i] & 3);
+            if (owner[first] == -2)
+                throw new IllegalArgumentException("Level has a plank slot starting on a crossing at cell " + first);
+        }
+
+        stumps = new int[stumpCount];
+        System.arraycopy(stumpList, 0, stumps, 0, stumpCount);
+
+        slotStump = new int[slotCount];
+        slotDirection = new int[slotCount];
+        slotSize = new int[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slotStump[i] = slotList[i] >> 2;
+            slotDirection[i] = slotList[i] & 3;
+            slotSize[i] = GameState.distanceBetween(slotStump[i], level.getNextStump(slotStump[i], slotDirection[i]));
+        }
+
+        playerShift = slotCount;
+        heldShift = playerShift + 6;
+        facingShift = heldShift + 4;
+
+        // keep the terrain and lift every plank for the template
+        template.copyFrom(level);
+        for (int i = 0; i < slotCount; i++) {
+            template.removePlank(slotStump[i], slotDirection[i]);
+        }
+    }
+
+    /**
+     * Encode a state of the level.
+     *
+     * @param state state to be encoded, with the player on a stump
+     * @return key of the state
+     */
+    public long encode(GameState state) {
+        long key = 0;
+        for (int i = 0; i < slotStump.length; i++) {
+            if (state.isPlank(state.getNextCell(slotStump[i], slotDirection[i])))
+                key |= 1L << i;
+        }
+        key |= (long) stumpIndex[state.getPlayerCell()] << playerShift;
+        key |= (long) state.getHeldSize() << heldShift;
+        key |= (long) state.getFacing() << facingShift;
+        return key;
+    }
+
+    /**
+     * Restore a state of the level from its key.
+     *
+     * @param key   key of the state
+     * @param state state to be overwritten
+     */
+    public void decode(long key, GameState state) {
+        state.copyFrom(template);
+        for (int i = 0; i < slotStump.length; i++) {
+            if ((key >>> i & 1) != 0)
+                state.placePlank(slotStump[i], state.getNextStump(slotStump[i], slotDirection[i]));
+        }
+        state.setPlayerCell(stumps[(int) (key >>> playerShift) & 63]);
+        state.setHeldSize((int) (key >>> heldShift) & 15);
+        state.setFacing((int) (key >>> facingShift) & 3);
+    }
+
+    /**
+     * Get the index of a stump.
+     *
+     * @param cell cell of the stump
+     * @return index of the stump, -1 if the cell is not a stump
+     */
+    public int getStumpIndex(int cell) {
+        return stumpIndex[cell];
+    }
+
+    /**
+     * Get the cell of a stump.
+     *
+     * @param index index of the stump
+     * @return cell of the stump
+     */
+    public int getStumpCell(int index) {
+        return stumps[index];
+    }
+
+    /**
+     * Get the number of cells a plank in a slot covers.
+     *
+     * @param slot index of the slot
+     * @return size of the slot
+     */
+    public int getSlotSize(int slot) {
+        return slotSize[slot];
+    }
+
+    /**
+     * Get the stump at the top or left end of a slot.
+     *
+     * @param slot index of the slot
+     * @return cell of the stump
+     */
+    public int getSlotStump(int slot) {
+        return slotStump[slot];
+    }
+
+    /**
+     * Get the direction of a slot from its top or left stump.
+     *
+     * @param slot index of the slot
+     * @return RIGHT or DOWN
+     */
+    public int getSlotDirection(int slot) {
+        return slotDirection[slot];
+    }
+
+    /**
+     * Get the planks and held plank of an encoded state, leaving out the player's stump and facing.
+     *
+     * @param key key of the state
+     * @return key of the plank layout, shared by every player position over it
+     */
+    public long layoutOf(long key) {
+        return key & ~(63L << playerShift | 3L << facingShift);
+    }
+
+    /**
+     * Get the cell of the player in an encoded state.
+     *
+     * @param key key of the state
+     * @return cell of the player
+     */
+    public int playerCell(long key) {
+        return stumps[(int) (key >>> playerShift) & 63];
+    }
+
+    /**
+     * Get the number of stumps in the level.
+     *
+     * @return number of stumps
+     */
+    public int getStumpCount() {
+        return stumps.length;
+    }
+
+    /**
+     * Get the number of plank slots in the level.
+     *
+     * @return number of gaps between neighbouring stumps
+     */
+    public int getSlotCount() {
+        return slotStump.length;
+    }
+}
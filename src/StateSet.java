@@ -0,0 +1,116 @@
+/**
+ * A set of long keys held in a primitive open-addressing table with linear probing.
+ * <p>
+ * Used by the solvers for their visited states, where a HashSet of boxed keys would cost
+ * several times the memory and keep the garbage collector busy.
+ */
+public class StateSet {
+    private static final float MAX_LOAD = 0.5f;
+
+    private long[] keys; // 0 marks a free slot, the key 0 itself is tracked by hasZero
+    private boolean hasZero;
+    private int size;
+    private int mask;
+
+    /**
+     * Constructor. Creates an empty set.
+     *
+     * @param expected number of keys expected, used to size the table
+     */
+    public StateSet(int expected) {
+        int capacity = 16;
+        while (capacity * MAX_LOAD < expected) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Add a key to the set.
+     *
+     * @param key key to be added
+     * @return true if the key was not in the set before
+     */
+    public boolean add(long key) {
+        if (key == 0) {
+            if (hasZero)
+                return false;
+            hasZero = true;
+            size++;
+            return true;
+        }
+
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key)
+                return false;
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        if (++size > keys.length * MAX_LOAD)
+            grow();
+        return true;
+    }
+
+    /**
+     * Check if a key is in the set.
+     *
+     * @param key key to be checked
+     * @return true if the set contains the key
+     */
+    public boolean contains(long key) {
+        if (key == 0)
+            return hasZero;
+
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key)
+                return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Get the number of keys in the set.
+     *
+     * @return number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the memory taken by the table.
+     *
+     * @return size of the table in bytes
+     */
+    public long getMemoryBytes() {
+        return 8L * keys.length;
+    }
+
+    /**
+     * Double the table and re-insert every key.
+     */
+    private void grow() {
+        long[] old = keys;
+        keys = new long[old.length << 1];
+        mask = keys.length - 1;
+        for (long key : old) {
+            if (key == 0)
+                continue;
+            int slot = hash(key) & mask;
+            while (keys[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+        }
+    }
+
+    // spread the bits of a key over the table
+    static int hash(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ key >>> 32);
+    }
+}
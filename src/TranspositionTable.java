@@ -0,0 +1,382 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-capacity table of solver states keyed by 64-bit state keys or hashes, held off-heap.
+ * <p>
+ * Entries are 16 bytes - the key and a data word - in direct ByteBuffers, so even hundreds of
+ * millions of states cost the garbage collector nothing. Keys are claimed with compare-and-set,
+ * which lets many search threads insert at once without locks.
+ * <p>
+ * A table is used in one of two ways:
+ * - as a set, with putIfAbsent and get, where entries are never replaced and a full table is an
+ *   error - the parallel solver keeps its visited states and their parents this way, growing the
+ *   table between the depths of its search
+ * - as a cache, with store and probe, where each key may go in one of a small bucket of entries
+ *   and a replacement policy decides which entry to give up when the bucket is full
+ * <p>
+ * In cache mode the first word of an entry holds the key XOR the data, rather than the key. The
+ * two words of an entry are written one after the other, so a reader may see the words of two
+ * different writes; probe only takes an entry whose words XOR back to the key, and so never
+ * returns the data of another key, or of an entry being written, as a hit.
+ */
+public class TranspositionTable {
+    // replacement policies of store
+    public static final int ALWAYS_REPLACE = 0;
+    public static final int DEPTH_PREFERRED = 1;
+
+    // entries a key may use in cache mode
+    private static final int BUCKET_SIZE = 4;
+
+    // largest number of entries in one buffer
+    private static final int SEGMENT_SHIFT = 26;
+    private static final int SEGMENT_ENTRIES = 1 << SEGMENT_SHIFT;
+
+    // stored in place of the key 0, which marks an empty entry
+    private static final long ZERO_KEY = Long.MIN_VALUE;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer[] segments;
+    private final long capacity;
+    private final long mask;
+    private final int policy;
+
+    // statistics
+    private final LongAdder used = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+    private final LongAdder replacements = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Constructor. Allocates an empty table.
+     *
+     * @param entries number of entries, rounded up to a power of two
+     * @param policy  ALWAYS_REPLACE or DEPTH_PREFERRED, used by store
+     */
+    public TranspositionTable(long entries, int policy) {
+        long size = BUCKET_SIZE;
+        while (size < entries) {
+            size <<= 1;
+        }
+        capacity = size;
+        mask = size - 1;
+        this.policy = policy;
+
+        int segmentCount = (int) ((size + SEGMENT_ENTRIES - 1) >> SEGMENT_SHIFT);
+        segments = new ByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long segmentEntries = Math.min(SEGMENT_ENTRIES, size - (long) i * SEGMENT_ENTRIES);
+            // aligned so that every long can be accessed atomically
+            segments[i] = ByteBuffer.allocateDirect((int) (16 * segmentEntries + 8)).alignedSlice(8);
+        }
+    }
+
+    /**
+     * Constructor. Allocates an empty table to be used as a set, with putIfAbsent and get.
+     *
+     * @param entries number of entries, rounded up to a power of two
+     */
+    public TranspositionTable(long entries) {
+        // the policy only matters to store
+        this(entries, ALWAYS_REPLACE);
+    }
+
+    /**
+     * Create a table that fits a memory budget.
+     *
+     * @param bytes  largest size of the table in bytes
+     * @param policy ALWAYS_REPLACE or DEPTH_PREFERRED, used by store
+     * @return the table
+     */
+    public static TranspositionTable withBudget(long bytes, int policy) {
+        long entries = BUCKET_SIZE;
+        while (16 * entries * 2 <= bytes) {
+            entries <<= 1;
+        }
+        return new TranspositionTable(entries, policy);
+    }
+
+    /**
+     * Add a key with a value unless the key is already in the table. Safe to call from many threads.
+     *
+     * @param key   key to be added
+     * @param value value stored with the key if it is added
+     * @return true if the key was added, false if it was already in the table
+     * @throws IllegalStateException if the table is full
+     */
+    public boolean putIfAbsent(long key, long value) {
+        long stored = key == 0 ? ZERO_KEY : key;
+        long entry = index(key);
+        for (long probes = 0; probes < capacity; probes++) {
+            long current = getKey(entry);
+            if (current == stored)
+                return false;
+            if (current == 0) {
+                if (casKey(entry, 0, stored)) {
+                    setData(entry, value);
+                    used.increment();
+                    return true;
+                }
+                // another thread took the entry, check if it added the same key
+                if (getKey(entry) == stored)
+                    return false;
+            }
+            collisions.increment();
+            entry = (entry + 1) & mask;
+        }
+        throw new IllegalStateException("TranspositionTable is full");
+    }
+
+    /**
+     * Copy the entries of a set into a new table with more entries. Must not be called while
+     * other threads use the table. The statistics of the new table start from zero.
+     *
+     * @param entries number of entries of the new table, at least the capacity of this one
+     * @return the new table, holding every key and value of this one
+     */
+    public TranspositionTable grow(long entries) {
+        TranspositionTable grown = new TranspositionTable(entries, policy);
+        for (long entry = 0; entry < capacity; entry++) {
+            long key = getKey(entry);
+            if (key != 0)
+                grown.putIfAbsent(key == ZERO_KEY ? 0 : key, getData(entry));
+        }
+        grown.collisions.reset();
+        return grown;
+    }
+
+    /**
+     * Get the value of a key added with putIfAbsent. Only reliable once the value was written,
+     * e.g. after the inserting threads have been joined.
+     *
+     * @param key key to be looked up
+     * @return the value of the key, -1 if the key is not in the table
+     */
+    public long get(long key) {
+        long stored = key == 0 ? ZERO_KEY : key;
+        long entry = index(key);
+        for (long probes = 0; probes < capacity; probes++) {
+            long current = getKey(entry);
+            if (current == stored)
+                return getData(entry);
+            if (current == 0)
+                return -1;
+            entry = (entry + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Store a value for a key in cache mode, replacing another entry of its bucket if needed.
+     *
+     * @param key   key of the entry
+     * @param depth importance of the entry for DEPTH_PREFERRED, 0-65535
+     * @param value value of the entry, its low 48 bits are kept
+     * @return true if the value was stored, false if the policy kept the entries already there
+     */
+    public boolean store(long key, int depth, long value) {
+        long stored = key == 0 ? ZERO_KEY : key;
+        long data = (long) depth << 48 | value & 0xFFFFFFFFFFFFL;
+        long bucket = index(key) & ~(BUCKET_SIZE - 1);
+
+        // update the key if it is in the bucket - the newer value wins whatever its depth - or take an empty entry
+        long victim = -1;
+        long victimCheck = 0;
+        int victimDepth = Integer.MAX_VALUE;
+        for (int i = 0; i < BUCKET_SIZE; i++) {
+            long entry = bucket + i;
+            long check = getKey(entry);
+            long current = getData(entry);
+            if ((check ^ current) == stored) {
+                if (writeEntry(entry, check, stored, data))
+                    return true;
+                // another thread wrote the entry meanwhile
+                dropped.increment();
+                return false;
+            }
+            if (check == 0 && current == 0) {
+                if (writeEntry(entry, 0, stored, data)) {
+                    used.increment();
+                    if (i > 0)
+                        collisions.increment();
+                    return true;
+                }
+                continue;
+            }
+            int currentDepth = depthOf(current);
+            if (currentDepth < victimDepth) {
+                victim = entry;
+                victimCheck = check;
+                victimDepth = currentDepth;
+            }
+        }
+
+        // the bucket is full - always replace the first entry, or only the shallowest one if it isn't deeper
+        collisions.increment();
+        if (policy == ALWAYS_REPLACE) {
+            victim = bucket;
+            victimCheck = getKey(bucket);
+        } else if (victim < 0 || victimDepth > depth) {
+            dropped.increment();
+            return false;
+        }
+
+        if (victimCheck == 0 || !writeEntry(victim, victimCheck, stored, data)) {
+            dropped.increment();
+            return false;
+        }
+        replacements.increment();
+        return true;
+    }
+
+    /**
+     * Write an entry in cache mode, if no other thread changed its first word since it was read.
+     * Until the data is written the words don't XOR back to the key, so probe sees no entry.
+     *
+     * @param entry    index of the entry
+     * @param expected first word of the entry as read
+     * @param stored   key of the entry, ZERO_KEY for the key 0
+     * @param data     depth and value of the entry
+     * @return true if the entry was written
+     */
+    private boolean writeEntry(long entry, long expected, long stored, long data) {
+        if (!casKey(entry, expected, stored ^ data))
+            return false;
+        setData(entry, data);
+        return true;
+    }
+
+    /**
+     * Look a key up in cache mode.
+     *
+     * @param key key of the entry
+     * @return the 48-bit value stored for the key, -1 if it is not in the table
+     */
+    public long probe(long key) {
+        long stored = key == 0 ? ZERO_KEY : key;
+        long bucket = index(key) & ~(BUCKET_SIZE - 1);
+        for (int i = 0; i < BUCKET_SIZE; i++) {
+            long entry = bucket + i;
+            long data = getData(entry);
+            // words of different writes, or of another key, don't XOR back to the key
+            if ((getKey(entry) ^ data) == stored)
+                return data & 0xFFFFFFFFFFFFL;
+        }
+        return -1;
+    }
+
+    /**
+     * Empty the table. Must not be called while other threads use it.
+     */
+    public void clear() {
+        for (ByteBuffer segment : segments) {
+            for (int i = 0; i < segment.capacity(); i += 8) {
+                segment.putLong(i, 0);
+            }
+        }
+        used.reset();
+        collisions.reset();
+        replacements.reset();
+        dropped.reset();
+    }
+
+    /**
+     * Get the number of entries.
+     *
+     * @return capacity of the table
+     */
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Get the number of entries in use.
+     *
+     * @return number of keys added
+     */
+    public long size() {
+        return used.sum();
+    }
+
+    /**
+     * Get the share of entries in use.
+     *
+     * @return used entries divided by the capacity
+     */
+    public double getLoadFactor() {
+        return (double) used.sum() / capacity;
+    }
+
+    /**
+     * Get the number of collisions - probes past the first entry of a key, or full buckets met by store.
+     *
+     * @return number of collisions
+     */
+    public long getCollisions() {
+        return collisions.sum();
+    }
+
+    /**
+     * Get the number of entries given up to another key by store.
+     *
+     * @return number of replacements
+     */
+    public long getReplacements() {
+        return replacements.sum();
+    }
+
+    /**
+     * Get the number of values store did not keep because of the replacement policy.
+     *
+     * @return number of dropped stores
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Get the memory taken by the table.
+     *
+     * @return size of the table in bytes
+     */
+    public long getMemoryBytes() {
+        return 16 * capacity;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d entries (%d MB), load %.3f, %d collisions, %d replacements, %d dropped",
+                capacity, getMemoryBytes() >> 20, getLoadFactor(), getCollisions(), getReplacements(), getDropped());
+    }
+
+    // first entry tried for a key
+    private long index(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (key ^ key >>> 32) & mask;
+    }
+
+    // importance of an entry in cache mode
+    private static int depthOf(long data) {
+        return (int) (data >>> 48);
+    }
+
+    private long getKey(long entry) {
+        return (long) LONGS.getVolatile(segments[(int) (entry >>> SEGMENT_SHIFT)], (int) (entry & (SEGMENT_ENTRIES - 1)) << 4);
+    }
+
+    private boolean casKey(long entry, long expected, long key) {
+        return LONGS.compareAndSet(segments[(int) (entry >>> SEGMENT_SHIFT)], (int) (entry & (SEGMENT_ENTRIES - 1)) << 4, expected, key);
+    }
+
+    private long getData(long entry) {
+        return (long) LONGS.getVolatile(segments[(int) (entry >>> SEGMENT_SHIFT)], ((int) (entry & (SEGMENT_ENTRIES - 1)) << 4) + 8);
+    }
+
+    private void setData(long entry, long data) {
+        LONGS.setVolatile(segments[(int) (entry >>> SEGMENT_SHIFT)], ((int) (entry & (SEGMENT_ENTRIES - 1)) << 4) + 8, data);
+    }
+}